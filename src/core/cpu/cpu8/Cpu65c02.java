@@ -1,12 +1,15 @@
 package core.cpu.cpu8;
 
-import java.util.ArrayDeque;
-import java.util.Deque;
+import java.lang.invoke.MethodHandles;
+import java.util.Arrays;
 
+import core.cpu.cpu8.Cpu65c02Microcode.AccessType;
+import core.cpu.cpu8.Cpu65c02Microcode.MicroOp;
 import core.cpu.cpu8.Register.StatusRegister;
 import core.exception.HardwareException;
 import core.memory.memory8.MemoryBus8;
 import core.memory.memory8.MemoryBusIIe;
+import core.emulator.CyclePrecisionSource;
 import core.emulator.HardwareManager;
 
 /* Copyright (C) 2012-2015 Shane Reilly
@@ -34,6 +37,9 @@ public class Cpu65c02 extends HardwareManager {
 	private int operandPtr;
 	private int newPc;
 	private Opcode newOpcode;
+	private int newOpcodeIndex;
+	private InstructionHandler newInstructionHandler;
+	private int newDecoded = Cpu65c02DecodeCache.MISS;
 	private Opcode opcode;
 	
 	private Register reg = new Register();
@@ -44,8 +50,40 @@ public class Cpu65c02 extends HardwareManager {
 	private int lastCycleCount;
 	private int lastInstructionCycleCount;
 	private int pendingInstructionCyclesConsumed;
-	private final Deque<CpuExecutionEvent> executionQueue = new ArrayDeque<CpuExecutionEvent>();
+	private final int[] executionQueue = new int[EXECUTION_QUEUE_CAPACITY];
+	private int executionQueueHead;
+	private int executionQueueSize;
+	private boolean executionQueueChecksEnabled = Boolean.getBoolean("ever2e.cpu.checkExecutionQueue");
 	private final CpuExecutionPlanner executionPlanner;
+	private final Cpu65c02DecodedOperand decodedOperand = new Cpu65c02DecodedOperand();
+	private final Cpu65c02DecodeCache decodeCache;
+	private int decodedInstruction = Cpu65c02DecodeCache.MISS;
+	private Cpu65c02Jit jit;
+	private int jitCodePage;
+	private int jitCycles;
+	private int jitInstructionCount;
+	private int jitSavedPc;
+	private Opcode jitSavedOpcode;
+	private int jitSavedCycleCount;
+	private int jitSavedNewPc;
+	private final Cpu65c02IdleLoopDetector idleLoopDetector;
+	private long idleLoopCyclesSkipped;
+	private Cpu65c02Profile profile;
+	private boolean cycleExact;
+	private boolean adaptiveAccuracy = true;
+	private CyclePrecisionSource[] precisionSources = new CyclePrecisionSource[0];
+	private long atomicInstructionCount;
+	private long ioCycleExactInstructionCount;
+	private long deviceCycleExactInstructionCount;
+	private long forcedCycleExactInstructionCount;
+	private int microPc = -1;
+	private int microVariant;
+	private int microOpcodeIndex;
+	private int microOperand;
+	private int microPointerAddress;
+	private int microPointer;
+	private int microAddress;
+	private int microData;
 
 	private volatile Opcode interruptPending;
 	private boolean isHalted;
@@ -55,22 +93,15 @@ public class Cpu65c02 extends HardwareManager {
 	private Integer resetYOverride;
 	private Integer resetSOverride;
 
-	@FunctionalInterface
-	private interface CpuExecutionAction {
-		void run() throws HardwareException;
-	}
-
-	private static final class CpuExecutionEvent {
-		private final boolean instructionEnd;
-		private final CpuExecutionAction action;
-
-		private CpuExecutionEvent(boolean instructionEnd, CpuExecutionAction action) {
-			this.instructionEnd = instructionEnd;
-			this.action = action;
-		}
-	}
+	// Execution queue event codes; the queue is a fixed ring so per-cycle dispatch never allocates
+	private static final int EVENT_PENDING_CYCLE = 0;
+	private static final int EVENT_INSTRUCTION_END = 1;
+	private static final int EXECUTION_QUEUE_CAPACITY = 16;  // Power of two, larger than any instruction cycle count
+	private static final int EXECUTION_QUEUE_MASK = EXECUTION_QUEUE_CAPACITY-1;
 	
 	private static final int STACK_PAGE = 0x100;
+
+	private static final MicroOp[] MICRO_OP = MicroOp.values();
 	
 	public static final int INT_NMI_VECTOR_ADDR = 0xfffa;
 	public static final int INT_RES_VECTOR_ADDR = 0xfffc;
@@ -393,6 +424,348 @@ public class Cpu65c02 extends HardwareManager {
 		
 	};
 
+	@FunctionalInterface
+	private interface InstructionHandler {
+		void execute( Cpu65c02 cpu, int operandCounter );
+	}
+
+	// One handler per opcode byte with the addressing mode folded in, so each instruction is a single indexed dispatch
+	private static final InstructionHandler INSTRUCTION_HANDLER[] = buildInstructionHandlers();
+	private static final InstructionHandler INTERRUPT_IRQ_HANDLER = (cpu, operandCounter) -> cpu.opIrq();
+	private static final InstructionHandler INTERRUPT_NMI_HANDLER = (cpu, operandCounter) -> cpu.opNmi();
+	private static final InstructionHandler INTERRUPT_RES_HANDLER = (cpu, operandCounter) -> cpu.opRes();
+	private static final InstructionHandler INTERRUPT_HLT_HANDLER = (cpu, operandCounter) -> cpu.opHlt();
+
+	private static InstructionHandler[] buildInstructionHandlers() {
+		InstructionHandler handler[] = new InstructionHandler[OPCODE.length];
+		handler[0x00] = (cpu, operandCounter) -> cpu.opBrk();
+		handler[0x01] = (cpu, operandCounter) -> { cpu.resolveIndX(operandCounter); cpu.opOra(); };
+		handler[0x02] = (cpu, operandCounter) -> cpu.opNop();
+		handler[0x03] = (cpu, operandCounter) -> cpu.opNop();
+		handler[0x04] = (cpu, operandCounter) -> { cpu.resolveZpg(operandCounter); cpu.opTsb(); };
+		handler[0x05] = (cpu, operandCounter) -> { cpu.resolveZpg(operandCounter); cpu.opOra(); };
+		handler[0x06] = (cpu, operandCounter) -> { cpu.resolveZpg(operandCounter); cpu.opAsl(); };
+		handler[0x07] = (cpu, operandCounter) -> cpu.opNop();
+		handler[0x08] = (cpu, operandCounter) -> cpu.opPhp();
+		handler[0x09] = (cpu, operandCounter) -> { cpu.resolveImm(operandCounter); cpu.opOra(); };
+		handler[0x0a] = (cpu, operandCounter) -> cpu.opAslAcc();
+		handler[0x0b] = (cpu, operandCounter) -> cpu.opNop();
+		handler[0x0c] = (cpu, operandCounter) -> { cpu.resolveAbs(operandCounter); cpu.opTsb(); };
+		handler[0x0d] = (cpu, operandCounter) -> { cpu.resolveAbs(operandCounter); cpu.opOra(); };
+		handler[0x0e] = (cpu, operandCounter) -> { cpu.resolveAbs(operandCounter); cpu.opAsl(); };
+		handler[0x0f] = (cpu, operandCounter) -> cpu.opNop();
+		handler[0x10] = (cpu, operandCounter) -> { cpu.resolveRel(operandCounter); cpu.opBpl(); };
+		handler[0x11] = (cpu, operandCounter) -> { cpu.resolveIndY(operandCounter, true); cpu.opOra(); };
+		handler[0x12] = (cpu, operandCounter) -> { cpu.resolveZpgInd(operandCounter); cpu.opOra(); };
+		handler[0x13] = (cpu, operandCounter) -> cpu.opNop();
+		handler[0x14] = (cpu, operandCounter) -> { cpu.resolveZpg(operandCounter); cpu.opTrb(); };
+		handler[0x15] = (cpu, operandCounter) -> { cpu.resolveZpgX(operandCounter); cpu.opOra(); };
+		handler[0x16] = (cpu, operandCounter) -> { cpu.resolveZpgX(operandCounter); cpu.opAsl(); };
+		handler[0x17] = (cpu, operandCounter) -> cpu.opNop();
+		handler[0x18] = (cpu, operandCounter) -> cpu.opClc();
+		handler[0x19] = (cpu, operandCounter) -> { cpu.resolveAbsY(operandCounter, true); cpu.opOra(); };
+		handler[0x1a] = (cpu, operandCounter) -> cpu.opIna();
+		handler[0x1b] = (cpu, operandCounter) -> cpu.opNop();
+		handler[0x1c] = (cpu, operandCounter) -> { cpu.resolveAbs(operandCounter); cpu.opTrb(); };
+		handler[0x1d] = (cpu, operandCounter) -> { cpu.resolveAbsX(operandCounter, true); cpu.opOra(); };
+		handler[0x1e] = (cpu, operandCounter) -> { cpu.resolveAbsX(operandCounter, false); cpu.opAsl(); };
+		handler[0x1f] = (cpu, operandCounter) -> cpu.opNop();
+		handler[0x20] = (cpu, operandCounter) -> { cpu.resolveAbs(operandCounter); cpu.opJsr(); };
+		handler[0x21] = (cpu, operandCounter) -> { cpu.resolveIndX(operandCounter); cpu.opAnd(); };
+		handler[0x22] = (cpu, operandCounter) -> cpu.opNop();
+		handler[0x23] = (cpu, operandCounter) -> cpu.opNop();
+		handler[0x24] = (cpu, operandCounter) -> { cpu.resolveZpg(operandCounter); cpu.opBit(); };
+		handler[0x25] = (cpu, operandCounter) -> { cpu.resolveZpg(operandCounter); cpu.opAnd(); };
+		handler[0x26] = (cpu, operandCounter) -> { cpu.resolveZpg(operandCounter); cpu.opRol(); };
+		handler[0x27] = (cpu, operandCounter) -> cpu.opNop();
+		handler[0x28] = (cpu, operandCounter) -> cpu.opPlp();
+		handler[0x29] = (cpu, operandCounter) -> { cpu.resolveImm(operandCounter); cpu.opAnd(); };
+		handler[0x2a] = (cpu, operandCounter) -> cpu.opRolAcc();
+		handler[0x2b] = (cpu, operandCounter) -> cpu.opNop();
+		handler[0x2c] = (cpu, operandCounter) -> { cpu.resolveAbs(operandCounter); cpu.opBit(); };
+		handler[0x2d] = (cpu, operandCounter) -> { cpu.resolveAbs(operandCounter); cpu.opAnd(); };
+		handler[0x2e] = (cpu, operandCounter) -> { cpu.resolveAbs(operandCounter); cpu.opRol(); };
+		handler[0x2f] = (cpu, operandCounter) -> cpu.opNop();
+		handler[0x30] = (cpu, operandCounter) -> { cpu.resolveRel(operandCounter); cpu.opBmi(); };
+		handler[0x31] = (cpu, operandCounter) -> { cpu.resolveIndY(operandCounter, true); cpu.opAnd(); };
+		handler[0x32] = (cpu, operandCounter) -> { cpu.resolveZpgInd(operandCounter); cpu.opAnd(); };
+		handler[0x33] = (cpu, operandCounter) -> cpu.opNop();
+		handler[0x34] = (cpu, operandCounter) -> { cpu.resolveZpgX(operandCounter); cpu.opBit(); };
+		handler[0x35] = (cpu, operandCounter) -> { cpu.resolveZpgX(operandCounter); cpu.opAnd(); };
+		handler[0x36] = (cpu, operandCounter) -> { cpu.resolveZpgX(operandCounter); cpu.opRol(); };
+		handler[0x37] = (cpu, operandCounter) -> cpu.opNop();
+		handler[0x38] = (cpu, operandCounter) -> cpu.opSec();
+		handler[0x39] = (cpu, operandCounter) -> { cpu.resolveAbsY(operandCounter, true); cpu.opAnd(); };
+		handler[0x3a] = (cpu, operandCounter) -> cpu.opDea();
+		handler[0x3b] = (cpu, operandCounter) -> cpu.opNop();
+		handler[0x3c] = (cpu, operandCounter) -> { cpu.resolveAbsX(operandCounter, false); cpu.opBit(); };
+		handler[0x3d] = (cpu, operandCounter) -> { cpu.resolveAbsX(operandCounter, true); cpu.opAnd(); };
+		handler[0x3e] = (cpu, operandCounter) -> { cpu.resolveAbsX(operandCounter, false); cpu.opRol(); };
+		handler[0x3f] = (cpu, operandCounter) -> cpu.opNop();
+		handler[0x40] = (cpu, operandCounter) -> cpu.opRti();
+		handler[0x41] = (cpu, operandCounter) -> { cpu.resolveIndX(operandCounter); cpu.opEor(); };
+		handler[0x42] = (cpu, operandCounter) -> cpu.opNop();
+		handler[0x43] = (cpu, operandCounter) -> cpu.opNop();
+		handler[0x44] = (cpu, operandCounter) -> cpu.opNop();
+		handler[0x45] = (cpu, operandCounter) -> { cpu.resolveZpg(operandCounter); cpu.opEor(); };
+		handler[0x46] = (cpu, operandCounter) -> { cpu.resolveZpg(operandCounter); cpu.opLsr(); };
+		handler[0x47] = (cpu, operandCounter) -> cpu.opNop();
+		handler[0x48] = (cpu, operandCounter) -> cpu.opPha();
+		handler[0x49] = (cpu, operandCounter) -> { cpu.resolveImm(operandCounter); cpu.opEor(); };
+		handler[0x4a] = (cpu, operandCounter) -> cpu.opLsrAcc();
+		handler[0x4b] = (cpu, operandCounter) -> cpu.opNop();
+		handler[0x4c] = (cpu, operandCounter) -> { cpu.resolveAbs(operandCounter); cpu.opJmp(); };
+		handler[0x4d] = (cpu, operandCounter) -> { cpu.resolveAbs(operandCounter); cpu.opEor(); };
+		handler[0x4e] = (cpu, operandCounter) -> { cpu.resolveAbs(operandCounter); cpu.opLsr(); };
+		handler[0x4f] = (cpu, operandCounter) -> cpu.opNop();
+		handler[0x50] = (cpu, operandCounter) -> { cpu.resolveRel(operandCounter); cpu.opBvc(); };
+		handler[0x51] = (cpu, operandCounter) -> { cpu.resolveIndY(operandCounter, true); cpu.opEor(); };
+		handler[0x52] = (cpu, operandCounter) -> { cpu.resolveZpgInd(operandCounter); cpu.opEor(); };
+		handler[0x53] = (cpu, operandCounter) -> cpu.opNop();
+		handler[0x54] = (cpu, operandCounter) -> cpu.opNop();
+		handler[0x55] = (cpu, operandCounter) -> { cpu.resolveZpgX(operandCounter); cpu.opEor(); };
+		handler[0x56] = (cpu, operandCounter) -> { cpu.resolveZpgX(operandCounter); cpu.opLsr(); };
+		handler[0x57] = (cpu, operandCounter) -> cpu.opNop();
+		handler[0x58] = (cpu, operandCounter) -> cpu.opCli();
+		handler[0x59] = (cpu, operandCounter) -> { cpu.resolveAbsY(operandCounter, true); cpu.opEor(); };
+		handler[0x5a] = (cpu, operandCounter) -> cpu.opPhy();
+		handler[0x5b] = (cpu, operandCounter) -> cpu.opNop();
+		handler[0x5c] = (cpu, operandCounter) -> cpu.opNop();
+		handler[0x5d] = (cpu, operandCounter) -> { cpu.resolveAbsX(operandCounter, true); cpu.opEor(); };
+		handler[0x5e] = (cpu, operandCounter) -> { cpu.resolveAbsX(operandCounter, false); cpu.opLsr(); };
+		handler[0x5f] = (cpu, operandCounter) -> cpu.opNop();
+		handler[0x60] = (cpu, operandCounter) -> cpu.opRts();
+		handler[0x61] = (cpu, operandCounter) -> { cpu.resolveIndX(operandCounter); cpu.opAdc(); };
+		handler[0x62] = (cpu, operandCounter) -> cpu.opNop();
+		handler[0x63] = (cpu, operandCounter) -> cpu.opNop();
+		handler[0x64] = (cpu, operandCounter) -> { cpu.resolveZpg(operandCounter); cpu.opStz(); };
+		handler[0x65] = (cpu, operandCounter) -> { cpu.resolveZpg(operandCounter); cpu.opAdc(); };
+		handler[0x66] = (cpu, operandCounter) -> { cpu.resolveZpg(operandCounter); cpu.opRor(); };
+		handler[0x67] = (cpu, operandCounter) -> cpu.opNop();
+		handler[0x68] = (cpu, operandCounter) -> cpu.opPla();
+		handler[0x69] = (cpu, operandCounter) -> { cpu.resolveImm(operandCounter); cpu.opAdc(); };
+		handler[0x6a] = (cpu, operandCounter) -> cpu.opRorAcc();
+		handler[0x6b] = (cpu, operandCounter) -> cpu.opNop();
+		handler[0x6c] = (cpu, operandCounter) -> { cpu.resolveAbsInd(operandCounter); cpu.opJmp(); };
+		handler[0x6d] = (cpu, operandCounter) -> { cpu.resolveAbs(operandCounter); cpu.opAdc(); };
+		handler[0x6e] = (cpu, operandCounter) -> { cpu.resolveAbs(operandCounter); cpu.opRor(); };
+		handler[0x6f] = (cpu, operandCounter) -> cpu.opNop();
+		handler[0x70] = (cpu, operandCounter) -> { cpu.resolveRel(operandCounter); cpu.opBvs(); };
+		handler[0x71] = (cpu, operandCounter) -> { cpu.resolveIndY(operandCounter, true); cpu.opAdc(); };
+		handler[0x72] = (cpu, operandCounter) -> { cpu.resolveZpgInd(operandCounter); cpu.opAdc(); };
+		handler[0x73] = (cpu, operandCounter) -> cpu.opNop();
+		handler[0x74] = (cpu, operandCounter) -> { cpu.resolveZpgX(operandCounter); cpu.opStz(); };
+		handler[0x75] = (cpu, operandCounter) -> { cpu.resolveZpgX(operandCounter); cpu.opAdc(); };
+		handler[0x76] = (cpu, operandCounter) -> { cpu.resolveZpgX(operandCounter); cpu.opRor(); };
+		handler[0x77] = (cpu, operandCounter) -> cpu.opNop();
+		handler[0x78] = (cpu, operandCounter) -> cpu.opSei();
+		handler[0x79] = (cpu, operandCounter) -> { cpu.resolveAbsY(operandCounter, true); cpu.opAdc(); };
+		handler[0x7a] = (cpu, operandCounter) -> cpu.opPly();
+		handler[0x7b] = (cpu, operandCounter) -> cpu.opNop();
+		handler[0x7c] = (cpu, operandCounter) -> { cpu.resolveAbsIndX(operandCounter); cpu.opJmp(); };
+		handler[0x7d] = (cpu, operandCounter) -> { cpu.resolveAbsX(operandCounter, true); cpu.opAdc(); };
+		handler[0x7e] = (cpu, operandCounter) -> { cpu.resolveAbsX(operandCounter, false); cpu.opRor(); };
+		handler[0x7f] = (cpu, operandCounter) -> cpu.opNop();
+		handler[0x80] = (cpu, operandCounter) -> { cpu.resolveRel(operandCounter); cpu.opBra(); };
+		handler[0x81] = (cpu, operandCounter) -> { cpu.resolveIndX(operandCounter); cpu.opSta(); };
+		handler[0x82] = (cpu, operandCounter) -> cpu.opNop();
+		handler[0x83] = (cpu, operandCounter) -> cpu.opNop();
+		handler[0x84] = (cpu, operandCounter) -> { cpu.resolveZpg(operandCounter); cpu.opSty(); };
+		handler[0x85] = (cpu, operandCounter) -> { cpu.resolveZpg(operandCounter); cpu.opSta(); };
+		handler[0x86] = (cpu, operandCounter) -> { cpu.resolveZpg(operandCounter); cpu.opStx(); };
+		handler[0x87] = (cpu, operandCounter) -> cpu.opNop();
+		handler[0x88] = (cpu, operandCounter) -> cpu.opDey();
+		handler[0x89] = (cpu, operandCounter) -> { cpu.resolveImm(operandCounter); cpu.opBitImm(); };
+		handler[0x8a] = (cpu, operandCounter) -> cpu.opTxa();
+		handler[0x8b] = (cpu, operandCounter) -> cpu.opNop();
+		handler[0x8c] = (cpu, operandCounter) -> { cpu.resolveAbs(operandCounter); cpu.opSty(); };
+		handler[0x8d] = (cpu, operandCounter) -> { cpu.resolveAbs(operandCounter); cpu.opSta(); };
+		handler[0x8e] = (cpu, operandCounter) -> { cpu.resolveAbs(operandCounter); cpu.opStx(); };
+		handler[0x8f] = (cpu, operandCounter) -> cpu.opNop();
+		handler[0x90] = (cpu, operandCounter) -> { cpu.resolveRel(operandCounter); cpu.opBcc(); };
+		handler[0x91] = (cpu, operandCounter) -> { cpu.resolveIndY(operandCounter, false); cpu.opSta(); };
+		handler[0x92] = (cpu, operandCounter) -> { cpu.resolveZpgInd(operandCounter); cpu.opSta(); };
+		handler[0x93] = (cpu, operandCounter) -> cpu.opNop();
+		handler[0x94] = (cpu, operandCounter) -> { cpu.resolveZpgX(operandCounter); cpu.opSty(); };
+		handler[0x95] = (cpu, operandCounter) -> { cpu.resolveZpgX(operandCounter); cpu.opSta(); };
+		handler[0x96] = (cpu, operandCounter) -> { cpu.resolveZpgY(operandCounter); cpu.opStx(); };
+		handler[0x97] = (cpu, operandCounter) -> cpu.opNop();
+		handler[0x98] = (cpu, operandCounter) -> cpu.opTya();
+		handler[0x99] = (cpu, operandCounter) -> { cpu.resolveAbsY(operandCounter, false); cpu.opSta(); };
+		handler[0x9a] = (cpu, operandCounter) -> cpu.opTxs();
+		handler[0x9b] = (cpu, operandCounter) -> cpu.opNop();
+		handler[0x9c] = (cpu, operandCounter) -> { cpu.resolveAbs(operandCounter); cpu.opStz(); };
+		handler[0x9d] = (cpu, operandCounter) -> { cpu.resolveAbsX(operandCounter, false); cpu.opSta(); };
+		handler[0x9e] = (cpu, operandCounter) -> { cpu.resolveAbsX(operandCounter, false); cpu.opStz(); };
+		handler[0x9f] = (cpu, operandCounter) -> cpu.opNop();
+		handler[0xa0] = (cpu, operandCounter) -> { cpu.resolveImm(operandCounter); cpu.opLdy(); };
+		handler[0xa1] = (cpu, operandCounter) -> { cpu.resolveIndX(operandCounter); cpu.opLda(); };
+		handler[0xa2] = (cpu, operandCounter) -> { cpu.resolveImm(operandCounter); cpu.opLdx(); };
+		handler[0xa3] = (cpu, operandCounter) -> cpu.opNop();
+		handler[0xa4] = (cpu, operandCounter) -> { cpu.resolveZpg(operandCounter); cpu.opLdy(); };
+		handler[0xa5] = (cpu, operandCounter) -> { cpu.resolveZpg(operandCounter); cpu.opLda(); };
+		handler[0xa6] = (cpu, operandCounter) -> { cpu.resolveZpg(operandCounter); cpu.opLdx(); };
+		handler[0xa7] = (cpu, operandCounter) -> cpu.opNop();
+		handler[0xa8] = (cpu, operandCounter) -> cpu.opTay();
+		handler[0xa9] = (cpu, operandCounter) -> { cpu.resolveImm(operandCounter); cpu.opLda(); };
+		handler[0xaa] = (cpu, operandCounter) -> cpu.opTax();
+		handler[0xab] = (cpu, operandCounter) -> cpu.opNop();
+		handler[0xac] = (cpu, operandCounter) -> { cpu.resolveAbs(operandCounter); cpu.opLdy(); };
+		handler[0xad] = (cpu, operandCounter) -> { cpu.resolveAbs(operandCounter); cpu.opLda(); };
+		handler[0xae] = (cpu, operandCounter) -> { cpu.resolveAbs(operandCounter); cpu.opLdx(); };
+		handler[0xaf] = (cpu, operandCounter) -> cpu.opNop();
+		handler[0xb0] = (cpu, operandCounter) -> { cpu.resolveRel(operandCounter); cpu.opBcs(); };
+		handler[0xb1] = (cpu, operandCounter) -> { cpu.resolveIndY(operandCounter, true); cpu.opLda(); };
+		handler[0xb2] = (cpu, operandCounter) -> { cpu.resolveZpgInd(operandCounter); cpu.opLda(); };
+		handler[0xb3] = (cpu, operandCounter) -> cpu.opNop();
+		handler[0xb4] = (cpu, operandCounter) -> { cpu.resolveZpgX(operandCounter); cpu.opLdy(); };
+		handler[0xb5] = (cpu, operandCounter) -> { cpu.resolveZpgX(operandCounter); cpu.opLda(); };
+		handler[0xb6] = (cpu, operandCounter) -> { cpu.resolveZpgY(operandCounter); cpu.opLdx(); };
+		handler[0xb7] = (cpu, operandCounter) -> cpu.opNop();
+		handler[0xb8] = (cpu, operandCounter) -> cpu.opClv();
+		handler[0xb9] = (cpu, operandCounter) -> { cpu.resolveAbsY(operandCounter, true); cpu.opLda(); };
+		handler[0xba] = (cpu, operandCounter) -> cpu.opTsx();
+		handler[0xbb] = (cpu, operandCounter) -> cpu.opNop();
+		handler[0xbc] = (cpu, operandCounter) -> { cpu.resolveAbsX(operandCounter, true); cpu.opLdy(); };
+		handler[0xbd] = (cpu, operandCounter) -> { cpu.resolveAbsX(operandCounter, true); cpu.opLda(); };
+		handler[0xbe] = (cpu, operandCounter) -> { cpu.resolveAbsY(operandCounter, true); cpu.opLdx(); };
+		handler[0xbf] = (cpu, operandCounter) -> cpu.opNop();
+		handler[0xc0] = (cpu, operandCounter) -> { cpu.resolveImm(operandCounter); cpu.opCpy(); };
+		handler[0xc1] = (cpu, operandCounter) -> { cpu.resolveIndX(operandCounter); cpu.opCmp(); };
+		handler[0xc2] = (cpu, operandCounter) -> cpu.opNop();
+		handler[0xc3] = (cpu, operandCounter) -> cpu.opNop();
+		handler[0xc4] = (cpu, operandCounter) -> { cpu.resolveZpg(operandCounter); cpu.opCpy(); };
+		handler[0xc5] = (cpu, operandCounter) -> { cpu.resolveZpg(operandCounter); cpu.opCmp(); };
+		handler[0xc6] = (cpu, operandCounter) -> { cpu.resolveZpg(operandCounter); cpu.opDec(); };
+		handler[0xc7] = (cpu, operandCounter) -> cpu.opNop();
+		handler[0xc8] = (cpu, operandCounter) -> cpu.opIny();
+		handler[0xc9] = (cpu, operandCounter) -> { cpu.resolveImm(operandCounter); cpu.opCmp(); };
+		handler[0xca] = (cpu, operandCounter) -> cpu.opDex();
+		handler[0xcb] = (cpu, operandCounter) -> cpu.opNop();
+		handler[0xcc] = (cpu, operandCounter) -> { cpu.resolveAbs(operandCounter); cpu.opCpy(); };
+		handler[0xcd] = (cpu, operandCounter) -> { cpu.resolveAbs(operandCounter); cpu.opCmp(); };
+		handler[0xce] = (cpu, operandCounter) -> { cpu.resolveAbs(operandCounter); cpu.opDec(); };
+		handler[0xcf] = (cpu, operandCounter) -> cpu.opNop();
+		handler[0xd0] = (cpu, operandCounter) -> { cpu.resolveRel(operandCounter); cpu.opBne(); };
+		handler[0xd1] = (cpu, operandCounter) -> { cpu.resolveIndY(operandCounter, true); cpu.opCmp(); };
+		handler[0xd2] = (cpu, operandCounter) -> { cpu.resolveZpgInd(operandCounter); cpu.opCmp(); };
+		handler[0xd3] = (cpu, operandCounter) -> cpu.opNop();
+		handler[0xd4] = (cpu, operandCounter) -> cpu.opNop();
+		handler[0xd5] = (cpu, operandCounter) -> { cpu.resolveZpgX(operandCounter); cpu.opCmp(); };
+		handler[0xd6] = (cpu, operandCounter) -> { cpu.resolveZpgX(operandCounter); cpu.opDec(); };
+		handler[0xd7] = (cpu, operandCounter) -> cpu.opNop();
+		handler[0xd8] = (cpu, operandCounter) -> cpu.opCld();
+		handler[0xd9] = (cpu, operandCounter) -> { cpu.resolveAbsY(operandCounter, true); cpu.opCmp(); };
+		handler[0xda] = (cpu, operandCounter) -> cpu.opPhx();
+		handler[0xdb] = (cpu, operandCounter) -> cpu.opNop();
+		handler[0xdc] = (cpu, operandCounter) -> cpu.opNop();
+		handler[0xdd] = (cpu, operandCounter) -> { cpu.resolveAbsX(operandCounter, true); cpu.opCmp(); };
+		handler[0xde] = (cpu, operandCounter) -> { cpu.resolveAbsX(operandCounter, false); cpu.opDec(); };
+		handler[0xdf] = (cpu, operandCounter) -> cpu.opNop();
+		handler[0xe0] = (cpu, operandCounter) -> { cpu.resolveImm(operandCounter); cpu.opCpx(); };
+		handler[0xe1] = (cpu, operandCounter) -> { cpu.resolveIndX(operandCounter); cpu.opSbc(); };
+		handler[0xe2] = (cpu, operandCounter) -> cpu.opNop();
+		handler[0xe3] = (cpu, operandCounter) -> cpu.opNop();
+		handler[0xe4] = (cpu, operandCounter) -> { cpu.resolveZpg(operandCounter); cpu.opCpx(); };
+		handler[0xe5] = (cpu, operandCounter) -> { cpu.resolveZpg(operandCounter); cpu.opSbc(); };
+		handler[0xe6] = (cpu, operandCounter) -> { cpu.resolveZpg(operandCounter); cpu.opInc(); };
+		handler[0xe7] = (cpu, operandCounter) -> cpu.opNop();
+		handler[0xe8] = (cpu, operandCounter) -> cpu.opInx();
+		handler[0xe9] = (cpu, operandCounter) -> { cpu.resolveImm(operandCounter); cpu.opSbc(); };
+		handler[0xea] = (cpu, operandCounter) -> cpu.opNop();
+		handler[0xeb] = (cpu, operandCounter) -> cpu.opNop();
+		handler[0xec] = (cpu, operandCounter) -> { cpu.resolveAbs(operandCounter); cpu.opCpx(); };
+		handler[0xed] = (cpu, operandCounter) -> { cpu.resolveAbs(operandCounter); cpu.opSbc(); };
+		handler[0xee] = (cpu, operandCounter) -> { cpu.resolveAbs(operandCounter); cpu.opInc(); };
+		handler[0xef] = (cpu, operandCounter) -> cpu.opNop();
+		handler[0xf0] = (cpu, operandCounter) -> { cpu.resolveRel(operandCounter); cpu.opBeq(); };
+		handler[0xf1] = (cpu, operandCounter) -> { cpu.resolveIndY(operandCounter, true); cpu.opSbc(); };
+		handler[0xf2] = (cpu, operandCounter) -> { cpu.resolveZpgInd(operandCounter); cpu.opSbc(); };
+		handler[0xf3] = (cpu, operandCounter) -> cpu.opNop();
+		handler[0xf4] = (cpu, operandCounter) -> cpu.opNop();
+		handler[0xf5] = (cpu, operandCounter) -> { cpu.resolveZpgX(operandCounter); cpu.opSbc(); };
+		handler[0xf6] = (cpu, operandCounter) -> { cpu.resolveZpgX(operandCounter); cpu.opInc(); };
+		handler[0xf7] = (cpu, operandCounter) -> cpu.opNop();
+		handler[0xf8] = (cpu, operandCounter) -> cpu.opSed();
+		handler[0xf9] = (cpu, operandCounter) -> { cpu.resolveAbsY(operandCounter, true); cpu.opSbc(); };
+		handler[0xfa] = (cpu, operandCounter) -> cpu.opPlx();
+		handler[0xfb] = (cpu, operandCounter) -> cpu.opNop();
+		handler[0xfc] = (cpu, operandCounter) -> cpu.opNop();
+		handler[0xfd] = (cpu, operandCounter) -> { cpu.resolveAbsX(operandCounter, true); cpu.opSbc(); };
+		handler[0xfe] = (cpu, operandCounter) -> { cpu.resolveAbsX(operandCounter, false); cpu.opInc(); };
+		handler[0xff] = (cpu, operandCounter) -> cpu.opNop();
+		for( int i = 0; i<handler.length; i++ )
+			if( handler[i]==null || OPCODE[i].getMachineCode()!=i )
+				throw new IllegalStateException("Opcode handler table does not match opcode "+getHexString(i, 2));
+		return handler;
+	}
+
+	/**
+	 * @return operand resolver of an opcode, or null when the operation reads
+	 *         no operand; Cpu65c02HandlerTableTest holds the handler table to it
+	 */
+	static String getResolveMethod( Opcode op ) {
+		if( op.getMnemonic()==OpcodeMnemonic.NOP )
+			return null;
+		switch( op.getAddressMode() ) {
+			case IMM:       return "resolveImm";
+			case ABS:       return "resolveAbs";
+			case ZPG:       return "resolveZpg";
+			case IND_X:     return "resolveIndX";
+			case IND_Y:     return "resolveIndY";
+			case ZPG_X:     return "resolveZpgX";
+			case ZPG_Y:     return "resolveZpgY";
+			case ABS_X:     return "resolveAbsX";
+			case ABS_Y:     return "resolveAbsY";
+			case REL:       return "resolveRel";
+			case ABS_IND:   return "resolveAbsInd";
+			case ABS_IND_X: return "resolveAbsIndX";
+			case ZPG_IND:   return "resolveZpgInd";
+			default:        return null;
+		}
+	}
+
+	/**
+	 * @return whether the resolver of an address mode takes the page cross penalty flag
+	 */
+	static boolean hasPageCrossArgument( AddressMode mode ) {
+		return mode==AddressMode.IND_Y || mode==AddressMode.ABS_X || mode==AddressMode.ABS_Y;
+	}
+
+	/**
+	 * @return operation method of an opcode; Cpu65c02HandlerTableTest holds the handler table to it
+	 */
+	static String getOperationMethod( Opcode op ) {
+		String name = op.getMnemonic().name();
+		String method = "op"+name.charAt(0)+name.substring(1).toLowerCase();
+		switch( op.getMnemonic() ) {
+			case ASL:
+			case LSR:
+			case ROL:
+			case ROR:
+				return op.getAddressMode()==AddressMode.ACC ? method+"Acc" : method;
+			case BIT:
+				return op.getAddressMode()==AddressMode.IMM ? "opBitImm" : method;
+			default:
+				return method;
+		}
+	}
+
+	private static InstructionHandler getInterruptHandler( Opcode interrupt ) {
+		switch( interrupt.getMnemonic() ) {
+			case IRQ:
+				return INTERRUPT_IRQ_HANDLER;
+			case NMI:
+				return INTERRUPT_NMI_HANDLER;
+			case RES:
+				return INTERRUPT_RES_HANDLER;
+			case HLT:
+				return INTERRUPT_HLT_HANDLER;
+			default:
+				throw new RuntimeException("[Opcode "+interrupt.getMnemonic().toString()+" not yet supported]");
+		}
+	}
+
 	private int popStack()
 	{
 		/// TODO: Double check that underflow is ignored in real CPU ///
@@ -412,7 +785,7 @@ public class Cpu65c02 extends HardwareManager {
 	private void branchTest( boolean condition ) {
 
 		if( condition ) {
-			int value = memory.getByte(operandPtr);
+			int value = operandByte(operandPtr);
 			int oldPage = newPc>>8;
 			newPc += (byte) value;
 			newPc &= 0xffff;
@@ -423,6 +796,18 @@ public class Cpu65c02 extends HardwareManager {
 
 	}
 
+	private int operandByte( int operandCounter ) {
+		if( decodedInstruction==Cpu65c02DecodeCache.MISS )
+			return memory.getByte(operandCounter);
+		return (decodedInstruction>>8)&0xff;
+	}
+
+	private int operandWord( int operandCounter ) {
+		if( decodedInstruction==Cpu65c02DecodeCache.MISS )
+			return memory.getWord16LittleEndian(operandCounter);
+		return decodedInstruction>>8;
+	}
+
 	private void ptrAdd( int i, boolean addPageCrossCycle ) {
 		int oldPage = operandPtr>>8;
 		operandPtr += i;
@@ -431,31 +816,12 @@ public class Cpu65c02 extends HardwareManager {
 			cycleCount++;
 	}
 
-	private boolean addsPageCrossCycleForAbsIndexedRead(Opcode opcode, AddressMode mode) {
-		if( opcode==null || opcode.getMnemonic()==null )
-			return false;
-		switch( opcode.getMnemonic() ) {
-			case ADC:
-			case AND:
-			case CMP:
-			case EOR:
-			case LDA:
-			case ORA:
-			case SBC:
-				return true;
-			case LDY:
-				return mode==AddressMode.ABS_X;
-			case LDX:
-				return mode==AddressMode.ABS_Y;
-			default:
-				return false;
-		}
-	}
-
 	public Cpu65c02( MemoryBusIIe memory, long unitsPerCycle ) {
 		super(unitsPerCycle);
 		this.memory = memory;
-		this.executionPlanner = new CpuExecutionPlanner(memory, reg);
+		this.executionPlanner = new CpuExecutionPlanner(memory, reg, decodedOperand);
+		this.decodeCache = new Cpu65c02DecodeCache(memory);
+		this.idleLoopDetector = new Cpu65c02IdleLoopDetector(memory, decodeCache);
 	}
 
 	@Override
@@ -472,6 +838,8 @@ public class Cpu65c02 extends HardwareManager {
 		reg.setS(0x00);
 		reg.setP(0xff);
 		newPc = 0xffff;
+		decodedOperand.clear();
+		idleLoopDetector.reset();
 
 		// This variable is used to suspend CPU access to memory by hardware
 		idleCycle = 0;
@@ -480,6 +848,9 @@ public class Cpu65c02 extends HardwareManager {
 		opcode = null;
 		interruptPending = null;
 		newOpcode = INTERRUPT_RES;
+		newOpcodeIndex = INTERRUPT_RES.getTableIndex();
+		newInstructionHandler = INTERRUPT_RES_HANDLER;
+		newDecoded = Cpu65c02DecodeCache.MISS;
 		cycleCount = INTERRUPT_RES.getCycleTime();
 		resetPOverride = null;
 		resetAOverride = null;
@@ -487,9 +858,11 @@ public class Cpu65c02 extends HardwareManager {
 		resetYOverride = null;
 		resetSOverride = null;
 		pendingInstructionCyclesConsumed = 0;
-		executionQueue.clear();
-		enqueueNextInstructionEvents();
-		verifyExecutionQueueInvariant("cold_reset");
+		executionQueueHead = 0;
+		executionQueueSize = 0;
+		startNextInstruction();
+		if( microPc<0 && executionQueueChecksEnabled )
+			verifyExecutionQueueInvariant("cold_reset");
 
 		memory.coldReset();
 		
@@ -499,44 +872,203 @@ public class Cpu65c02 extends HardwareManager {
 	public void cycle() throws HardwareException {
 		if( idleCycle>5 )
 			throw new HardwareException("Hardware has requested an extended delay, comprimising CPU data integrity");
-		if( executionQueue.isEmpty() )
+		if( microPc>=0 ) {
+			microCycle();
+			return;
+		}
+		if( executionQueueSize==0 )
 			enqueueNextInstructionEvents();
-		CpuExecutionEvent event = executionQueue.removeFirst();
-		event.action.run();
-		verifyExecutionQueueInvariant("post_cycle");
+		int event = executionQueue[executionQueueHead];
+		executionQueueHead = (executionQueueHead+1)&EXECUTION_QUEUE_MASK;
+		executionQueueSize--;
+		switch( event ) {
+			case EVENT_PENDING_CYCLE:
+				incSleepCycles(1);
+				break;
+			case EVENT_INSTRUCTION_END:
+				executeInstructionAtomicCore();
+				break;
+			default:
+				throw new IllegalStateException("Unknown execution queue event "+event);
+		}
+		if( executionQueueChecksEnabled )
+			verifyExecutionQueueInvariant("post_cycle");
+	}
+
+	/**
+	 * Executes queued CPU events back to back until the next event would start at
+	 * or after the deadline. Since no other manager is due before the deadline,
+	 * this is cycle-for-cycle identical to scheduling each event separately.
+	 */
+	@Override
+	public void runUntil( long cycleUnitsDeadline ) throws HardwareException {
+		if( jit==null ) {
+			do {
+				cycle();
+			} while( getNextCycleUnits()<cycleUnitsDeadline );
+			return;
+		}
+		do {
+			if( !runCompiledBlock(cycleUnitsDeadline) )
+				cycle();
+		} while( getNextCycleUnits()<cycleUnitsDeadline );
+	}
+
+	/**
+	 * Same as runUntil, but whole iterations of a detected idle loop are skipped
+	 * up to the skip deadline instead of being interpreted.
+	 */
+	@Override
+	public void fastForwardUntil( long cycleUnitsDeadline, long skipDeadline, boolean resumed ) throws HardwareException {
+		// Another manager may have changed what the loop reads, so it has to be observed again
+		if( !resumed )
+			idleLoopDetector.reset();
+		do {
+			if( !skipIdleLoop(skipDeadline) && (jit==null || !runCompiledBlock(cycleUnitsDeadline)) )
+				cycle();
+		} while( getNextCycleUnits()<cycleUnitsDeadline );
+	}
+
+	private boolean skipIdleLoop( long cycleUnitsDeadline ) {
+		// Loops are observed on a fresh instruction boundary right after the jump back to their head,
+		// which may be a cycle-exact I/O poll
+		if( !isAtInstructionStart() || idleCycle!=0 || interruptPending!=null ||
+				newOpcodeIndex>=Cpu65c02OpcodeTable.INTERRUPT_BASE || opcode==null )
+			return false;
+		if( opcode.getAddressMode()!=AddressMode.REL &&
+				(opcode.getMnemonic()!=OpcodeMnemonic.JMP || opcode.getAddressMode()!=AddressMode.ABS) )
+			return false;
+		int head = newPc&0xffff;
+		int branchPc = reg.getPC()&0xffff;
+		if( head>branchPc || branchPc-head>Cpu65c02IdleLoopDetector.MAX_LOOP_BYTES )
+			return false;
+		long now = getNextCycleUnits();
+		long period = idleLoopDetector.observe(head, branchPc, reg, now);
+		if( period==0 )
+			return false;
+		long iterations = (cycleUnitsDeadline-1-now)/period;
+		if( iterations<=0 )
+			return false;
+		long cycles = iterations*period/unitsPerCycle;
+		incSleepCycles(cycles);
+		idleLoopCyclesSkipped += cycles;
+		idleLoopDetector.setIterationStart(getNextCycleUnits());
+		return true;
+	}
+
+	/**
+	 * Runs a compiled block in place of the queued instruction when the block
+	 * provably completes before the deadline, so no other manager can observe
+	 * the instructions out of order.
+	 * @return false when the interpreter must handle the next event
+	 */
+	private boolean runCompiledBlock( long cycleUnitsDeadline ) throws HardwareException {
+		// Blocks are only entered on a fresh instruction boundary following a change of flow
+		if( executionQueueSize!=pendingInstructionCyclesConsumed+1 || idleCycle!=0 || interruptPending!=null ||
+				newOpcodeIndex>=Cpu65c02OpcodeTable.INTERRUPT_BASE || !Cpu65c02Jit.isBlockBoundary(opcode) )
+			return false;
+		Cpu65c02Jit.Block block = jit.enter(newPc&0xffff, newOpcodeIndex);
+		if( block==null || getNextCycleUnits()+block.worstCaseCycles*unitsPerCycle>cycleUnitsDeadline )
+			return false;
+
+		jitCodePage = block.codePage;
+		jitCycles = 0;
+		jitInstructionCount = 0;
+		jitSaveState();
+		int count = block.code.run(this);
+		if( count==0 )
+			return false;
+
+		lastInstructionCycleCount = cycleCount;
+		lastCycleCount = cycleCount;
+		// The first instruction was counted when it was queued
+		atomicInstructionCount += count-1;
+		incSleepCycles(jitCycles);
+		executionQueueHead = 0;
+		executionQueueSize = 0;
+		pendingInstructionCyclesConsumed = 0;
+		scheduleNextInstruction();
+		return true;
+	}
+
+	// Compiled block support: each translated instruction runs between jitBegin and jitEnd
+	void jitBegin( int pc, int decoded ) {
+		int opcodeByte = decoded&0xff;
+		opcode = OPCODE[opcodeByte];
+		reg.setPC(pc);
+		cycleCount = Cpu65c02OpcodeTable.CYCLE_TIME[opcodeByte];
+		newPc = pc+Cpu65c02OpcodeTable.INSTR_SIZE[opcodeByte];
+		decodedInstruction = decoded;
+	}
+
+	boolean jitOperandInIoSpace() {
+		return (operandPtr&0xf000)==0xc000;
+	}
+
+	boolean jitEnd( boolean checkCodePage ) {
+		int cycles = cycleCount;
+		// Matches the queued accounting of the instruction that was already planned on entry
+		if( jitInstructionCount==0 && cycles<=pendingInstructionCyclesConsumed )
+			cycles = pendingInstructionCyclesConsumed+1;
+		jitCycles += cycles;
+		jitInstructionCount++;
+		if( profile!=null )
+			profile.record(decodedInstruction&0xff, reg.getPC(), cycles);
+		memory.opcodeFetched(reg.getPC());
+		jitSaveState();
+		if( checkCodePage && jitCodePage>=0 && memory.getMemory().isPageWritten(jitCodePage) )
+			return false;
+		return interruptPending==null;
+	}
+
+	void jitRollback() {
+		reg.setPC(jitSavedPc);
+		opcode = jitSavedOpcode;
+		cycleCount = jitSavedCycleCount;
+		newPc = jitSavedNewPc;
+	}
+
+	private void jitSaveState() {
+		jitSavedPc = reg.getPC();
+		jitSavedOpcode = opcode;
+		jitSavedCycleCount = cycleCount;
+		jitSavedNewPc = newPc;
 	}
 
 	private void enqueueNextInstructionEvents() {
-		Opcode scheduledOpcode = newOpcode;
-		int scheduledPc = newPc & 0xffff;
-		CpuExecutionPlanner.Plan plan = executionPlanner.buildPlan(scheduledOpcode, scheduledPc);
-		pendingInstructionCyclesConsumed = plan.pendingCycles;
-		for( int i = 0; i<plan.pendingCycles; i++ )
-			enqueueExecutionEvent(false, this::runPendingInstructionCycle);
-		enqueueExecutionEvent(true, this::executeInstructionAtomicCore);
-		verifyExecutionQueueInvariant("enqueue_instruction");
+		enqueueInstructionEvents(executionPlanner.planPendingCycles(newOpcodeIndex, newPc & 0xffff));
+	}
+
+	private void enqueueInstructionEvents(int pendingCycles) {
+		pendingInstructionCyclesConsumed = pendingCycles;
+		for( int i = 0; i<pendingCycles; i++ )
+			enqueueExecutionEvent(EVENT_PENDING_CYCLE);
+		enqueueExecutionEvent(EVENT_INSTRUCTION_END);
+		if( executionQueueChecksEnabled )
+			verifyExecutionQueueInvariant("enqueue_instruction");
 	}
 
-	private void enqueueExecutionEvent(boolean instructionEnd, CpuExecutionAction action) {
-		executionQueue.addLast(new CpuExecutionEvent(instructionEnd, action));
+	private void enqueueExecutionEvent(int event) {
+		if( executionQueueSize==EXECUTION_QUEUE_CAPACITY )
+			throw new IllegalStateException("Execution queue overflow");
+		executionQueue[(executionQueueHead+executionQueueSize)&EXECUTION_QUEUE_MASK] = event;
+		executionQueueSize++;
 	}
 
-	private void runPendingInstructionCycle() {
-		incSleepCycles(1);
+	private int peekExecutionEvent() {
+		return executionQueueSize==0 ? -1 : executionQueue[executionQueueHead];
 	}
 
 	private void verifyExecutionQueueInvariant(String stage) {
-		if( executionQueue.isEmpty() )
+		if( executionQueueSize==0 )
 			throw new IllegalStateException("Execution queue invariant failed at "+stage+": queue must not be empty");
 		int instructionEndCount = 0;
-		int index = 0;
-		for( CpuExecutionEvent event : executionQueue ) {
-			if( event.instructionEnd ) {
+		for( int index = 0; index<executionQueueSize; index++ ) {
+			if( executionQueue[(executionQueueHead+index)&EXECUTION_QUEUE_MASK]==EVENT_INSTRUCTION_END ) {
 				instructionEndCount++;
-				if( index!=executionQueue.size()-1 )
+				if( index!=executionQueueSize-1 )
 					throw new IllegalStateException("Execution queue invariant failed at "+stage+": instructionEnd must be tail event");
 			}
-			index++;
 		}
 		if( instructionEndCount!=1 )
 			throw new IllegalStateException("Execution queue invariant failed at "+stage+": expected exactly one instructionEnd event");
@@ -549,755 +1081,1131 @@ public class Cpu65c02 extends HardwareManager {
 			throw new HardwareException("Hardware has requested an extended delay, comprimising CPU data integrity");
 
 		opcode = newOpcode;
+		int opcodeIndex = newOpcodeIndex;
+		InstructionHandler handler = newInstructionHandler;
 		reg.setPC(newPc);
-		cycleCount = opcode.getCycleTime();
+		cycleCount = Cpu65c02OpcodeTable.CYCLE_TIME[opcodeIndex];
 
 		// Check whether current instruction is complete before applying changes
 		// TODO: move this and other proven variables inside the switch
 		int operandCounter = reg.getPC()+1;
 		
 		// Expected next instruction position
-		newPc = reg.getPC() + opcode.getInstrSize();
-	
-		/// TEST:
-		///  Dereferenced addresses on page zero forces both low and high bytes to be pulled from page zero, even if the page boundary is crossed
-		///  According to the NCR 65C02 Specs, all zero-page indirect opcodes use this convention except "zero-page indirect addressing" itself
-		///  It would seem to follow that zero-page indirect addressing would also follow this convention
-	
-		/// TODO: These take one additional clock if the effective address page and given address page are different ///
+		newPc = reg.getPC() + Cpu65c02OpcodeTable.INSTR_SIZE[opcodeIndex];
+
+		// Operand bytes come from the decode cache when the instruction bytes are cacheable
+		decodedInstruction = opcodeIndex>=Cpu65c02OpcodeTable.INTERRUPT_BASE ?
+				Cpu65c02DecodeCache.MISS : decodeCache.lookup(reg.getPC());
+		if( profile!=null )
+			profile.recordFetch(opcodeIndex, reg.getPC());
+		if( opcodeIndex<Cpu65c02OpcodeTable.INTERRUPT_BASE )
+			memory.opcodeFetched(reg.getPC());
 	
-		// Find these values by their addressing mode
-		switch( opcode.getAddressMode() ) {
+		handler.execute(this, operandCounter);
 	
-			case IMM:
-				// Immediate
-				// Literal value
-				// +1 byte
-				operandPtr = operandCounter;
-				break;
+		lastInstructionCycleCount = cycleCount;
+		lastCycleCount = idleCycle+cycleCount;
+		int cyclesRemaining = cycleCount-pendingInstructionCyclesConsumed;
+		if( cyclesRemaining<1 )
+			cyclesRemaining = 1;
+		if( profile!=null )
+			profile.recordCycles(opcodeIndex, idleCycle+pendingInstructionCyclesConsumed+cyclesRemaining);
+		incSleepCycles(idleCycle+cyclesRemaining);
+		idleCycle = 0;
+		pendingInstructionCyclesConsumed = 0;
+		scheduleNextInstruction();
+		
+	}
+
+	private void scheduleNextInstruction() {
 	
-			case ABS:
-				// Absolute
-				// ADL:ADH
-				// +2 byte
-				operandPtr = memory.getWord16LittleEndian(operandCounter);
+		// Supress maskable interrupts if P.I is set
+		if( interruptPending==INTERRUPT_IRQ && reg.getP(StatusRegister.I) )
+			interruptPending = null;
+
+		// Get next instruction / interrupt call
+		if( interruptPending==null )
+		{
+			// No interrupt pending - get next memory instruction
+			int decoded = decodeCache.lookup(newPc&0xffff);
+			int opcodeByte = decoded==Cpu65c02DecodeCache.MISS ? memory.getByte(newPc&0xffff) : decoded&0xff;
+			newOpcode = OPCODE[opcodeByte];
+			newOpcodeIndex = opcodeByte;
+			newInstructionHandler = INSTRUCTION_HANDLER[opcodeByte];
+			newDecoded = decoded;
+		} else {
+			newOpcode = interruptPending;
+			newOpcodeIndex = interruptPending.getTableIndex();
+			newInstructionHandler = getInterruptHandler(interruptPending);
+			// Pending interrupt can only be changed by host
+			// e.g. creating reset interrupt or restoring null state
+			if( interruptPending!=INTERRUPT_HLT )
+				interruptPending = null;
+		}
+		startNextInstruction();
+		
+	}
+
+	// Cycle-exact instructions step through their micro-op script, the others are queued for the atomic core
+	private void startNextInstruction() {
+		if( cycleExact )
+			forcedCycleExactInstructionCount++;
+		else if( isPrecisionRequested() )
+			deviceCycleExactInstructionCount++;
+		else {
+			// Planned first so indexed operands decoded by the planner are only read once
+			int pendingCycles = executionPlanner.planPendingCycles(newOpcodeIndex, newPc & 0xffff);
+			if( !adaptiveAccuracy ||
+					!Cpu65c02AccessPredictor.accessesIoSpace(memory, reg, newOpcodeIndex, newDecoded, decodedOperand) ) {
+				microPc = -1;
+				atomicInstructionCount++;
+				enqueueInstructionEvents(pendingCycles);
+				return;
+			}
+			ioCycleExactInstructionCount++;
+		}
+		decodedOperand.clear();
+		microPc = Cpu65c02MicroProgram.START[newOpcodeIndex*Cpu65c02MicroProgram.VARIANTS];
+		microVariant = 0;
+	}
+
+	private boolean isAtInstructionStart() {
+		if( microPc>=0 )
+			return microPc==Cpu65c02MicroProgram.START[newOpcodeIndex*Cpu65c02MicroProgram.VARIANTS];
+		return executionQueueSize==pendingInstructionCyclesConsumed+1;
+	}
+
+	private boolean isPrecisionRequested() {
+		if( !adaptiveAccuracy )
+			return false;
+		for( CyclePrecisionSource source : precisionSources )
+			if( source.isCyclePrecisionRequired() )
+				return true;
+		return false;
+	}
+
+	/**
+	 * Runs one cycle of the instruction script: at most one bus access, in the
+	 * cycle the 65C02 performs it. Dummy reads and writes make no bus access,
+	 * matching the atomic core, and the opcode is read when the previous
+	 * instruction retires so the pending opcode is known on every boundary.
+	 */
+	private void microCycle() {
+		int index = microOpcodeIndex;
+		switch( MICRO_OP[Cpu65c02MicroProgram.PROGRAM[microPc++]] ) {
+			case M_FETCH_OPCODE:
+				microBegin();
+				break;
+			case M_FETCH_OPERAND_LO:
+				microOperand = memory.getByte(reg.getPC()+1);
+				switch( opcode.getAddressMode() ) {
+					case ZPG:
+						microAddress = microOperand;
+						break;
+					case ZPG_X:
+						microAddress = (microOperand+reg.getX())&0xff;
+						break;
+					case ZPG_Y:
+						microAddress = (microOperand+reg.getY())&0xff;
+						break;
+					case IND_X:
+						microPointerAddress = (microOperand+reg.getX())&0xff;
+						break;
+					case IND_Y:
+					case ZPG_IND:
+						microPointerAddress = microOperand;
+						break;
+					case REL:
+						if( microVariant>0 ) {
+							int oldPage = newPc>>8;
+							newPc = (newPc+(byte) microOperand)&0xffff;
+							if( oldPage!=newPc>>8 )
+								microExtendCycle();
+						}
+						break;
+					default:
+						break;
+				}
 				break;
-	
-			case ZPG:
-				// Zero-page
-				// $00:ADL
-				// +1 byte
-				operandPtr = memory.getByte(operandCounter);
+			case M_FETCH_OPERAND_HI:
+				microOperand |= memory.getByte(reg.getPC()+2)<<8;
+				switch( opcode.getAddressMode() ) {
+					case ABS:
+						microAddress = microOperand;
+						break;
+					case ABS_X:
+						microIndex(microOperand, reg.getX());
+						break;
+					case ABS_Y:
+						microIndex(microOperand, reg.getY());
+						break;
+					case ABS_IND:
+						microPointerAddress = microOperand;
+						break;
+					case ABS_IND_X:
+						microPointerAddress = (microOperand+reg.getX())&0xffff;
+						break;
+					default:
+						break;
+				}
 				break;
-	
-			case ACC:
-				// Accumulator
-				// A
-				// +0 bytes
+			case M_READ_ZP_PTR_LO:
+				microPointer = memory.getByte(microPointerAddress);
+				break;
+			case M_READ_ZP_PTR_HI:
+				microPointer |= memory.getByte((microPointerAddress+1)&0xff)<<8;
+				if( opcode.getAddressMode()==AddressMode.IND_Y )
+					microIndex(microPointer, reg.getY());
+				else
+					microAddress = microPointer;
+				break;
+			case M_READ_PTR_LO:
+				microPointer = memory.getByte(microPointerAddress);
+				break;
+			case M_READ_PTR_HI:
+				microPointer |= memory.getByte(microPointerAddress+1)<<8;
+				microAddress = microPointer;
+				break;
+			case M_READ_IMM_DATA:
+				microOperate();
+				break;
+			case M_READ_EA:
+				if( Cpu65c02MicroProgram.ACCESS[index]==AccessType.AT_RMW.ordinal() )
+					microData = memory.getByte(microAddress);
+				else
+					microOperate();
+				break;
+			case M_WRITE_EA:
+				if( Cpu65c02MicroProgram.ACCESS[index]==AccessType.AT_RMW.ordinal() )
+					memory.setByte(microAddress, modifyValue(microData));
+				else
+					microOperate();
+				break;
+			case M_PUSH_PCH:
+				pushStack(microReturnPc()>>8);
+				break;
+			case M_PUSH_PCL:
+				pushStack(microReturnPc());
+				break;
+			case M_PUSH_DATA:
+				if( opcode.getMnemonic()==OpcodeMnemonic.BRK || index>=Cpu65c02OpcodeTable.INTERRUPT_BASE ) {
+					pushStack(opcode.getMnemonic()==OpcodeMnemonic.BRK ?
+							reg.getP() | StatusRegister.B.value : reg.getP()&~StatusRegister.B.value);
+					reg.setP(StatusRegister.I);    // Set interrupt disable
+					reg.clearP(StatusRegister.D);  // Clear decimal flag
+				}
+				else
+					microOperate();
 				break;
-	
-			case IMP:
-				// Implied
-				// No address
-				// PC increment varies for NOP's
+			case M_PULL_DATA:
+				if( opcode.getMnemonic()==OpcodeMnemonic.RTI )
+					reg.setP(popStack() | StatusRegister.B.value);
+				else
+					microOperate();
 				break;
-			
-			case IND_X:
-				// (Indirect, X)
-				// ($00:[ADL+X]) ñ carries discarded for low and high addr bytes
-				// +1 byte
-				operandPtr = (memory.getByte(operandCounter) + reg.getX())&0xff;
-				operandPtr = memory.getWord16LittleEndian(operandPtr, 0xff);
+			case M_PULL_PCL:
+				newPc = popStack();
 				break;
-	
-			case IND_Y:
-				// (Indirect), Y
-				// (ADH:ADL)+Y
-				// +1 byte
-				operandPtr = memory.getByte(operandCounter);
-				operandPtr = memory.getWord16LittleEndian(operandPtr, 0xff);
-				int basePtr = operandPtr;
-				operandPtr += reg.getY();
-				operandPtr &= 0xffff;
-				// 65C02 adds one cycle for (indirect),Y reads on page cross.
-				if( (basePtr>>8)!=(operandPtr>>8) && opcode.getMnemonic()!=OpcodeMnemonic.STA )
-					cycleCount++;
+			case M_PULL_PCH:
+				newPc |= popStack() << 8;
+				if( opcode.getMnemonic()==OpcodeMnemonic.RTS )
+					newPc = (newPc+1)&0xffff;
 				break;
-	
-			case ZPG_X:
-				// Zero-page, X
-				// $00:[ADL+X]
-				// +1 byte
-				operandPtr = ( memory.getByte(operandCounter) + reg.getX() )&0xff;
+			case M_READ_VECTOR_LO:
+				if( opcode==INTERRUPT_RES )
+					resetRegisters();
+				microPointer = memory.getByte(Cpu65c02MicroProgram.VECTOR[index]);
 				break;
-	
-			case ZPG_Y:
-				// Zero-page, Y
-				// $00:[ADL+Y]
-				// +1 byte
-				operandPtr = ( memory.getByte(operandCounter) + reg.getY() )&0xff;
+			case M_READ_VECTOR_HI:
+				newPc = microPointer | memory.getByte(Cpu65c02MicroProgram.VECTOR[index]+1) << 8;
+				if( opcode==INTERRUPT_RES )
+					isHalted = false;
 				break;
-			
-			case ABS_X:
-				// Absolute, X
-				// [ADL:ADH] + X
-				// +2 byte
-				operandPtr = memory.getWord16LittleEndian(operandCounter);
-				ptrAdd(reg.getX(), addsPageCrossCycleForAbsIndexedRead(opcode, AddressMode.ABS_X));
+			default:
+				// Internal and dummy cycles
 				break;
+		}
+		if( Cpu65c02MicroProgram.PROGRAM[microPc]==Cpu65c02MicroProgram.END )
+			microRetire();
+		else
+			incSleepCycles(1);
+	}
 
-			case ABS_Y:
-				// Absolute, Y
-				// [ADL:ADH] + Y
-				// +2 byte
-				operandPtr = memory.getWord16LittleEndian(operandCounter);
-				ptrAdd(reg.getY(), addsPageCrossCycleForAbsIndexedRead(opcode, AddressMode.ABS_Y));
-				break;
-			
-			case REL:
-				// Relative
-				// PCL:PCH + ADL
-				// +1 byte
-				operandPtr = operandCounter;
-				break;
-	
-			case ABS_IND:
-				// (Absolute)
-				// PCL:PCH = (ADL:ADH)
-				// +2 byte
-				operandPtr = memory.getWord16LittleEndian(operandCounter);
-				operandPtr = memory.getWord16LittleEndian(operandPtr);
+	private void microBegin() {
+		microOpcodeIndex = newOpcodeIndex;
+		opcode = newOpcode;
+		reg.setPC(newPc);
+		cycleCount = Cpu65c02OpcodeTable.CYCLE_TIME[microOpcodeIndex];
+		newPc = reg.getPC() + Cpu65c02OpcodeTable.INSTR_SIZE[microOpcodeIndex];
+		decodedInstruction = Cpu65c02DecodeCache.MISS;
+		if( profile!=null )
+			profile.recordFetch(microOpcodeIndex, reg.getPC());
+		if( microOpcodeIndex<Cpu65c02OpcodeTable.INTERRUPT_BASE )
+			memory.opcodeFetched(reg.getPC());
+		// Flags are final by now, so a taken branch runs its longer script from the start
+		if( opcode.getAddressMode()==AddressMode.REL && isBranchTaken() )
+			microExtendCycle();
+	}
+
+	private void microRetire() {
+		switch( Cpu65c02MicroProgram.COMPLETION[microOpcodeIndex] ) {
+			case Cpu65c02MicroProgram.COMPLETE_HANDLER:
+				microOperate();
 				break;
-	
-			case ABS_IND_X:
-				// Absolute (indirect, X)
-				// PCL:PCH = (ADL:ADH + X)
-				// +2 byte
-				operandPtr = memory.getWord16LittleEndian(operandCounter);
-				ptrAdd(reg.getX(), false);
-				operandPtr = memory.getWord16LittleEndian(operandPtr);
+			case Cpu65c02MicroProgram.COMPLETE_JUMP:
+				newPc = microAddress;
 				break;
-	
-			case ZPG_IND:
-				// (Zero-page)
-				// ($00:ADL)
-				// +1 byte
-				operandPtr = memory.getByte(operandCounter);
-				operandPtr = memory.getWord16LittleEndian(operandPtr, 0xff);
+			default:
 				break;
-	
-		};
+		}
+		lastInstructionCycleCount = cycleCount;
+		lastCycleCount = idleCycle+cycleCount;
+		if( profile!=null )
+			profile.recordCycles(microOpcodeIndex, idleCycle+cycleCount);
+		incSleepCycles(1+idleCycle);
+		idleCycle = 0;
+		scheduleNextInstruction();
+	}
 
-		int value;
+	// Continues in the script variant one cycle longer, at the same position
+	private void microExtendCycle() {
+		int base = microOpcodeIndex*Cpu65c02MicroProgram.VARIANTS;
+		microPc += Cpu65c02MicroProgram.START[base+microVariant+1]-Cpu65c02MicroProgram.START[base+microVariant];
+		microVariant++;
+		cycleCount++;
+	}
+
+	private void microIndex( int base, int index ) {
+		microAddress = (base+index)&0xffff;
+		if( (base>>8)!=(microAddress>>8) &&
+				(Cpu65c02OpcodeTable.FLAGS[microOpcodeIndex]&Cpu65c02OpcodeTable.FLAG_PAGE_CROSS_PENALTY)!=0 )
+			microExtendCycle();
+	}
+
+	// Runs the instruction handler against the operands and effective address gathered so far
+	private void microOperate() {
+		int operation = Cpu65c02MicroProgram.OPERATION[microOpcodeIndex];
+		if( operation<0 ) {
+			getInterruptHandler(opcode).execute(this, 0);
+			return;
+		}
+		decodedInstruction = operation | (microAddress<<8);
+		INSTRUCTION_HANDLER[operation].execute(this, reg.getPC()+1);
+	}
+
+	private int microReturnPc() {
+		return opcode.getMnemonic()==OpcodeMnemonic.JSR ? newPc-1 : newPc;
+	}
+
+	private boolean isBranchTaken() {
 		switch( opcode.getMnemonic() ) {
-		
-			case ADC:
-				// Add 1 cycle for decimal mode
-				// A + M + C . A
-				value = memory.getByte(operandPtr);
-				if( reg.getP(StatusRegister.D) ) {
-					throw new RuntimeException("Dec mode not yet implemented"); /// TODO: Dec mode not yet implemented ///
-				}
-				else {
-					int regA = reg.getA();
-					int valAdd = value;
-					value = regA + valAdd;
-					if( reg.getP(StatusRegister.C) )
-						value++;
-					reg.setA(value);
-					reg.testPCZN(value);
-					reg.testP(((regA^value)&(valAdd^value)&0x80)!=0, StatusRegister.V);
-				}
-				break;
-	
-			case AND:
-				// A & M . A
-				value = memory.getByte(operandPtr);
-				value &= reg.getA();
-				reg.setA(value);
-				reg.testPZN(value);
-				break;
-	
-			case ASL:
-				if( opcode.getAddressMode() == AddressMode.ACC ) {
-					// C << A << 0
-					value = reg.getA()<<1;
-					reg.setA(value);
-					reg.testPCZN(value);
-				}
-				else {
-					// C << M << 0
-					value = memory.getByte(operandPtr)<<1;
-					memory.setByte(operandPtr, value);
-					reg.testPCZN(value);
-				}
-				break;
-	
 			case BCC:
-				branchTest( !reg.getP(StatusRegister.C) );
-				break;
-	
+				return !reg.getP(StatusRegister.C);
 			case BCS:
-				branchTest( reg.getP(StatusRegister.C) );
-				break;
-	
+				return reg.getP(StatusRegister.C);
 			case BEQ:
-				branchTest( reg.getP(StatusRegister.Z) );
-				break;
-	
-			case BIT:
-				// A & M
-				// Stores memory bits 6 and 7 in bits 6 and 7 of the processor register
-				// If immediate addressing mode is used, BIT does not effect bit 6 or 7 (4-22 Sather)
-				value = memory.getByte(operandPtr);
-				if( opcode.getAddressMode() != AddressMode.IMM ) 
-					reg.setP(reg.getP() & 0x3f | (value&0xc0));
-				reg.testPZ(reg.getA() & value);
-				break;
-	
+				return reg.getP(StatusRegister.Z);
 			case BMI:
-				branchTest( reg.getP(StatusRegister.N) );
-				break;
-	
+				return reg.getP(StatusRegister.N);
 			case BNE:
-				branchTest( !reg.getP(StatusRegister.Z) );
-				break;
-	
+				return !reg.getP(StatusRegister.Z);
 			case BPL:
-				branchTest( !reg.getP(StatusRegister.N) );
-				break;
-	
+				return !reg.getP(StatusRegister.N);
 			case BRA:
-				branchTest( true );
-				break;
-	
-			case BRK:
-				pushStack(newPc>>8);
-				pushStack(newPc);
-				pushStack(reg.getP() | StatusRegister.B.value);
-				reg.setP(StatusRegister.I);    // Set interrupt disable
-				reg.clearP(StatusRegister.D);  // Clear decimal flag
-				newPc = memory.getWord16LittleEndian(INT_BRK_VECTOR_ADDR);
-				break;
-	
+				return true;
 			case BVC:
-				branchTest( !(reg.getP(StatusRegister.V)) );
-				break;
-	
+				return !reg.getP(StatusRegister.V);
 			case BVS:
-				branchTest( reg.getP(StatusRegister.V) );
-				break;
-	
-			case CLC:
-				// 0 . P.C;
-				reg.clearP(StatusRegister.C);
-				break;
-	
-			case CLD:
-				// 0 . P.D;
-				reg.clearP(StatusRegister.D);
-				break;
-	
-			case CLI:
-				// 0 . P.I;
-				reg.clearP(StatusRegister.I);
-				break;
-	
-			case CLV:
-				// 0 . P.V;
-				reg.clearP(StatusRegister.V);
-				break;
-	
-			case CMP:
-				// A - M
-				{
-					value = memory.getByte(operandPtr);
-					int regA = reg.getA();
-					int valAdd = value^0xff;
-					value = regA + valAdd;
-					value++;
-					reg.testPCZN(value);
-				}
-				break;
-			
-			case CPX:
-				// X - M
-				reg.testPC_ZN(reg.getX() - memory.getByte(operandPtr));
-				{
-					value = memory.getByte(operandPtr);
-					int regX = reg.getX();
-					int valAdd = value^0xff;
-					value = regX + valAdd;
-					value++;
-					reg.testPCZN(value);
-				}
-				break;
-	
-			case CPY:
-				// Y - M
-				{
-					value = memory.getByte(operandPtr);
-					int regY = reg.getY();
-					int valAdd = value^0xff;
-					value = regY + valAdd;
-					value++;
-					reg.testPCZN(value);
-				}
-				break;
-	
-			case DEA:
-				// A - 1 . A
-				value = reg.getA() - 1;
-				reg.setA(value);
-				reg.testPZN(value);
-				break;
-			
-			case DEC:
-				// M - 1 . M
-				value = memory.getByte(operandPtr) - 1;
-				memory.setByte(operandPtr, value);
-				reg.testPZN(value);
-				break;
-	
-			case DEX:
-				// X - 1 . X
-				value = reg.getX() - 1;
-				reg.setX(value);
-				reg.testPZN(value);
-				break;
-	
-			case DEY:
-				// Y - 1 . Y
-				value = reg.getY() - 1;
-				reg.setY(value);
-				reg.testPZN(value);
-				break;
-			
-			case EOR:
-				// A ^ M . A
-				value = reg.getA() ^ memory.getByte(operandPtr);
-				reg.setA(value);
-				reg.testPZN(value);
-				break;
-			
-			case INA:
-				// A + 1 . A
-				value = reg.getA() + 1;
-				reg.setA(value);
-				reg.testPZN(value);
-				break;
-	
-			case INC:
-				// M + 1 . M
-				value = memory.getByte(operandPtr) + 1;
-				memory.setByte(operandPtr, value);
-				reg.testPZN(value);
-				break;
-	
-			case INX:
-				// X + 1 . X
-				value = reg.getX() + 1;
-				reg.setX(value);
-				reg.testPZN(value);
-				break;
-	
-			case INY:
-				// Y + 1 . Y
-				value = reg.getY() + 1;
-				reg.setY(value);
-				reg.testPZN(value);
-				break;
-	
-			case JMP:
-				// M . PC
-				newPc = operandPtr;
-				break;
-	
-			case JSR:
-				// PC-1 . (S)
-				// M . PC
-				newPc--;
-				pushStack(((newPc)>>8));
-				pushStack(newPc);
-				newPc = operandPtr;
-				break;
+				return reg.getP(StatusRegister.V);
+			default:
+				return false;
+		}
+	}
 
-			case LDA:
-				// M . A
-				value = memory.getByte(operandPtr);
-				reg.setA(value);
-				reg.testPZN(value);
-				break;
-	
-			case LDX:
-				// M . X
-				value = memory.getByte(operandPtr);
-				reg.setX(value);
-				reg.testPZN(value);
-				break;
-	
-			case LDY:
-				// M . Y
-				value = memory.getByte(operandPtr);
-				reg.setY(value);
-				reg.testPZN(value);
-				break;
-	
+	private int modifyValue( int value ) {
+		switch( opcode.getMnemonic() ) {
+			case ASL:
+				return aslValue(value);
 			case LSR:
-				if( opcode.getAddressMode() == AddressMode.ACC ) {
-					// 0 >> A >> C
-					value = reg.getA();
-					reg.testP((value & 0x01)!=0, StatusRegister.C);
-					value >>= 1;
-					reg.setA(value);
-					reg.clearP(StatusRegister.N);
-					reg.testPZ(value);
-				}
-				else {
-					// 0 >> M >> C
-					value = memory.getByte(operandPtr);
-					reg.testP((value & 0x01)!=0, StatusRegister.C);
-					value >>= 1;
-					memory.setByte(operandPtr, value);
-					reg.clearP(StatusRegister.N);
-					reg.testPZ(value);
-				}
-				break;
-	
-			case NOP:
-				// No operation
-				break;
-
-			case ORA:
-				// A | M . A
-				value = memory.getByte(operandPtr) | reg.getA();
-				reg.setA(value);
-				reg.testPZN(value);
-				break;
-	
-			case PHA:
-				// A . (S)
-				pushStack(reg.getA());
-				break;
-	
-			case PHP:
-				// P . (S)
-				pushStack(reg.getP());
-				break;
-	
-			case PHX:
-				// X . (S)
-				pushStack(reg.getX());
-				break;
-	
-			case PHY:
-				// Y . (S)
-				pushStack(reg.getY());
-				break;
-	
-			case PLA:
-				// (S) . A
-				value = popStack();
-				reg.setA(value);
-				reg.testPZN(value);
-				break;
-	
-			case PLP:
-				// (S) . P
-				reg.setP(popStack()|StatusRegister.B.value);
-				break;
-	
-			case PLX:
-				// (S) . X
-				value = popStack();
-				reg.setX(value);
-				reg.testPZN(value);
-				break;
-	
-			case PLY:
-				// (S) . Y
-				value = popStack();
-				reg.setY(value);
-				reg.testPZN(value);
-				break;
-
+				return lsrValue(value);
 			case ROL:
-				if( opcode.getAddressMode() == AddressMode.ACC ) {
-					// C << A << C
-					value = reg.getA()<<1;
-					if( reg.getP(StatusRegister.C) )
-						value |= 1;
-					reg.setA(value);
-					reg.testPCZN(value);
-				}
-				else {
-					// C << M << C
-					value = memory.getByte(operandPtr)<<1;
-					if( reg.getP(StatusRegister.C) )
-						value |= 1;
-					memory.setByte(operandPtr, value);
-					reg.testPCZN(value);
-				}
-				break;
-	
+				return rolValue(value);
 			case ROR:
-				if( opcode.getAddressMode() == AddressMode.ACC ) {
-					// C >> A >> C
-					value = reg.getA();
-					if( reg.getP(StatusRegister.C) )
-						value |= 0x100;
-					reg.testP((value&0x01)!=0, StatusRegister.C);
-					value >>= 1;
-					reg.setA(value);
-					reg.testPZN(value);
-				}
-				else {
-					// C >> M >> C
-					value = memory.getByte(operandPtr);
-					if( reg.getP(StatusRegister.C) )
-						value |= 0x100;
-					reg.testP((value&0x01)!=0, StatusRegister.C);
-					value >>= 1;
-					memory.setByte(operandPtr, value);
-					reg.testPZN(value);
-				}
-				break;
+				return rorValue(value);
+			case INC:
+				return incValue(value);
+			case DEC:
+				return decValue(value);
+			case TSB:
+				return tsbValue(value);
+			case TRB:
+				return trbValue(value);
+			default:
+				throw new IllegalStateException("Not a read-modify-write instruction: "+opcode);
+		}
+	}
 
-			case RTI:
-				// (S) . PC
-				reg.setP(popStack() | StatusRegister.B.value);
-				newPc = popStack();
-				newPc |= popStack() << 8;
-				break;
-	
-			case RTS:
-				// (S)+1 . PC
-				newPc = popStack();
-				newPc |= popStack() << 8;
-				newPc++;
-				newPc &= 0xffff;
-				break;
-	
-			case SBC:
-				value = memory.getByte(operandPtr);
-				if( reg.getP(StatusRegister.D) ) {
-					// A - M - !C . A
-					throw new RuntimeException("Dec mode not yet implemented"); /// TODO: Dec mode not yet implemented ///
-/*				
-					// Add 1 cycle for decimal mode
-					cycleCount++;
-					short val;
-					byte ah = a&0xf0;
-					byte al = a&0x0f;
-					byte vh = operandValue&0xf0;
-					byte vl = operandValue&0x0f;
-					val = al + vl + (reg.getP()&StatusRegister.C.value);
-					if( val>=0xa0 )
-						val += 0x06;
-						val &= 0x0f;
-						val |= 0x10;
-					}
-					val += ah;
-					val += vh;
-					val += al;
-*/
-				}
-				else {
-					int regA = reg.getA();
-					int valAdd = value^0xff;
-					value = regA + valAdd;
-					if( reg.getP(StatusRegister.C) )
-						value++;
-					reg.setA(value);
-					reg.testPCZN(value);
-					reg.testP(((regA^value)&(valAdd^value)&0x80)!=0, StatusRegister.V);
-				}
-				break;
+	/// TEST:
+	///  Dereferenced addresses on page zero forces both low and high bytes to be pulled from page zero, even if the page boundary is crossed
+	///  According to the NCR 65C02 Specs, all zero-page indirect opcodes use this convention except "zero-page indirect addressing" itself
+	///  It would seem to follow that zero-page indirect addressing would also follow this convention
 
-			case SEC:
-				// 1 . P.C;
-				reg.setP(StatusRegister.C);
-				break;
-	
-			case SED:
-				// 1 . P.D;
-				reg.setP(StatusRegister.D);
-				break;
-	
-			case SEI:
-				// 1 . P.I;
-				reg.setP(StatusRegister.I);
-				break;
-	
-			case STA:
-				// A . M
-				memory.setByte(operandPtr, reg.getA());
-				break;
-	
-			case STX:
-				// X . M
-				memory.setByte(operandPtr, reg.getX());
-				break;
-	
-			case STY:
-				// Y . M
-				memory.setByte(operandPtr, reg.getY());
-				break;
-	
-			case STZ:
-				// $00 . M
-				memory.setByte(operandPtr, 0x00);
-				break;
+	/// TODO: These take one additional clock if the effective address page and given address page are different ///
 
-			case TAX:
-				// A . X
-				value = reg.getA();
-				reg.setX(value);
-				reg.testPZN(value);
-				break;
-	
-			case TAY:
-				// A . Y
-				value = reg.getA();
-				reg.setY(value);
-				reg.testPZN(value);
-				break;
-	
-			case TRB:
-				// A & M . M
-				value = memory.getByte(operandPtr);
-				reg.testPZ(reg.getA() & value);
-				value &= ~reg.getA();
-				memory.setByte(operandPtr, value);
-				break;
-	
-			case TSB:
-				// A | M . M
-				value = memory.getByte(operandPtr);
-				reg.testPZ(reg.getA() & value);
-				value |= reg.getA();
-				memory.setByte(operandPtr, value);
-				break;
-	
-			case TSX:
-				// S . X
-				value = reg.getS();
-				reg.setX(value);
-				reg.testPZN(value);
-				break;
-	
-			case TXA:
-				// X . A
-				value = reg.getX();
-				reg.setA(value);
-				reg.testPZN(value);
-				break;
-	
-			case TXS:
-				// X . S
-				reg.setS(reg.getX());
-				break;
-	
-			case TYA:
-				// Y . A
-				value = reg.getY();
-				reg.setA(value);
-				reg.testPZN(value);
-				break;
-	
-			case IRQ:
-				// IRQ's are given priority starting with slot 1 to 7 (4-16 of Sather)
-				pushStack(newPc>>8);
-				pushStack(newPc);
-				pushStack(reg.getP()&~StatusRegister.B.value);
-				reg.setP(StatusRegister.I);    // Set interrupt disable
-				reg.clearP(StatusRegister.D);  // Clear decimal flag
-				newPc = memory.getWord16LittleEndian(INT_IRQ_VECTOR_ADDR);
-				break;
-	
-			case NMI:
-				pushStack(newPc>>8);
-				pushStack(newPc);
-				pushStack(reg.getP()&~StatusRegister.B.value);
-				reg.setP(StatusRegister.I);    // Set interrupt disable
-				reg.clearP(StatusRegister.D);  // Clear decimal flag
-				newPc = memory.getWord16LittleEndian(INT_NMI_VECTOR_ADDR);
-				break;
-	
-			case RES:
-				// Reset - reset key up / cold switch reset
-				// This sequence lasts 6 cycles (NCR 65C02 Datasheet)
-				// Also pulls 3 values from the stack and resets all but 2 switches in the MMU
-				/// Should emulate reset signature recognition described in 4-14 and 5-29 of Sather ///
-				// Reset adjusts S as if three pulls occurred, but does not write stack memory.
-				reg.setS(reg.getS()-3);
-				reg.setP(StatusRegister.I);    // Set interrupt disable
-				reg.clearP(StatusRegister.D);  // Clear decimal flag
-				if( resetAOverride!=null ) {
-					reg.setA(resetAOverride);
-				}
-				if( resetXOverride!=null ) {
-					reg.setX(resetXOverride);
-				}
-				if( resetYOverride!=null ) {
-					reg.setY(resetYOverride);
-				}
-				if( resetSOverride!=null ) {
-					reg.setS(resetSOverride);
-				}
-				if( resetPOverride!=null ) {
-					reg.setP(resetPOverride);
-				}
-				newPc = memory.getWord16LittleEndian(INT_RES_VECTOR_ADDR);
-				isHalted = false;
-				break;
-	
-			case HLT:
-				// Halt execution (reset key down)
-				// _TEXT and _MIXED statuses are not modified by a reset interrupt
-				// Sather 7-3, Sather I-5 suggests the Apple II reset operates differently than the Apple IIe
-				if( !isHalted ) {
-					memory.warmReset();
-					isHalted = true;
-				}
-				break;
+	// Takes the effective address decoded by the planner for this instruction, if any
+	private boolean consumeDecodedOperand( int operandCounter, int index, boolean addPageCrossCycle ) {
+		if( !decodedOperand.consume(operandCounter-1, index) )
+			return false;
+		operandPtr = decodedOperand.getEffectiveAddress();
+		if( addPageCrossCycle && decodedOperand.isPageCrossed() )
+			cycleCount++;
+		return true;
+	}
 
-			default:
-				throw new RuntimeException("[Opcode "+opcode.getMnemonic().toString()+" not yet supported]");
-				//throw new RuntimeException("Command "+opcode.getMnemonic().toString()+" not supported");
-				//break;
-				
+	private void resolveImm( int operandCounter ) {
+		// Immediate
+		// Literal value
+		// +1 byte
+		operandPtr = operandCounter;
+	}
+
+	private void resolveAbs( int operandCounter ) {
+		// Absolute
+		// ADL:ADH
+		// +2 byte
+		operandPtr = operandWord(operandCounter);
+	}
+
+	private void resolveZpg( int operandCounter ) {
+		// Zero-page
+		// $00:ADL
+		// +1 byte
+		operandPtr = operandByte(operandCounter);
+	}
+
+	private void resolveIndX( int operandCounter ) {
+		// (Indirect, X)
+		// ($00:[ADL+X]) ñ carries discarded for low and high addr bytes
+		// +1 byte
+		operandPtr = (operandByte(operandCounter) + reg.getX())&0xff;
+		operandPtr = memory.getWord16LittleEndian(operandPtr, 0xff);
+	}
+
+	private void resolveIndY( int operandCounter, boolean addPageCrossCycle ) {
+		// (Indirect), Y
+		// (ADH:ADL)+Y
+		// +1 byte
+		if( consumeDecodedOperand(operandCounter, reg.getY(), addPageCrossCycle) )
+			return;
+		operandPtr = operandByte(operandCounter);
+		operandPtr = memory.getWord16LittleEndian(operandPtr, 0xff);
+		int basePtr = operandPtr;
+		operandPtr += reg.getY();
+		operandPtr &= 0xffff;
+		// 65C02 adds one cycle for (indirect),Y reads on page cross.
+		if( (basePtr>>8)!=(operandPtr>>8) && addPageCrossCycle )
+			cycleCount++;
+	}
+
+	private void resolveZpgX( int operandCounter ) {
+		// Zero-page, X
+		// $00:[ADL+X]
+		// +1 byte
+		operandPtr = ( operandByte(operandCounter) + reg.getX() )&0xff;
+	}
+
+	private void resolveZpgY( int operandCounter ) {
+		// Zero-page, Y
+		// $00:[ADL+Y]
+		// +1 byte
+		operandPtr = ( operandByte(operandCounter) + reg.getY() )&0xff;
+	}
+
+	private void resolveAbsX( int operandCounter, boolean addPageCrossCycle ) {
+		// Absolute, X
+		// [ADL:ADH] + X
+		// +2 byte
+		if( consumeDecodedOperand(operandCounter, reg.getX(), addPageCrossCycle) )
+			return;
+		operandPtr = operandWord(operandCounter);
+		ptrAdd(reg.getX(), addPageCrossCycle);
+	}
+
+	private void resolveAbsY( int operandCounter, boolean addPageCrossCycle ) {
+		// Absolute, Y
+		// [ADL:ADH] + Y
+		// +2 byte
+		if( consumeDecodedOperand(operandCounter, reg.getY(), addPageCrossCycle) )
+			return;
+		operandPtr = operandWord(operandCounter);
+		ptrAdd(reg.getY(), addPageCrossCycle);
+	}
+
+	private void resolveRel( int operandCounter ) {
+		// Relative
+		// PCL:PCH + ADL
+		// +1 byte
+		operandPtr = operandCounter;
+	}
+
+	private void resolveAbsInd( int operandCounter ) {
+		// (Absolute)
+		// PCL:PCH = (ADL:ADH)
+		// +2 byte
+		operandPtr = operandWord(operandCounter);
+		operandPtr = memory.getWord16LittleEndian(operandPtr);
+	}
+
+	private void resolveAbsIndX( int operandCounter ) {
+		// Absolute (indirect, X)
+		// PCL:PCH = (ADL:ADH + X)
+		// +2 byte
+		operandPtr = operandWord(operandCounter);
+		ptrAdd(reg.getX(), false);
+		operandPtr = memory.getWord16LittleEndian(operandPtr);
+	}
+
+	private void resolveZpgInd( int operandCounter ) {
+		// (Zero-page)
+		// ($00:ADL)
+		// +1 byte
+		operandPtr = operandByte(operandCounter);
+		operandPtr = memory.getWord16LittleEndian(operandPtr, 0xff);
+	}
+
+	private void opAdc() {
+		int value;
+		// Add 1 cycle for decimal mode
+		// A + M + C . A
+		value = memory.getByte(operandPtr);
+		if( reg.getP(StatusRegister.D) ) {
+			throw new RuntimeException("Dec mode not yet implemented"); /// TODO: Dec mode not yet implemented ///
 		}
-	
-		lastInstructionCycleCount = cycleCount;
-		lastCycleCount = idleCycle+cycleCount;
-		int cyclesRemaining = cycleCount-pendingInstructionCyclesConsumed;
-		if( cyclesRemaining<1 )
-			cyclesRemaining = 1;
-		incSleepCycles(idleCycle+cyclesRemaining);
-		idleCycle = 0;
-		pendingInstructionCyclesConsumed = 0;
-	
-		// Supress maskable interrupts if P.I is set
-		if( interruptPending==INTERRUPT_IRQ && reg.getP(StatusRegister.I) )
-			interruptPending = null;
+		else {
+			int regA = reg.getA();
+			int valAdd = value;
+			value = regA + valAdd;
+			if( reg.getP(StatusRegister.C) )
+				value++;
+			reg.setA(value);
+			reg.testPCZN(value);
+			reg.testPV((regA^value)&(valAdd^value));
+		}
+	}
 
-		// Get next instruction / interrupt call
-		if( interruptPending==null )
+	private void opAnd() {
+		int value;
+		// A & M . A
+		value = memory.getByte(operandPtr);
+		value &= reg.getA();
+		reg.setA(value);
+		reg.testPZN(value);
+	}
+
+	private void opAslAcc() {
+		int value;
+		// C << A << 0
+		value = reg.getA()<<1;
+		reg.setA(value);
+		reg.testPCZN(value);
+	}
+
+	private void opAsl() {
+		memory.setByte(operandPtr, aslValue(memory.getByte(operandPtr)));
+	}
+
+	private int aslValue( int value ) {
+		// C << M << 0
+		value <<= 1;
+		reg.testPCZN(value);
+		return value;
+	}
+
+	private void opBcc() {
+		branchTest( !reg.getP(StatusRegister.C) );
+	}
+
+	private void opBcs() {
+		branchTest( reg.getP(StatusRegister.C) );
+	}
+
+	private void opBeq() {
+		branchTest( reg.getP(StatusRegister.Z) );
+	}
+
+	private void opBit() {
+		int value;
+		// A & M
+		// Stores memory bits 6 and 7 in bits 6 and 7 of the processor register
+		value = memory.getByte(operandPtr);
+		reg.testPN(value);
+		reg.testPV(value<<1);
+		reg.testPZ(reg.getA() & value);
+	}
+
+	private void opBitImm() {
+		int value;
+		// A & M
+		// BIT immediate does not affect bits 6 or 7 (4-22 Sather)
+		value = memory.getByte(operandPtr);
+		reg.testPZ(reg.getA() & value);
+	}
+
+	private void opBmi() {
+		branchTest( reg.getP(StatusRegister.N) );
+	}
+
+	private void opBne() {
+		branchTest( !reg.getP(StatusRegister.Z) );
+	}
+
+	private void opBpl() {
+		branchTest( !reg.getP(StatusRegister.N) );
+	}
+
+	private void opBra() {
+		branchTest( true );
+	}
+
+	private void opBrk() {
+		pushStack(newPc>>8);
+		pushStack(newPc);
+		pushStack(reg.getP() | StatusRegister.B.value);
+		reg.setP(StatusRegister.I);    // Set interrupt disable
+		reg.clearP(StatusRegister.D);  // Clear decimal flag
+		newPc = memory.getWord16LittleEndian(INT_BRK_VECTOR_ADDR);
+	}
+
+	private void opBvc() {
+		branchTest( !(reg.getP(StatusRegister.V)) );
+	}
+
+	private void opBvs() {
+		branchTest( reg.getP(StatusRegister.V) );
+	}
+
+	private void opClc() {
+		// 0 . P.C;
+		reg.clearP(StatusRegister.C);
+	}
+
+	private void opCld() {
+		// 0 . P.D;
+		reg.clearP(StatusRegister.D);
+	}
+
+	private void opCli() {
+		// 0 . P.I;
+		reg.clearP(StatusRegister.I);
+	}
+
+	private void opClv() {
+		// 0 . P.V;
+		reg.clearP(StatusRegister.V);
+	}
+
+	private void opCmp() {
+		int value;
+		// A - M
 		{
-			// No interrupt pending - get next memory instruction
-			newOpcode = OPCODE[memory.getByte(newPc&0xffff)];
-		} else {
-			newOpcode = interruptPending;
-			// Pending interrupt can only be changed by host
-			// e.g. creating reset interrupt or restoring null state
-			if( interruptPending!=INTERRUPT_HLT )
-				interruptPending = null;
+			value = memory.getByte(operandPtr);
+			int regA = reg.getA();
+			int valAdd = value^0xff;
+			value = regA + valAdd;
+			value++;
+			reg.testPCZN(value);
+		}
+	}
+
+	private void opCpx() {
+		int value;
+		// X - M
+		reg.testPC_ZN(reg.getX() - memory.getByte(operandPtr));
+		{
+			value = memory.getByte(operandPtr);
+			int regX = reg.getX();
+			int valAdd = value^0xff;
+			value = regX + valAdd;
+			value++;
+			reg.testPCZN(value);
 		}
-		enqueueNextInstructionEvents();
-		
 	}
 
+	private void opCpy() {
+		int value;
+		// Y - M
+		{
+			value = memory.getByte(operandPtr);
+			int regY = reg.getY();
+			int valAdd = value^0xff;
+			value = regY + valAdd;
+			value++;
+			reg.testPCZN(value);
+		}
+	}
+
+	private void opDea() {
+		int value;
+		// A - 1 . A
+		value = reg.getA() - 1;
+		reg.setA(value);
+		reg.testPZN(value);
+	}
+
+	private void opDec() {
+		memory.setByte(operandPtr, decValue(memory.getByte(operandPtr)));
+	}
+
+	private int decValue( int value ) {
+		// M - 1 . M
+		value--;
+		reg.testPZN(value);
+		return value;
+	}
+
+	private void opDex() {
+		int value;
+		// X - 1 . X
+		value = reg.getX() - 1;
+		reg.setX(value);
+		reg.testPZN(value);
+	}
+
+	private void opDey() {
+		int value;
+		// Y - 1 . Y
+		value = reg.getY() - 1;
+		reg.setY(value);
+		reg.testPZN(value);
+	}
+
+	private void opEor() {
+		int value;
+		// A ^ M . A
+		value = reg.getA() ^ memory.getByte(operandPtr);
+		reg.setA(value);
+		reg.testPZN(value);
+	}
+
+	private void opIna() {
+		int value;
+		// A + 1 . A
+		value = reg.getA() + 1;
+		reg.setA(value);
+		reg.testPZN(value);
+	}
+
+	private void opInc() {
+		memory.setByte(operandPtr, incValue(memory.getByte(operandPtr)));
+	}
+
+	private int incValue( int value ) {
+		// M + 1 . M
+		value++;
+		reg.testPZN(value);
+		return value;
+	}
+
+	private void opInx() {
+		int value;
+		// X + 1 . X
+		value = reg.getX() + 1;
+		reg.setX(value);
+		reg.testPZN(value);
+	}
+
+	private void opIny() {
+		int value;
+		// Y + 1 . Y
+		value = reg.getY() + 1;
+		reg.setY(value);
+		reg.testPZN(value);
+	}
+
+	private void opJmp() {
+		// M . PC
+		newPc = operandPtr;
+	}
+
+	private void opJsr() {
+		// PC-1 . (S)
+		// M . PC
+		newPc--;
+		pushStack(((newPc)>>8));
+		pushStack(newPc);
+		newPc = operandPtr;
+	}
+
+	private void opLda() {
+		int value;
+		// M . A
+		value = memory.getByte(operandPtr);
+		reg.setA(value);
+		reg.testPZN(value);
+	}
+
+	private void opLdx() {
+		int value;
+		// M . X
+		value = memory.getByte(operandPtr);
+		reg.setX(value);
+		reg.testPZN(value);
+	}
+
+	private void opLdy() {
+		int value;
+		// M . Y
+		value = memory.getByte(operandPtr);
+		reg.setY(value);
+		reg.testPZN(value);
+	}
+
+	private void opLsrAcc() {
+		int value;
+		// 0 >> A >> C
+		value = reg.getA();
+		reg.testP((value & 0x01)!=0, StatusRegister.C);
+		value >>= 1;
+		reg.setA(value);
+		reg.clearP(StatusRegister.N);
+		reg.testPZ(value);
+	}
+
+	private void opLsr() {
+		memory.setByte(operandPtr, lsrValue(memory.getByte(operandPtr)));
+	}
+
+	private int lsrValue( int value ) {
+		// 0 >> M >> C
+		reg.testP((value & 0x01)!=0, StatusRegister.C);
+		value >>= 1;
+		reg.clearP(StatusRegister.N);
+		reg.testPZ(value);
+		return value;
+	}
+
+	private void opNop() {
+		// No operation
+	}
+
+	private void opOra() {
+		int value;
+		// A | M . A
+		value = memory.getByte(operandPtr) | reg.getA();
+		reg.setA(value);
+		reg.testPZN(value);
+	}
+
+	private void opPha() {
+		// A . (S)
+		pushStack(reg.getA());
+	}
+
+	private void opPhp() {
+		// P . (S)
+		pushStack(reg.getP());
+	}
+
+	private void opPhx() {
+		// X . (S)
+		pushStack(reg.getX());
+	}
+
+	private void opPhy() {
+		// Y . (S)
+		pushStack(reg.getY());
+	}
+
+	private void opPla() {
+		int value;
+		// (S) . A
+		value = popStack();
+		reg.setA(value);
+		reg.testPZN(value);
+	}
+
+	private void opPlp() {
+		// (S) . P
+		reg.setP(popStack()|StatusRegister.B.value);
+	}
+
+	private void opPlx() {
+		int value;
+		// (S) . X
+		value = popStack();
+		reg.setX(value);
+		reg.testPZN(value);
+	}
+
+	private void opPly() {
+		int value;
+		// (S) . Y
+		value = popStack();
+		reg.setY(value);
+		reg.testPZN(value);
+	}
+
+	private void opRolAcc() {
+		int value;
+		// C << A << C
+		value = reg.getA()<<1;
+		if( reg.getP(StatusRegister.C) )
+			value |= 1;
+		reg.setA(value);
+		reg.testPCZN(value);
+	}
+
+	private void opRol() {
+		memory.setByte(operandPtr, rolValue(memory.getByte(operandPtr)));
+	}
+
+	private int rolValue( int value ) {
+		// C << M << C
+		value <<= 1;
+		if( reg.getP(StatusRegister.C) )
+			value |= 1;
+		reg.testPCZN(value);
+		return value;
+	}
+
+	private void opRorAcc() {
+		int value;
+		// C >> A >> C
+		value = reg.getA();
+		if( reg.getP(StatusRegister.C) )
+			value |= 0x100;
+		reg.testP((value&0x01)!=0, StatusRegister.C);
+		value >>= 1;
+		reg.setA(value);
+		reg.testPZN(value);
+	}
+
+	private void opRor() {
+		memory.setByte(operandPtr, rorValue(memory.getByte(operandPtr)));
+	}
+
+	private int rorValue( int value ) {
+		// C >> M >> C
+		if( reg.getP(StatusRegister.C) )
+			value |= 0x100;
+		reg.testP((value&0x01)!=0, StatusRegister.C);
+		value >>= 1;
+		reg.testPZN(value);
+		return value;
+	}
+
+	private void opRti() {
+		// (S) . PC
+		reg.setP(popStack() | StatusRegister.B.value);
+		newPc = popStack();
+		newPc |= popStack() << 8;
+	}
+
+	private void opRts() {
+		// (S)+1 . PC
+		newPc = popStack();
+		newPc |= popStack() << 8;
+		newPc++;
+		newPc &= 0xffff;
+	}
+
+	private void opSbc() {
+		int value;
+		value = memory.getByte(operandPtr);
+		if( reg.getP(StatusRegister.D) ) {
+			// A - M - !C . A
+			throw new RuntimeException("Dec mode not yet implemented"); /// TODO: Dec mode not yet implemented ///
+/*
+			// Add 1 cycle for decimal mode
+			cycleCount++;
+			short val;
+			byte ah = a&0xf0;
+			byte al = a&0x0f;
+			byte vh = operandValue&0xf0;
+			byte vl = operandValue&0x0f;
+			val = al + vl + (reg.getP()&StatusRegister.C.value);
+			if( val>=0xa0 )
+				val += 0x06;
+				val &= 0x0f;
+				val |= 0x10;
+			}
+			val += ah;
+			val += vh;
+			val += al;
+*/
+		}
+		else {
+			int regA = reg.getA();
+			int valAdd = value^0xff;
+			value = regA + valAdd;
+			if( reg.getP(StatusRegister.C) )
+				value++;
+			reg.setA(value);
+			reg.testPCZN(value);
+			reg.testPV((regA^value)&(valAdd^value));
+		}
+	}
+
+	private void opSec() {
+		// 1 . P.C;
+		reg.setP(StatusRegister.C);
+	}
+
+	private void opSed() {
+		// 1 . P.D;
+		reg.setP(StatusRegister.D);
+	}
+
+	private void opSei() {
+		// 1 . P.I;
+		reg.setP(StatusRegister.I);
+	}
+
+	private void opSta() {
+		// A . M
+		memory.setByte(operandPtr, reg.getA());
+	}
+
+	private void opStx() {
+		// X . M
+		memory.setByte(operandPtr, reg.getX());
+	}
+
+	private void opSty() {
+		// Y . M
+		memory.setByte(operandPtr, reg.getY());
+	}
+
+	private void opStz() {
+		// $00 . M
+		memory.setByte(operandPtr, 0x00);
+	}
+
+	private void opTax() {
+		int value;
+		// A . X
+		value = reg.getA();
+		reg.setX(value);
+		reg.testPZN(value);
+	}
+
+	private void opTay() {
+		int value;
+		// A . Y
+		value = reg.getA();
+		reg.setY(value);
+		reg.testPZN(value);
+	}
+
+	private void opTrb() {
+		memory.setByte(operandPtr, trbValue(memory.getByte(operandPtr)));
+	}
+
+	private int trbValue( int value ) {
+		// A & M . M
+		reg.testPZ(reg.getA() & value);
+		return value & ~reg.getA();
+	}
+
+	private void opTsb() {
+		memory.setByte(operandPtr, tsbValue(memory.getByte(operandPtr)));
+	}
+
+	private int tsbValue( int value ) {
+		// A | M . M
+		reg.testPZ(reg.getA() & value);
+		return value | reg.getA();
+	}
+
+	private void opTsx() {
+		int value;
+		// S . X
+		value = reg.getS();
+		reg.setX(value);
+		reg.testPZN(value);
+	}
+
+	private void opTxa() {
+		int value;
+		// X . A
+		value = reg.getX();
+		reg.setA(value);
+		reg.testPZN(value);
+	}
+
+	private void opTxs() {
+		// X . S
+		reg.setS(reg.getX());
+	}
+
+	private void opTya() {
+		int value;
+		// Y . A
+		value = reg.getY();
+		reg.setA(value);
+		reg.testPZN(value);
+	}
+
+	private void opIrq() {
+		// IRQ's are given priority starting with slot 1 to 7 (4-16 of Sather)
+		pushStack(newPc>>8);
+		pushStack(newPc);
+		pushStack(reg.getP()&~StatusRegister.B.value);
+		reg.setP(StatusRegister.I);    // Set interrupt disable
+		reg.clearP(StatusRegister.D);  // Clear decimal flag
+		newPc = memory.getWord16LittleEndian(INT_IRQ_VECTOR_ADDR);
+	}
+
+	private void opNmi() {
+		pushStack(newPc>>8);
+		pushStack(newPc);
+		pushStack(reg.getP()&~StatusRegister.B.value);
+		reg.setP(StatusRegister.I);    // Set interrupt disable
+		reg.clearP(StatusRegister.D);  // Clear decimal flag
+		newPc = memory.getWord16LittleEndian(INT_NMI_VECTOR_ADDR);
+	}
+
+	private void opRes() {
+		// Reset - reset key up / cold switch reset
+		// This sequence lasts 6 cycles (NCR 65C02 Datasheet)
+		// Also pulls 3 values from the stack and resets all but 2 switches in the MMU
+		/// Should emulate reset signature recognition described in 4-14 and 5-29 of Sather ///
+		resetRegisters();
+		newPc = memory.getWord16LittleEndian(INT_RES_VECTOR_ADDR);
+		isHalted = false;
+	}
+
+	private void resetRegisters() {
+		// Reset adjusts S as if three pulls occurred, but does not write stack memory.
+		reg.setS(reg.getS()-3);
+		reg.setP(StatusRegister.I);    // Set interrupt disable
+		reg.clearP(StatusRegister.D);  // Clear decimal flag
+		if( resetAOverride!=null ) {
+			reg.setA(resetAOverride);
+		}
+		if( resetXOverride!=null ) {
+			reg.setX(resetXOverride);
+		}
+		if( resetYOverride!=null ) {
+			reg.setY(resetYOverride);
+		}
+		if( resetSOverride!=null ) {
+			reg.setS(resetSOverride);
+		}
+		if( resetPOverride!=null ) {
+			reg.setP(resetPOverride);
+		}
+	}
+
+	private void opHlt() {
+		// Halt execution (reset key down)
+		// _TEXT and _MIXED statuses are not modified by a reset interrupt
+		// Sather 7-3, Sather I-5 suggests the Apple II reset operates differently than the Apple IIe
+		if( !isHalted ) {
+			memory.warmReset();
+			isHalted = true;
+		}
+	}
 	public void cycleSteal( int cycles )
 	{
 		if( cycles<=0 || cycles>5 )
@@ -1483,17 +2391,119 @@ public class Cpu65c02 extends HardwareManager {
 	}
 
 	public int getPendingExecutionEventCount() {
-		return executionQueue.size();
+		if( microPc<0 )
+			return executionQueueSize;
+		int count = 0;
+		while( Cpu65c02MicroProgram.PROGRAM[microPc+count]!=Cpu65c02MicroProgram.END )
+			count++;
+		return count;
 	}
 
 	public boolean hasPendingInstructionEndEvent() {
-		CpuExecutionEvent event = executionQueue.peekFirst();
-		return event!=null && event.instructionEnd;
+		if( microPc>=0 )
+			return Cpu65c02MicroProgram.PROGRAM[microPc+1]==Cpu65c02MicroProgram.END;
+		return peekExecutionEvent()==EVENT_INSTRUCTION_END;
 	}
 
 	public boolean hasPendingInFlightMicroEvent() {
-		CpuExecutionEvent event = executionQueue.peekFirst();
-		return event!=null && !event.instructionEnd;
+		if( microPc>=0 )
+			return Cpu65c02MicroProgram.PROGRAM[microPc+1]!=Cpu65c02MicroProgram.END;
+		return peekExecutionEvent()==EVENT_PENDING_CYCLE;
+	}
+
+	public boolean isExecutionQueueChecksEnabled() {
+		return executionQueueChecksEnabled;
+	}
+
+	public void setExecutionQueueChecksEnabled(boolean enabled) {
+		executionQueueChecksEnabled = enabled;
+	}
+
+	public boolean isJitEnabled() {
+		return jit!=null;
+	}
+
+	/**
+	 * Enables translation of hot basic blocks to JVM bytecode.
+	 * Compiled blocks only run from batched execution (see runUntil) and fall
+	 * back to the interpreter for I/O and slot ROM accesses.
+	 */
+	public void setJitEnabled(boolean enabled) {
+		if( enabled==(jit!=null) )
+			return;
+		jit = enabled ? new Cpu65c02Jit(memory, decodeCache, MethodHandles.lookup()) : null;
+	}
+
+	public boolean isCycleExactEnabled() {
+		return cycleExact;
+	}
+
+	/**
+	 * Steps instructions one cycle at a time through their microcode scripts,
+	 * so each bus access happens in its own cycle instead of all at the end of
+	 * the instruction. Takes effect at the next instruction boundary; compiled
+	 * blocks only run on atomic instructions.
+	 */
+	public void setCycleExactEnabled(boolean enabled) {
+		cycleExact = enabled;
+	}
+
+	public boolean isAdaptiveAccuracyEnabled() {
+		return adaptiveAccuracy;
+	}
+
+	/**
+	 * Runs instructions atomically, except that an instruction is stepped
+	 * cycle by cycle when its effective address is in I/O or slot space, or
+	 * while a registered precision source asks for it. On by default; has no
+	 * effect while cycle-exact mode is enabled.
+	 */
+	public void setAdaptiveAccuracyEnabled(boolean enabled) {
+		adaptiveAccuracy = enabled;
+	}
+
+	public void addCyclePrecisionSource(CyclePrecisionSource source) {
+		precisionSources = Arrays.copyOf(precisionSources, precisionSources.length+1);
+		precisionSources[precisionSources.length-1] = source;
+	}
+
+	// Instructions started per execution path, including those run by compiled blocks
+	public long getAtomicInstructionCount() {
+		return atomicInstructionCount;
+	}
+
+	public long getCycleExactInstructionCount() {
+		return ioCycleExactInstructionCount+deviceCycleExactInstructionCount+forcedCycleExactInstructionCount;
+	}
+
+	public long getIoCycleExactInstructionCount() {
+		return ioCycleExactInstructionCount;
+	}
+
+	public long getDeviceCycleExactInstructionCount() {
+		return deviceCycleExactInstructionCount;
+	}
+
+	public int getJitCompiledBlockCount() {
+		return jit==null ? 0 : jit.getCompiledBlockCount();
+	}
+
+	/**
+	 * Enables per-opcode and per-address execution counters. Disabled by default;
+	 * the counters cost one null check per instruction while off.
+	 */
+	public void setProfileEnabled(boolean enabled) {
+		if( enabled==(profile!=null) )
+			return;
+		profile = enabled ? new Cpu65c02Profile(memory) : null;
+	}
+
+	public Cpu65c02Profile getProfile() {
+		return profile;
+	}
+
+	public long getIdleLoopCyclesSkipped() {
+		return idleLoopCyclesSkipped;
 	}
 
 	public int getLastCycleCount() {
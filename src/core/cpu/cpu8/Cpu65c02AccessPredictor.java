@@ -0,0 +1,69 @@
+package core.cpu.cpu8;
+
+import core.cpu.cpu8.Cpu65c02.AddressMode;
+import core.cpu.cpu8.Cpu65c02.OpcodeMnemonic;
+import core.memory.memory8.MemoryBusIIe;
+
+/**
+ * Decides ahead of execution whether an instruction touches I/O space
+ * ($C000-$C0FF soft switches and the $C100-$CFFF slot select and strobe
+ * ranges), so the CPU can step it cycle by cycle.
+ * Only zero page pointers are read, which never have side effects.
+ */
+final class Cpu65c02AccessPredictor {
+
+	private static final AddressMode[] ADDRESS_MODE = AddressMode.values();
+
+	private Cpu65c02AccessPredictor() {
+	}
+
+	/**
+	 * @param decoded decode cache entry of the instruction, MISS when its
+	 *        opcode was fetched from a page with side effects
+	 * @param planned effective address decoded by the planner, used for the
+	 *        opcodes it decodes instead of reading the pointer again
+	 */
+	static boolean accessesIoSpace( MemoryBusIIe memory, Register reg, int opcodeIndex, int decoded,
+			Cpu65c02DecodedOperand planned ) {
+		if( opcodeIndex>=Cpu65c02OpcodeTable.INTERRUPT_BASE )
+			return false;
+		// Code running out of I/O or slot expansion space
+		if( decoded==Cpu65c02DecodeCache.MISS )
+			return true;
+		if( (Cpu65c02OpcodeTable.FLAGS[opcodeIndex]&Cpu65c02OpcodeTable.FLAG_DECODE)!=0 )
+			return (planned.getEffectiveAddress()&0xf000)==0xc000;
+		int operand = decoded>>8;
+		int address;
+		switch( ADDRESS_MODE[Cpu65c02OpcodeTable.ADDRESS_MODE[opcodeIndex]] ) {
+			case ABS:
+				int mnemonic = Cpu65c02OpcodeTable.MNEMONIC[opcodeIndex];
+				if( mnemonic==OpcodeMnemonic.JMP.ordinal() || mnemonic==OpcodeMnemonic.JSR.ordinal() )
+					return false;
+				address = operand;
+				break;
+			case ABS_X:
+			case ABS_IND_X:
+				address = operand+reg.getX();
+				break;
+			case ABS_Y:
+				address = operand+reg.getY();
+				break;
+			case ABS_IND:
+				address = operand;
+				break;
+			case IND_X:
+				address = memory.getWord16LittleEndian((operand+reg.getX())&0xff, 0xff);
+				break;
+			case IND_Y:
+				address = memory.getWord16LittleEndian(operand&0xff, 0xff)+reg.getY();
+				break;
+			case ZPG_IND:
+				address = memory.getWord16LittleEndian(operand&0xff, 0xff);
+				break;
+			default:
+				return false;
+		}
+		return (address&0xf000)==0xc000;
+	}
+
+}
@@ -1,7 +1,5 @@
 package core.cpu.cpu8;
 
-import core.cpu.cpu8.Cpu65c02.AddressMode;
-import core.cpu.cpu8.Cpu65c02.OpcodeMnemonic;
 import core.memory.memory8.MemoryBusIIe;
 
 public final class Cpu65c02CycleEstimator {
@@ -10,66 +8,36 @@ public final class Cpu65c02CycleEstimator {
 	}
 
 	public static int predictInstructionCycles(MemoryBusIIe memory, Register reg, Opcode op, int pc) {
-		int cycles = op.getCycleTime();
-		Integer machineCode = op.getMachineCode();
-		if( machineCode==null )
-			return cycles;
-		Cpu65c02Opcode opcode = Cpu65c02Opcode.fromOpcodeByte(machineCode.intValue());
-		if( opcode==null )
+		return predictInstructionCycles(memory, reg, op.getTableIndex(), pc, null);
+	}
+
+	/**
+	 * Predicts the cycle count and, for planner-decoded indexed modes, stores the
+	 * effective address in the given record for the executor.
+	 */
+	static int predictInstructionCycles(MemoryBusIIe memory, Register reg, int opcodeIndex, int pc, Cpu65c02DecodedOperand decoded) {
+		int cycles = Cpu65c02OpcodeTable.CYCLE_TIME[opcodeIndex];
+		int flags = Cpu65c02OpcodeTable.FLAGS[opcodeIndex];
+		if( (flags&Cpu65c02OpcodeTable.FLAG_DECODE)==0 )
 			return cycles;
 		int operandCounter = (pc+1)&0xffff;
-		switch( op.getAddressMode() ) {
-			case ABS_X: {
-				if( hasAbsIndexedPageCrossPenalty(opcode, AddressMode.ABS_X) && crossesPage(memory.getWord16LittleEndian(operandCounter), reg.getX()) )
-					cycles++;
-				break;
-			}
-			case ABS_Y: {
-				if( hasAbsIndexedPageCrossPenalty(opcode, AddressMode.ABS_Y) && crossesPage(memory.getWord16LittleEndian(operandCounter), reg.getY()) )
-					cycles++;
-				break;
-			}
-			case IND_Y: {
-				int ptr = memory.getByte(operandCounter);
-				int base = memory.getWord16LittleEndian(ptr, 0xff);
-				if( hasIndYPageCrossPenalty(opcode) && crossesPage(base, reg.getY()) )
-					cycles++;
-				break;
-			}
-			default:
-				break;
+		int base;
+		int index;
+		if( (flags&Cpu65c02OpcodeTable.FLAG_DECODE_IND_Y)!=0 ) {
+			base = memory.getWord16LittleEndian(memory.getByte(operandCounter), 0xff);
+			index = reg.getY();
 		}
-		return cycles;
-	}
-
-	private static boolean crossesPage(int base, int add) {
-		int eff = (base + add) & 0xffff;
-		return (base>>8)!=(eff>>8);
-	}
-
-	private static boolean hasIndYPageCrossPenalty(Cpu65c02Opcode opcode) {
-		OpcodeMnemonic mnemonic = Cpu65c02.OPCODE[opcode.opcodeByte()].getMnemonic();
-		return mnemonic!=OpcodeMnemonic.STA;
-	}
-
-	private static boolean hasAbsIndexedPageCrossPenalty(Cpu65c02Opcode opcode, AddressMode mode) {
-		OpcodeMnemonic mnemonic = Cpu65c02.OPCODE[opcode.opcodeByte()].getMnemonic();
-		switch( mnemonic ) {
-			case ADC:
-			case AND:
-			case CMP:
-			case EOR:
-			case LDA:
-			case ORA:
-			case SBC:
-				return true;
-			case LDY:
-				return mode==AddressMode.ABS_X;
-			case LDX:
-				return mode==AddressMode.ABS_Y;
-			default:
-				return false;
+		else {
+			base = memory.getWord16LittleEndian(operandCounter);
+			index = (flags&Cpu65c02OpcodeTable.FLAG_DECODE_ABS_X)!=0 ? reg.getX() : reg.getY();
 		}
+		int effectiveAddress = (base+index)&0xffff;
+		boolean pageCrossed = (base>>8)!=(effectiveAddress>>8);
+		if( pageCrossed && (flags&Cpu65c02OpcodeTable.FLAG_PAGE_CROSS_PENALTY)!=0 )
+			cycles++;
+		if( decoded!=null )
+			decoded.set(pc, index, effectiveAddress, pageCrossed);
+		return cycles;
 	}
 
 }
@@ -0,0 +1,94 @@
+package core.cpu.cpu8;
+
+import java.util.Arrays;
+
+import core.memory.memory8.Memory8;
+import core.memory.memory8.MemoryBusIIe;
+
+/**
+ * Decoded instruction cache keyed by the physical location of the opcode
+ * (main/auxiliary RAM, language card, internal ROM or slot ROM).
+ * Each entry packs the opcode byte and up to two operand bytes.
+ * RAM entries are dropped a page at a time when Memory8 reports the page
+ * as written; ROM entries are dropped when ROM contents are swapped.
+ */
+final class Cpu65c02DecodeCache {
+
+	static final int MISS = -1;
+
+	private static final int ENTRY_VALID = 0x1000000;
+
+	private final MemoryBusIIe memory;
+	private final Memory8 ram;
+	private final int[] entries = new int[MemoryBusIIe.FETCH_KEY_LIMIT];
+	private final int[] pageEpoch = new int[MemoryBusIIe.FETCH_KEY_LIMIT>>8];
+	private int romIteration;
+
+	Cpu65c02DecodeCache(MemoryBusIIe memory) {
+		this.memory = memory;
+		this.ram = memory.getMemory();
+		this.romIteration = memory.getRomIteration();
+	}
+
+	void invalidateAll() {
+		Arrays.fill(entries, 0);
+		for( int page = 0; page<pageEpoch.length; page++ )
+			pageEpoch[page]++;
+		romIteration = memory.getRomIteration();
+	}
+
+	/**
+	 * @return counter that changes whenever cached code in the page of the given
+	 *         fetch key has been dropped
+	 */
+	int getPageEpoch(int key) {
+		refresh(key);
+		return pageEpoch[key>>8];
+	}
+
+	/**
+	 * @return opcode byte in bits 0-7 and operand bytes in bits 8-23, or MISS
+	 *         when the instruction at this address cannot be cached
+	 */
+	int lookup(int address) {
+		int key = memory.getFetchKey(address);
+		if( key<0 )
+			return MISS;
+		refresh(key);
+		int entry = entries[key];
+		if( entry!=0 )
+			return entry&0xffffff;
+		return decode(key);
+	}
+
+	private void refresh(int key) {
+		if( key<MemoryBusIIe.FETCH_KEY_ROM ) {
+			if( ram.fetchAndClearPageWritten(key>>8) ) {
+				Arrays.fill(entries, key&~0xff, (key&~0xff)+0x100, 0);
+				pageEpoch[key>>8]++;
+			}
+		}
+		else if( romIteration!=memory.getRomIteration() ) {
+			Arrays.fill(entries, MemoryBusIIe.FETCH_KEY_ROM, MemoryBusIIe.FETCH_KEY_LIMIT, 0);
+			for( int page = MemoryBusIIe.FETCH_KEY_ROM>>8; page<pageEpoch.length; page++ )
+				pageEpoch[page]++;
+			romIteration = memory.getRomIteration();
+		}
+	}
+
+	private int decode(int key) {
+		int opcodeByte = memory.peekFetchKey(key);
+		int size = Cpu65c02OpcodeTable.INSTR_SIZE[opcodeByte];
+		// Operands crossing into the next page may be mapped elsewhere
+		if( (key&0xff)+size>0x100 )
+			return MISS;
+		int entry = opcodeByte;
+		if( size>1 )
+			entry |= memory.peekFetchKey(key+1)<<8;
+		if( size>2 )
+			entry |= memory.peekFetchKey(key+2)<<16;
+		entries[key] = entry|ENTRY_VALID;
+		return entry;
+	}
+
+}
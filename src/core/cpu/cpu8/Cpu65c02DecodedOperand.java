@@ -0,0 +1,46 @@
+package core.cpu.cpu8;
+
+/**
+ * Effective address of an indexed instruction as decoded by the planner,
+ * handed to the executor so operand bytes and pointers are only read once.
+ * The CPU is the only bus master between planning and execution, so only
+ * the index register needs to be checked before the record is reused.
+ */
+final class Cpu65c02DecodedOperand {
+
+	private int pc = -1;
+	private int index;
+	private int effectiveAddress;
+	private boolean pageCrossed;
+
+	void set( int pc, int index, int effectiveAddress, boolean pageCrossed ) {
+		this.pc = pc;
+		this.index = index;
+		this.effectiveAddress = effectiveAddress;
+		this.pageCrossed = pageCrossed;
+	}
+
+	void clear() {
+		pc = -1;
+	}
+
+	/**
+	 * @return true once if the record was decoded for the instruction at pc
+	 *         with the same index register value
+	 */
+	boolean consume( int pc, int index ) {
+		if( this.pc!=pc )
+			return false;
+		this.pc = -1;
+		return this.index==index;
+	}
+
+	int getEffectiveAddress() {
+		return effectiveAddress;
+	}
+
+	boolean isPageCrossed() {
+		return pageCrossed;
+	}
+
+}
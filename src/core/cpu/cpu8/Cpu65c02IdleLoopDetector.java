@@ -0,0 +1,144 @@
+package core.cpu.cpu8;
+
+import core.memory.memory8.MemoryBusIIe;
+
+/**
+ * Recognizes short polling loops (e.g. KEYIN spinning on $C000 or a VBL wait on
+ * $C019) that only read RAM, ROM or status soft switches and write nothing.
+ * Until another manager runs, every iteration of such a loop is identical, so
+ * once one iteration returns to the loop head with unchanged registers the
+ * CPU may skip whole iterations instead of interpreting them.
+ */
+final class Cpu65c02IdleLoopDetector {
+
+	static final int MAX_LOOP_BYTES = 16;
+
+	private final MemoryBusIIe memory;
+	private final Cpu65c02DecodeCache decodeCache;
+
+	private int loopHead = -1;
+	private int loopBranchPc;
+	private int loopKey;
+	private int loopEpoch;
+	private boolean loopIdle;
+
+	private long iterationStart;
+	private int savedA;
+	private int savedX;
+	private int savedY;
+	private int savedS;
+	private int savedP;
+
+	Cpu65c02IdleLoopDetector(MemoryBusIIe memory, Cpu65c02DecodeCache decodeCache) {
+		this.memory = memory;
+		this.decodeCache = decodeCache;
+	}
+
+	void reset() {
+		loopHead = -1;
+	}
+
+	/**
+	 * Called on an instruction boundary right after a jump from branchPc back to head.
+	 * @return cycle units taken by one iteration once a full idle iteration has
+	 *         been observed, otherwise 0
+	 */
+	long observe( int head, int branchPc, Register reg, long now ) {
+		int key = memory.getFetchKey(head);
+		if( key<0 )
+			return 0;
+		int epoch = decodeCache.getPageEpoch(key);
+		if( head!=loopHead || branchPc!=loopBranchPc || key!=loopKey || epoch!=loopEpoch ) {
+			loopHead = head;
+			loopBranchPc = branchPc;
+			loopKey = key;
+			loopEpoch = epoch;
+			loopIdle = isIdleLoop(head, branchPc);
+			restart(reg, now);
+			return 0;
+		}
+		if( !loopIdle )
+			return 0;
+		long period = now-iterationStart;
+		if( period<=0 || reg.getA()!=savedA || reg.getX()!=savedX || reg.getY()!=savedY ||
+				reg.getS()!=savedS || reg.getP()!=savedP ) {
+			restart(reg, now);
+			return 0;
+		}
+		iterationStart = now;
+		return period;
+	}
+
+	/**
+	 * Moves the start of the observed iteration after skipping ahead.
+	 */
+	void setIterationStart( long now ) {
+		iterationStart = now;
+	}
+
+	private void restart( Register reg, long now ) {
+		iterationStart = now;
+		savedA = reg.getA();
+		savedX = reg.getX();
+		savedY = reg.getY();
+		savedS = reg.getS();
+		savedP = reg.getP();
+	}
+
+	private boolean isIdleLoop( int head, int branchPc ) {
+		// Loop body has to lie in one page so a single decode epoch covers it
+		if( (head>>8)!=(branchPc>>8) )
+			return false;
+		int pc = head;
+		while( pc<branchPc ) {
+			int decoded = decodeCache.lookup(pc);
+			if( decoded==Cpu65c02DecodeCache.MISS || !isIdleInstruction(Cpu65c02.OPCODE[decoded&0xff], decoded>>8) )
+				return false;
+			pc += Cpu65c02OpcodeTable.INSTR_SIZE[decoded&0xff];
+		}
+		return pc==branchPc;
+	}
+
+	private static boolean isIdleInstruction( Opcode op, int operand ) {
+		switch( op.getMnemonic() ) {
+			case LDA:
+			case LDX:
+			case LDY:
+			case CMP:
+			case CPX:
+			case CPY:
+			case BIT:
+			case AND:
+			case ORA:
+			case EOR:
+				switch( op.getAddressMode() ) {
+					case IMM:
+					case ZPG:
+						return true;
+					case ABS:
+						return isIdleRead(operand);
+					default:
+						return false;
+				}
+			case NOP:
+			case CLC:
+			case SEC:
+			case CLV:
+			case TAX:
+			case TAY:
+			case TXA:
+			case TYA:
+				return op.getAddressMode()==Cpu65c02.AddressMode.IMP;
+			default:
+				return false;
+		}
+	}
+
+	private static boolean isIdleRead( int address ) {
+		if( address<0xc000 || address>=0xd000 )
+			return true;
+		// Keyboard data and status reads; $C010 clears the keyboard strobe
+		return address<0xc020 && address!=0xc010;
+	}
+
+}
@@ -0,0 +1,299 @@
+package core.cpu.cpu8;
+
+import static java.lang.constant.ConstantDescs.CD_Object;
+import static java.lang.constant.ConstantDescs.CD_boolean;
+import static java.lang.constant.ConstantDescs.CD_int;
+import static java.lang.constant.ConstantDescs.CD_void;
+import static java.lang.constant.ConstantDescs.INIT_NAME;
+import static java.lang.constant.ConstantDescs.MTD_void;
+
+import java.lang.classfile.ClassFile;
+import java.lang.classfile.CodeBuilder;
+import java.lang.classfile.Label;
+import java.lang.constant.ClassDesc;
+import java.lang.constant.MethodTypeDesc;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.MethodHandles.Lookup.ClassOption;
+import java.lang.invoke.MethodType;
+
+import core.cpu.cpu8.Cpu65c02.AddressMode;
+import core.cpu.cpu8.Cpu65c02.OpcodeMnemonic;
+import core.memory.memory8.MemoryBusIIe;
+
+/**
+ * Translates hot basic blocks of 65C02 code into JVM classes.
+ * Block entries are profiled per physical fetch location; once an entry has
+ * been reached often enough the straight-line code from that point up to the
+ * next branch, JMP, JSR or RTS is compiled into a hidden nestmate of Cpu65c02
+ * that calls the interpreter's addressing and operation methods directly with
+ * the instruction bytes folded in as constants.
+ * Blocks are dropped when the decode cache reports their page as rewritten
+ * and bail out to the interpreter before any access to $C000-$CFFF.
+ */
+final class Cpu65c02Jit {
+
+	interface BlockCode {
+		/**
+		 * @return Number of instructions completed
+		 */
+		int run( Cpu65c02 cpu );
+	}
+
+	static final class Block {
+		final BlockCode code;
+		final int firstOpcode;
+		final int codePage;
+		final int pageEpoch;
+		final int worstCaseCycles;
+
+		Block( BlockCode code, int firstOpcode, int codePage, int pageEpoch, int worstCaseCycles ) {
+			this.code = code;
+			this.firstOpcode = firstOpcode;
+			this.codePage = codePage;
+			this.pageEpoch = pageEpoch;
+			this.worstCaseCycles = worstCaseCycles;
+		}
+	}
+
+	private static final int COMPILE_THRESHOLD = 64;
+	private static final int MAX_BLOCK_INSTRUCTIONS = 32;
+
+	private static final ClassDesc CD_CPU = ClassDesc.of(Cpu65c02.class.getName());
+	private static final ClassDesc CD_BLOCK = ClassDesc.of(Cpu65c02.class.getPackageName()+".Cpu65c02Block");
+	private static final ClassDesc CD_BLOCK_CODE = ClassDesc.of(BlockCode.class.getName());
+	private static final MethodTypeDesc MTD_RUN = MethodTypeDesc.of(CD_int, CD_CPU);
+	private static final MethodTypeDesc MTD_BEGIN = MethodTypeDesc.of(CD_void, CD_int, CD_int);
+	private static final MethodTypeDesc MTD_RESOLVE = MethodTypeDesc.of(CD_void, CD_int);
+	private static final MethodTypeDesc MTD_RESOLVE_PAGE_CROSS = MethodTypeDesc.of(CD_void, CD_int, CD_boolean);
+	private static final MethodTypeDesc MTD_TEST = MethodTypeDesc.of(CD_boolean);
+	private static final MethodTypeDesc MTD_END = MethodTypeDesc.of(CD_boolean, CD_boolean);
+
+	private final MemoryBusIIe memory;
+	private final Cpu65c02DecodeCache decodeCache;
+	private final MethodHandles.Lookup lookup;
+	private final Block[] blocks = new Block[MemoryBusIIe.FETCH_KEY_LIMIT];
+	private final int[] entryCount = new int[MemoryBusIIe.FETCH_KEY_LIMIT];
+	private int compiledBlockCount;
+
+	Cpu65c02Jit( MemoryBusIIe memory, Cpu65c02DecodeCache decodeCache, MethodHandles.Lookup lookup ) {
+		this.memory = memory;
+		this.decodeCache = decodeCache;
+		this.lookup = lookup;
+	}
+
+	static boolean isBlockBoundary( Opcode previous ) {
+		if( previous==null || previous.getMachineCode()==null )
+			return true;
+		switch( previous.getMnemonic() ) {
+			case JMP:
+			case JSR:
+			case RTS:
+			case RTI:
+			case BRK:
+				return true;
+			default:
+				return previous.getAddressMode()==AddressMode.REL;
+		}
+	}
+
+	int getCompiledBlockCount() {
+		return compiledBlockCount;
+	}
+
+	/**
+	 * Counts an entry at the given address and returns the compiled block
+	 * starting there, if it is hot and still matches memory.
+	 */
+	Block enter( int pc, int queuedOpcode ) {
+		int key = memory.getFetchKey(pc);
+		if( key<0 )
+			return null;
+		int epoch = decodeCache.getPageEpoch(key);
+		Block block = blocks[key];
+		if( block!=null && block.pageEpoch!=epoch ) {
+			blocks[key] = null;
+			entryCount[key] = 0;
+			block = null;
+		}
+		if( block==null ) {
+			if( ++entryCount[key]<COMPILE_THRESHOLD )
+				return null;
+			block = compile(pc, key, epoch);
+			blocks[key] = block;
+		}
+		if( block.code==null || block.firstOpcode!=queuedOpcode )
+			return null;
+		return block;
+	}
+
+	private Block compile( int pc, int key, int epoch ) {
+		int page = pc&0xff00;
+		int[] decoded = new int[MAX_BLOCK_INSTRUCTIONS];
+		int[] address = new int[MAX_BLOCK_INSTRUCTIONS];
+		int count = 0;
+		int worstCaseCycles = 0;
+		while( count<MAX_BLOCK_INSTRUCTIONS && (pc&0xff00)==page ) {
+			int entry = decodeCache.lookup(pc);
+			if( entry==Cpu65c02DecodeCache.MISS || !isTranslatable(entry) )
+				break;
+			Opcode op = Cpu65c02.OPCODE[entry&0xff];
+			decoded[count] = entry;
+			address[count] = pc;
+			count++;
+			worstCaseCycles += getWorstCaseCycles(op);
+			if( endsBlock(op) )
+				break;
+			pc += Cpu65c02OpcodeTable.INSTR_SIZE[entry&0xff];
+		}
+		int codePage = key<MemoryBusIIe.FETCH_KEY_ROM ? key>>8 : -1;
+		if( count==0 )
+			return new Block(null, 0, codePage, epoch, 0);
+		compiledBlockCount++;
+		return new Block(defineBlock(decoded, address, count, codePage>=0), decoded[0]&0xff, codePage, epoch, worstCaseCycles);
+	}
+
+	private BlockCode defineBlock( int[] decoded, int[] address, int count, boolean checkCodePage ) {
+		byte[] bytes = ClassFile.of().build(CD_BLOCK, cb -> {
+			cb.withFlags(ClassFile.ACC_FINAL|ClassFile.ACC_SYNTHETIC);
+			cb.withInterfaceSymbols(CD_BLOCK_CODE);
+			cb.withMethodBody(INIT_NAME, MTD_void, ClassFile.ACC_PUBLIC, code -> code
+					.aload(0)
+					.invokespecial(CD_Object, INIT_NAME, MTD_void)
+					.return_());
+			cb.withMethodBody("run", MTD_RUN, ClassFile.ACC_PUBLIC, code -> {
+				for( int i = 0; i<count; i++ )
+					emitInstruction(code, decoded[i], address[i], i, i==count-1, checkCodePage);
+				code.loadConstant(count).ireturn();
+			});
+		});
+		try {
+			MethodHandles.Lookup blockLookup = lookup.defineHiddenClass(bytes, true, ClassOption.NESTMATE);
+			return (BlockCode) blockLookup.findConstructor(blockLookup.lookupClass(), MethodType.methodType(void.class)).invoke();
+		} catch( Throwable e ) {
+			throw new IllegalStateException("Unable to define compiled block", e);
+		}
+	}
+
+	private static void emitInstruction( CodeBuilder code, int decoded, int pc, int index, boolean last, boolean checkCodePage ) {
+		Opcode op = Cpu65c02.OPCODE[decoded&0xff];
+		code.aload(1).loadConstant(pc).loadConstant(decoded).invokevirtual(CD_CPU, "jitBegin", MTD_BEGIN);
+		String resolve = Cpu65c02.getResolveMethod(op);
+		if( resolve!=null ) {
+			code.aload(1).loadConstant((pc+1)&0xffff);
+			if( Cpu65c02.hasPageCrossArgument(op.getAddressMode()) )
+				code.loadConstant((Cpu65c02OpcodeTable.FLAGS[decoded&0xff]&Cpu65c02OpcodeTable.FLAG_PAGE_CROSS_PENALTY)!=0 ? 1 : 0).invokevirtual(CD_CPU, resolve, MTD_RESOLVE_PAGE_CROSS);
+			else
+				code.invokevirtual(CD_CPU, resolve, MTD_RESOLVE);
+			if( isIndexedMemoryAccess(op) ) {
+				// Soft switches and slot ROM paging are left to the interpreter
+				Label inRange = code.newLabel();
+				code.aload(1).invokevirtual(CD_CPU, "jitOperandInIoSpace", MTD_TEST).ifeq(inRange);
+				code.aload(1).invokevirtual(CD_CPU, "jitRollback", MTD_void);
+				code.loadConstant(index).ireturn();
+				code.labelBinding(inRange);
+			}
+		}
+		code.aload(1).invokevirtual(CD_CPU, Cpu65c02.getOperationMethod(op), MTD_void);
+		code.aload(1).loadConstant(checkCodePage && writesMemory(op) ? 1 : 0).invokevirtual(CD_CPU, "jitEnd", MTD_END);
+		if( last ) {
+			code.pop();
+			return;
+		}
+		Label next = code.newLabel();
+		code.ifne(next);
+		code.loadConstant(index+1).ireturn();
+		code.labelBinding(next);
+	}
+
+	private static boolean isTranslatable( int decoded ) {
+		Opcode op = Cpu65c02.OPCODE[decoded&0xff];
+		switch( op.getMnemonic() ) {
+			case BRK:
+			case RTI:
+				return false;
+			default:
+				break;
+		}
+		switch( op.getAddressMode() ) {
+			case ABS_IND:
+			case ABS_IND_X:
+				return false;
+			case ABS:
+				// Absolute I/O accesses stop the block ahead of time
+				return op.getMnemonic()==OpcodeMnemonic.JMP || op.getMnemonic()==OpcodeMnemonic.JSR ||
+						((decoded>>8)&0xf000)!=0xc000;
+			default:
+				return true;
+		}
+	}
+
+	private static boolean endsBlock( Opcode op ) {
+		switch( op.getMnemonic() ) {
+			case JMP:
+			case JSR:
+			case RTS:
+				return true;
+			default:
+				return op.getAddressMode()==AddressMode.REL;
+		}
+	}
+
+	private static int getWorstCaseCycles( Opcode op ) {
+		int cycles = op.getCycleTime();
+		switch( op.getAddressMode() ) {
+			case ABS_X:
+			case ABS_Y:
+			case IND_Y:
+				cycles++;
+				break;
+			case REL:
+				cycles += 2;
+				break;
+			default:
+				break;
+		}
+		if( op.getMnemonic()==OpcodeMnemonic.ADC || op.getMnemonic()==OpcodeMnemonic.SBC )
+			cycles++;
+		return cycles;
+	}
+
+	private static boolean isIndexedMemoryAccess( Opcode op ) {
+		switch( op.getAddressMode() ) {
+			case IND_X:
+			case IND_Y:
+			case ABS_X:
+			case ABS_Y:
+			case ZPG_IND:
+				return true;
+			default:
+				return false;
+		}
+	}
+
+	private static boolean writesMemory( Opcode op ) {
+		switch( op.getMnemonic() ) {
+			case STA:
+			case STX:
+			case STY:
+			case STZ:
+			case TRB:
+			case TSB:
+			case PHA:
+			case PHP:
+			case PHX:
+			case PHY:
+			case JSR:
+				return true;
+			case ASL:
+			case LSR:
+			case ROL:
+			case ROR:
+			case INC:
+			case DEC:
+				return op.getAddressMode()!=AddressMode.ACC;
+			default:
+				return false;
+		}
+	}
+
+}
@@ -0,0 +1,286 @@
+package core.cpu.cpu8;
+
+import java.util.Arrays;
+
+import core.cpu.cpu8.Cpu65c02.AddressMode;
+import core.cpu.cpu8.Cpu65c02.OpcodeMnemonic;
+import core.cpu.cpu8.Cpu65c02Microcode.AccessType;
+import core.cpu.cpu8.Cpu65c02Microcode.MicroOp;
+
+/**
+ * Cycle scripts for every opcode table entry flattened into one int array of
+ * micro-op codes, so the cycle-exact interpreter steps through an instruction
+ * by index without allocating.
+ * Families with enum-owned microcode use their scripts; the remaining opcodes
+ * and the interrupts get scripts built from their addressing mode. Each entry
+ * has three variants of base, base+1 and base+2 cycles (page-crossed indexed
+ * access, branch taken, branch taken to another page), laid out so the
+ * interpreter can switch variant mid-instruction at the same script position.
+ */
+final class Cpu65c02MicroProgram {
+
+	static final int END = -1;
+	static final int VARIANTS = 3;
+
+	// What happens after the last cycle of an instruction
+	static final int COMPLETE_NONE = 0;     // Every effect already happened in its cycle
+	static final int COMPLETE_HANDLER = 1;  // Register-only instruction, run its handler
+	static final int COMPLETE_JUMP = 2;     // PC is loaded from the effective address
+
+	static final int[] PROGRAM;
+	static final int[] START = new int[Cpu65c02OpcodeTable.ENTRY_COUNT*VARIANTS];
+	static final byte[] ACCESS = new byte[Cpu65c02OpcodeTable.ENTRY_COUNT];
+	static final byte[] COMPLETION = new byte[Cpu65c02OpcodeTable.ENTRY_COUNT];
+	// Opcode byte whose handler performs the data access at a resolved effective address
+	static final short[] OPERATION = new short[Cpu65c02OpcodeTable.ENTRY_COUNT];
+	static final int[] VECTOR = new int[Cpu65c02OpcodeTable.ENTRY_COUNT];
+
+	static {
+		int[] program = new int[1024];
+		int size = 0;
+		program[size++] = END;
+		for( int index = 0; index<Cpu65c02OpcodeTable.ENTRY_COUNT; index++ ) {
+			Opcode op = Cpu65c02OpcodeTable.opcodeAt(index);
+			MicroOp[][] variants = scripts(index, op);
+			for( int variant = 0; variant<VARIANTS; variant++ ) {
+				int source = Math.min(variant, variants.length-1);
+				MicroOp[] script = variants[source];
+				if( script.length!=Cpu65c02OpcodeTable.CYCLE_TIME[index]+source )
+					throw new IllegalStateException("Microcode for "+op+" does not match its cycle time");
+				if( source<variant ) {
+					START[index*VARIANTS+variant] = START[index*VARIANTS+source];
+					continue;
+				}
+				if( size+script.length+1>program.length )
+					program = Arrays.copyOf(program, program.length*2);
+				START[index*VARIANTS+variant] = size;
+				for( MicroOp micro : script )
+					program[size++] = micro.code();
+				program[size++] = END;
+			}
+			ACCESS[index] = (byte) accessType(index, op).ordinal();
+			COMPLETION[index] = (byte) completion(op, variants[0]);
+			OPERATION[index] = (short) operation(index, op);
+			VECTOR[index] = vector(op.getMnemonic());
+		}
+		PROGRAM = Arrays.copyOf(program, size);
+	}
+
+	private Cpu65c02MicroProgram() {
+	}
+
+	private static MicroOp[][] scripts( int index, Opcode op ) {
+		int cycles = Cpu65c02OpcodeTable.CYCLE_TIME[index];
+		Cpu65c02Opcode family = index<Cpu65c02OpcodeTable.INTERRUPT_BASE ? Cpu65c02Opcode.fromOpcodeByte(index) : null;
+		if( family!=null ) {
+			Cpu65c02Opcode.MicroCycleProgram program = family.microcode();
+			MicroOp[] noCross = fit(program.noCrossScript(), cycles);
+			if( (Cpu65c02OpcodeTable.FLAGS[index]&Cpu65c02OpcodeTable.FLAG_PAGE_CROSS_PENALTY)==0 )
+				return variants(noCross);
+			return variants(noCross, fit(program.crossScript(), cycles+1));
+		}
+		switch( op.getMnemonic() ) {
+			case IRQ:
+			case NMI:
+				return variants(script(MicroOp.M_FETCH_OPCODE, MicroOp.M_PUSH_PCH, MicroOp.M_PUSH_PCL, MicroOp.M_PUSH_DATA,
+						MicroOp.M_READ_VECTOR_LO, MicroOp.M_READ_VECTOR_HI));
+			case RES:
+				// Three stack pulls without bus access
+				return variants(script(MicroOp.M_FETCH_OPCODE, MicroOp.M_INTERNAL, MicroOp.M_INTERNAL, MicroOp.M_INTERNAL,
+						MicroOp.M_READ_VECTOR_LO, MicroOp.M_READ_VECTOR_HI));
+			case BRK:
+				return variants(script(MicroOp.M_FETCH_OPCODE, MicroOp.M_FETCH_OPERAND_LO, MicroOp.M_PUSH_PCH, MicroOp.M_PUSH_PCL,
+						MicroOp.M_PUSH_DATA, MicroOp.M_READ_VECTOR_LO, MicroOp.M_READ_VECTOR_HI));
+			case JSR:
+				return variants(script(MicroOp.M_FETCH_OPCODE, MicroOp.M_FETCH_OPERAND_LO, MicroOp.M_INTERNAL, MicroOp.M_PUSH_PCH,
+						MicroOp.M_PUSH_PCL, MicroOp.M_FETCH_OPERAND_HI));
+			case RTI:
+				return variants(script(MicroOp.M_FETCH_OPCODE, MicroOp.M_INTERNAL, MicroOp.M_INTERNAL, MicroOp.M_PULL_DATA,
+						MicroOp.M_PULL_PCL, MicroOp.M_PULL_PCH));
+			case RTS:
+				return variants(script(MicroOp.M_FETCH_OPCODE, MicroOp.M_INTERNAL, MicroOp.M_INTERNAL, MicroOp.M_PULL_PCL,
+						MicroOp.M_PULL_PCH, MicroOp.M_INTERNAL));
+			case PHA:
+			case PHP:
+			case PHX:
+			case PHY:
+				return variants(script(MicroOp.M_FETCH_OPCODE, MicroOp.M_INTERNAL, MicroOp.M_PUSH_DATA));
+			case PLA:
+			case PLP:
+			case PLX:
+			case PLY:
+				return variants(script(MicroOp.M_FETCH_OPCODE, MicroOp.M_INTERNAL, MicroOp.M_INTERNAL, MicroOp.M_PULL_DATA));
+			default:
+				break;
+		}
+		MicroOp[] script;
+		switch( op.getAddressMode() ) {
+			case REL:
+				return variants(script(MicroOp.M_FETCH_OPCODE, MicroOp.M_FETCH_OPERAND_LO),
+						script(MicroOp.M_FETCH_OPCODE, MicroOp.M_FETCH_OPERAND_LO, MicroOp.M_BRANCH_TAKEN),
+						script(MicroOp.M_FETCH_OPCODE, MicroOp.M_FETCH_OPERAND_LO, MicroOp.M_BRANCH_TAKEN, MicroOp.M_BRANCH_PAGE));
+			case ABS_IND:
+				return variants(script(MicroOp.M_FETCH_OPCODE, MicroOp.M_FETCH_OPERAND_LO, MicroOp.M_FETCH_OPERAND_HI,
+						MicroOp.M_INTERNAL, MicroOp.M_READ_PTR_LO, MicroOp.M_READ_PTR_HI));
+			case ABS_IND_X:
+				return variants(script(MicroOp.M_FETCH_OPCODE, MicroOp.M_FETCH_OPERAND_LO, MicroOp.M_FETCH_OPERAND_HI,
+						MicroOp.M_READ_DUMMY, MicroOp.M_READ_PTR_LO, MicroOp.M_READ_PTR_HI));
+			case IMM:
+				script = script(MicroOp.M_FETCH_OPCODE);
+				break;
+			case ZPG:
+				script = script(MicroOp.M_FETCH_OPCODE, MicroOp.M_FETCH_OPERAND_LO);
+				break;
+			case ZPG_X:
+			case ZPG_Y:
+				script = script(MicroOp.M_FETCH_OPCODE, MicroOp.M_FETCH_OPERAND_LO, MicroOp.M_READ_DUMMY);
+				break;
+			case ABS:
+				script = script(MicroOp.M_FETCH_OPCODE, MicroOp.M_FETCH_OPERAND_LO, MicroOp.M_FETCH_OPERAND_HI);
+				break;
+			case ABS_X:
+			case ABS_Y:
+				script = script(MicroOp.M_FETCH_OPCODE, MicroOp.M_FETCH_OPERAND_LO, MicroOp.M_FETCH_OPERAND_HI, MicroOp.M_READ_DUMMY);
+				break;
+			case IND_X:
+				script = script(MicroOp.M_FETCH_OPCODE, MicroOp.M_FETCH_OPERAND_LO, MicroOp.M_READ_DUMMY,
+						MicroOp.M_READ_ZP_PTR_LO, MicroOp.M_READ_ZP_PTR_HI);
+				break;
+			case IND_Y:
+				script = script(MicroOp.M_FETCH_OPCODE, MicroOp.M_FETCH_OPERAND_LO, MicroOp.M_READ_ZP_PTR_LO,
+						MicroOp.M_READ_ZP_PTR_HI, MicroOp.M_READ_DUMMY);
+				break;
+			case ZPG_IND:
+				script = script(MicroOp.M_FETCH_OPCODE, MicroOp.M_FETCH_OPERAND_LO, MicroOp.M_READ_ZP_PTR_LO, MicroOp.M_READ_ZP_PTR_HI);
+				break;
+			default:
+				// Implied: the bytes a multi-byte NOP skips are still fetched
+				script = Arrays.copyOf(script(MicroOp.M_FETCH_OPCODE, MicroOp.M_FETCH_OPERAND_LO, MicroOp.M_FETCH_OPERAND_HI),
+						Math.max(1, op.getInstrSize()));
+				break;
+		}
+		switch( accessType(index, op) ) {
+			case AT_READ:
+				script = append(script, op.getAddressMode()==AddressMode.IMM ? MicroOp.M_READ_IMM_DATA : MicroOp.M_READ_EA);
+				break;
+			case AT_WRITE:
+				script = append(script, MicroOp.M_WRITE_EA);
+				break;
+			case AT_RMW:
+				script = append(append(append(script, MicroOp.M_READ_EA), MicroOp.M_WRITE_EA_DUMMY), MicroOp.M_WRITE_EA);
+				break;
+			default:
+				break;
+		}
+		return variants(fit(script, cycles));
+	}
+
+	/**
+	 * Matches a script to the cycle time of the opcode table, which stays the
+	 * reference for both execution paths: surplus index fix-up cycles are
+	 * dropped (the 65C02 skips them without a page cross) and missing cycles
+	 * are filled with internal operations.
+	 */
+	private static MicroOp[] fit( MicroOp[] script, int cycles ) {
+		while( script.length>cycles ) {
+			int dummy = Arrays.asList(script).indexOf(MicroOp.M_READ_DUMMY);
+			if( dummy<0 )
+				break;
+			MicroOp[] out = new MicroOp[script.length-1];
+			System.arraycopy(script, 0, out, 0, dummy);
+			System.arraycopy(script, dummy+1, out, dummy, out.length-dummy);
+			script = out;
+		}
+		while( script.length<cycles )
+			script = append(script, MicroOp.M_INTERNAL);
+		return script;
+	}
+
+	private static AccessType accessType( int index, Opcode op ) {
+		Cpu65c02Opcode family = index<Cpu65c02OpcodeTable.INTERRUPT_BASE ? Cpu65c02Opcode.fromOpcodeByte(index) : null;
+		if( family!=null )
+			return family.microcode().accessType();
+		switch( op.getMnemonic() ) {
+			case STZ:
+				return AccessType.AT_WRITE;
+			case TSB:
+			case TRB:
+				return AccessType.AT_RMW;
+			default:
+				return AccessType.AT_NONE;
+		}
+	}
+
+	private static int completion( Opcode op, MicroOp[] script ) {
+		if( op.getMnemonic()==OpcodeMnemonic.JMP || op.getMnemonic()==OpcodeMnemonic.JSR )
+			return COMPLETE_JUMP;
+		if( op.getAddressMode()==AddressMode.REL )
+			return COMPLETE_NONE;
+		for( MicroOp micro : script ) {
+			switch( micro ) {
+				case M_READ_IMM_DATA:
+				case M_READ_EA:
+				case M_WRITE_EA:
+				case M_PUSH_DATA:
+				case M_PULL_DATA:
+				case M_PULL_PCH:
+				case M_READ_VECTOR_HI:
+					return COMPLETE_NONE;
+				default:
+					break;
+			}
+		}
+		return COMPLETE_HANDLER;
+	}
+
+	// Indexed and indirect accesses run through the absolute form of the same mnemonic
+	private static int operation( int index, Opcode op ) {
+		if( index>=Cpu65c02OpcodeTable.INTERRUPT_BASE )
+			return -1;
+		switch( op.getAddressMode() ) {
+			case ZPG_X:
+			case ZPG_Y:
+			case ABS_X:
+			case ABS_Y:
+			case IND_X:
+			case IND_Y:
+			case ZPG_IND:
+				for( int i = 0; i<Cpu65c02.OPCODE.length; i++ )
+					if( Cpu65c02.OPCODE[i].getMnemonic()==op.getMnemonic() && Cpu65c02.OPCODE[i].getAddressMode()==AddressMode.ABS )
+						return i;
+				throw new IllegalStateException("No absolute form for "+op);
+			default:
+				return index;
+		}
+	}
+
+	private static int vector( OpcodeMnemonic mnemonic ) {
+		switch( mnemonic ) {
+			case BRK:
+				return Cpu65c02.INT_BRK_VECTOR_ADDR;
+			case IRQ:
+				return Cpu65c02.INT_IRQ_VECTOR_ADDR;
+			case NMI:
+				return Cpu65c02.INT_NMI_VECTOR_ADDR;
+			case RES:
+				return Cpu65c02.INT_RES_VECTOR_ADDR;
+			default:
+				return 0;
+		}
+	}
+
+	private static MicroOp[] append( MicroOp[] script, MicroOp micro ) {
+		MicroOp[] out = Arrays.copyOf(script, script.length+1);
+		out[script.length] = micro;
+		return out;
+	}
+
+	private static MicroOp[] script( MicroOp... ops ) {
+		return ops;
+	}
+
+	private static MicroOp[][] variants( MicroOp[]... scripts ) {
+		return scripts;
+	}
+
+}
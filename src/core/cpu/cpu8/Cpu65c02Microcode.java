@@ -47,7 +47,19 @@ public final class Cpu65c02Microcode {
 		M_READ_EA(7),
 		M_WRITE_EA_DUMMY(8),
 		M_WRITE_EA(9),
-		M_INTERNAL(10);
+		M_INTERNAL(10),
+		M_PUSH_PCH(11),
+		M_PUSH_PCL(12),
+		M_PUSH_DATA(13),
+		M_PULL_DATA(14),
+		M_PULL_PCL(15),
+		M_PULL_PCH(16),
+		M_READ_VECTOR_LO(17),
+		M_READ_VECTOR_HI(18),
+		M_READ_PTR_LO(19),
+		M_READ_PTR_HI(20),
+		M_BRANCH_TAKEN(21),
+		M_BRANCH_PAGE(22);
 
 		private final int code;
 
@@ -0,0 +1,152 @@
+package core.cpu.cpu8;
+
+import java.util.EnumSet;
+
+import core.cpu.cpu8.Cpu65c02.AddressMode;
+import core.cpu.cpu8.Cpu65c02.OpcodeMnemonic;
+
+/**
+ * Struct-of-arrays copy of the opcode table for the per-instruction paths.
+ * Entries 0x00-0xff are indexed by opcode byte and the pending interrupts
+ * follow in mnemonic order, so every Opcode has a table index.
+ */
+final class Cpu65c02OpcodeTable {
+
+	static final int INTERRUPT_BASE = 0x100;
+	static final int ENTRY_COUNT = INTERRUPT_BASE+OpcodeMnemonic.values().length-OpcodeMnemonic.IRQ.ordinal();
+
+	// Micro-queued indexed modes whose effective address is decoded once by the planner
+	static final int FLAG_DECODE_ABS_X = 0x01;
+	static final int FLAG_DECODE_ABS_Y = 0x02;
+	static final int FLAG_DECODE_IND_Y = 0x04;
+	static final int FLAG_DECODE = FLAG_DECODE_ABS_X|FLAG_DECODE_ABS_Y|FLAG_DECODE_IND_Y;
+	// Indexed read adds a cycle when the effective address crosses a page
+	static final int FLAG_PAGE_CROSS_PENALTY = 0x08;
+	// Leading cycles are queued as pending events ahead of the instruction-end event
+	static final int FLAG_MICRO_QUEUED = 0x10;
+
+	static final byte[] INSTR_SIZE = new byte[ENTRY_COUNT];
+	static final byte[] CYCLE_TIME = new byte[ENTRY_COUNT];
+	static final byte[] ADDRESS_MODE = new byte[ENTRY_COUNT];
+	static final byte[] MNEMONIC = new byte[ENTRY_COUNT];
+	static final byte[] FLAGS = new byte[ENTRY_COUNT];
+
+	static {
+		EnumSet<Cpu65c02Opcode> microQueued = buildMicroQueuedFamily();
+		for( Cpu65c02Opcode opcode : microQueued )
+			FLAGS[opcode.opcodeByte()] = FLAG_MICRO_QUEUED;
+		for( int i = 0; i<Cpu65c02.OPCODE.length; i++ )
+			setEntry(Cpu65c02.OPCODE[i]);
+		setEntry(Cpu65c02.INTERRUPT_IRQ);
+		setEntry(Cpu65c02.INTERRUPT_NMI);
+		setEntry(Cpu65c02.INTERRUPT_RES);
+		setEntry(Cpu65c02.INTERRUPT_HLT);
+	}
+
+	private Cpu65c02OpcodeTable() {
+	}
+
+	static Opcode opcodeAt( int index ) {
+		if( index<INTERRUPT_BASE )
+			return Cpu65c02.OPCODE[index];
+		for( Opcode op : new Opcode[] { Cpu65c02.INTERRUPT_IRQ, Cpu65c02.INTERRUPT_NMI,
+				Cpu65c02.INTERRUPT_RES, Cpu65c02.INTERRUPT_HLT } )
+			if( op.getTableIndex()==index )
+				return op;
+		throw new IllegalStateException("No opcode for table index "+index);
+	}
+
+	private static void setEntry( Opcode op ) {
+		int index = op.getTableIndex();
+		INSTR_SIZE[index] = op.getInstrSize();
+		CYCLE_TIME[index] = op.getCycleTime();
+		ADDRESS_MODE[index] = (byte) op.getAddressMode().ordinal();
+		MNEMONIC[index] = (byte) op.getMnemonic().ordinal();
+		if( index>=INTERRUPT_BASE || Cpu65c02Opcode.fromOpcodeByte(index)==null )
+			return;
+		int flags = FLAGS[index];
+		if( hasPageCrossPenalty(op) )
+			flags |= FLAG_PAGE_CROSS_PENALTY;
+		if( (flags&FLAG_MICRO_QUEUED)!=0 ) {
+			switch( op.getAddressMode() ) {
+				case ABS_X:
+					flags |= FLAG_DECODE_ABS_X;
+					break;
+				case ABS_Y:
+					flags |= FLAG_DECODE_ABS_Y;
+					break;
+				case IND_Y:
+					flags |= FLAG_DECODE_IND_Y;
+					break;
+				default:
+					break;
+			}
+		}
+		FLAGS[index] = (byte) flags;
+	}
+
+	/**
+	 * Source of FLAG_PAGE_CROSS_PENALTY. Also read by the Cpu65c02 handler
+	 * table, which may be built before this class finishes initializing.
+	 */
+	static boolean hasPageCrossPenalty( Opcode op ) {
+		int index = op.getTableIndex();
+		if( index>=INTERRUPT_BASE || Cpu65c02Opcode.fromOpcodeByte(index)==null )
+			return false;
+		switch( op.getAddressMode() ) {
+			case ABS_X:
+			case ABS_Y:
+				return hasAbsIndexedPageCrossPenalty(op.getMnemonic(), op.getAddressMode());
+			case IND_Y:
+				return op.getMnemonic()!=OpcodeMnemonic.STA;
+			default:
+				return false;
+		}
+	}
+
+	private static EnumSet<Cpu65c02Opcode> buildMicroQueuedFamily() {
+		EnumSet<Cpu65c02Opcode> out = EnumSet.noneOf(Cpu65c02Opcode.class);
+		out.addAll(Cpu65c02Opcode.ldaFamily());
+		out.addAll(Cpu65c02Opcode.staFamily());
+		out.addAll(Cpu65c02Opcode.incFamily());
+		out.addAll(Cpu65c02Opcode.decFamily());
+		out.addAll(Cpu65c02Opcode.aslFamily());
+		out.addAll(Cpu65c02Opcode.lsrFamily());
+		out.addAll(Cpu65c02Opcode.rolFamily());
+		out.addAll(Cpu65c02Opcode.rorFamily());
+		out.addAll(Cpu65c02Opcode.oraFamily());
+		out.addAll(Cpu65c02Opcode.andFamily());
+		out.addAll(Cpu65c02Opcode.eorFamily());
+		out.addAll(Cpu65c02Opcode.adcFamily());
+		out.addAll(Cpu65c02Opcode.sbcFamily());
+		out.addAll(Cpu65c02Opcode.cmpFamily());
+		out.addAll(Cpu65c02Opcode.bitFamily());
+		out.addAll(Cpu65c02Opcode.ldxFamily());
+		out.addAll(Cpu65c02Opcode.ldyFamily());
+		out.addAll(Cpu65c02Opcode.stxFamily());
+		out.addAll(Cpu65c02Opcode.styFamily());
+		out.addAll(Cpu65c02Opcode.cpxFamily());
+		out.addAll(Cpu65c02Opcode.cpyFamily());
+		return out;
+	}
+
+	private static boolean hasAbsIndexedPageCrossPenalty( OpcodeMnemonic mnemonic, AddressMode mode ) {
+		switch( mnemonic ) {
+			case ADC:
+			case AND:
+			case CMP:
+			case EOR:
+			case LDA:
+			case ORA:
+			case SBC:
+				return true;
+			case LDY:
+				return mode==AddressMode.ABS_X;
+			case LDX:
+				return mode==AddressMode.ABS_Y;
+			default:
+				return false;
+		}
+	}
+
+}
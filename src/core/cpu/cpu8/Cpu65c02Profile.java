@@ -0,0 +1,210 @@
+package core.cpu.cpu8;
+
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.PrintWriter;
+import java.util.Arrays;
+import java.util.PriorityQueue;
+
+import core.memory.memory8.MemoryBusIIe;
+
+/**
+ * Execution profile gathered by the CPU while enabled: instruction count and
+ * cycles per opcode table entry, hits per physical instruction address and a
+ * coverage bitmap of executed bytes.
+ * Addresses are fetch keys, so main RAM, auxiliary RAM, internal ROM and
+ * slot ROM are counted separately; code fetched from pages without a fetch
+ * key (I/O and slot expansion space) is only counted as unmapped hits.
+ */
+public final class Cpu65c02Profile {
+
+	private static final int BINARY_MAGIC = 0x45325046; // "E2PF"
+	private static final int BINARY_VERSION = 1;
+
+	private final MemoryBusIIe memory;
+	private final long[] instructionCount = new long[Cpu65c02OpcodeTable.ENTRY_COUNT];
+	private final long[] instructionCycles = new long[Cpu65c02OpcodeTable.ENTRY_COUNT];
+	private final long[] pcHits = new long[MemoryBusIIe.FETCH_KEY_LIMIT];
+	private final long[] coverage = new long[MemoryBusIIe.FETCH_KEY_LIMIT>>6];
+	private long unmappedHits;
+
+	Cpu65c02Profile(MemoryBusIIe memory) {
+		this.memory = memory;
+	}
+
+	void record( int opcodeIndex, int pc, int cycles ) {
+		recordFetch(opcodeIndex, pc);
+		recordCycles(opcodeIndex, cycles);
+	}
+
+	/**
+	 * Counts an instruction at the given address; called before it executes so
+	 * the address is resolved with the memory map the opcode was fetched from.
+	 */
+	void recordFetch( int opcodeIndex, int pc ) {
+		instructionCount[opcodeIndex]++;
+		if( opcodeIndex>=Cpu65c02OpcodeTable.INTERRUPT_BASE )
+			return;
+		int key = memory.getFetchKey(pc);
+		if( key<0 ) {
+			unmappedHits++;
+			return;
+		}
+		pcHits[key]++;
+		// Operand bytes are covered as far as they stay in the opcode's page
+		int end = Math.min(key+Cpu65c02OpcodeTable.INSTR_SIZE[opcodeIndex], (key|0xff)+1);
+		for( ; key<end; key++ )
+			coverage[key>>6] |= 1L<<key;
+	}
+
+	void recordCycles( int opcodeIndex, int cycles ) {
+		instructionCycles[opcodeIndex] += cycles;
+	}
+
+	public void clear() {
+		Arrays.fill(instructionCount, 0);
+		Arrays.fill(instructionCycles, 0);
+		Arrays.fill(pcHits, 0);
+		Arrays.fill(coverage, 0);
+		unmappedHits = 0;
+	}
+
+	public long getInstructionCount( int opcodeIndex ) {
+		return instructionCount[opcodeIndex];
+	}
+
+	public long getInstructionCycles( int opcodeIndex ) {
+		return instructionCycles[opcodeIndex];
+	}
+
+	public long getPcHits( int fetchKey ) {
+		return pcHits[fetchKey];
+	}
+
+	public boolean isCovered( int fetchKey ) {
+		return (coverage[fetchKey>>6]&(1L<<fetchKey))!=0;
+	}
+
+	public long getUnmappedHits() {
+		return unmappedHits;
+	}
+
+	public long getTotalInstructions() {
+		long total = 0;
+		for( long count : instructionCount )
+			total += count;
+		return total;
+	}
+
+	public long getTotalCycles() {
+		long total = 0;
+		for( long cycles : instructionCycles )
+			total += cycles;
+		return total;
+	}
+
+	/**
+	 * Binary layout (big endian):
+	 * magic, version, opcode entry count, then count and cycles per entry;
+	 * unmapped hits, fetch key limit, number of hit records followed by
+	 * (key, hits) pairs for every address executed; coverage word count
+	 * followed by the coverage bitmap, bit n of word n/64 set for fetch key n.
+	 */
+	public void writeBinary( OutputStream out ) throws IOException {
+		DataOutputStream data = new DataOutputStream(out);
+		data.writeInt(BINARY_MAGIC);
+		data.writeInt(BINARY_VERSION);
+		data.writeInt(instructionCount.length);
+		for( int i = 0; i<instructionCount.length; i++ ) {
+			data.writeLong(instructionCount[i]);
+			data.writeLong(instructionCycles[i]);
+		}
+		data.writeLong(unmappedHits);
+		data.writeInt(pcHits.length);
+		int records = 0;
+		for( long hits : pcHits )
+			if( hits!=0 )
+				records++;
+		data.writeInt(records);
+		for( int key = 0; key<pcHits.length; key++ ) {
+			if( pcHits[key]==0 )
+				continue;
+			data.writeInt(key);
+			data.writeLong(pcHits[key]);
+		}
+		data.writeInt(coverage.length);
+		for( long word : coverage )
+			data.writeLong(word);
+		data.flush();
+	}
+
+	public void writeSummary( PrintWriter out, int topCount ) {
+		long totalInstructions = getTotalInstructions();
+		long totalCycles = getTotalCycles();
+		int coveredBytes = 0;
+		for( long word : coverage )
+			coveredBytes += Long.bitCount(word);
+		out.println("instructions="+totalInstructions+" cycles="+totalCycles+
+				" covered_bytes="+coveredBytes+" unmapped_hits="+unmappedHits);
+
+		out.println();
+		out.println("Top opcodes by cycles:");
+		out.println(String.format("%4s %-6s %-4s %-7s %14s %14s %7s", "rank", "opcode", "mnem", "mode", "count", "cycles", "cycle%"));
+		int rank = 1;
+		for( int index : topIndices(instructionCycles, topCount) ) {
+			Opcode op = Cpu65c02OpcodeTable.opcodeAt(index);
+			out.println(String.format("%4d %-6s %-4s %-7s %14d %14d %6.2f%%", rank++,
+					index<Cpu65c02OpcodeTable.INTERRUPT_BASE ? "$"+Cpu65c02.getHexString(index, 2) : "-",
+					op.getMnemonic(), op.getAddressMode(), instructionCount[index], instructionCycles[index],
+					percent(instructionCycles[index], totalCycles)));
+		}
+
+		out.println();
+		out.println("Top addresses by hits:");
+		out.println(String.format("%4s %-14s %14s %7s", "rank", "address", "hits", "hit%"));
+		rank = 1;
+		for( int key : topIndices(pcHits, topCount) )
+			out.println(String.format("%4d %-14s %14d %6.2f%%", rank++, describeFetchKey(key), pcHits[key],
+					percent(pcHits[key], totalInstructions)));
+		out.flush();
+	}
+
+	/**
+	 * @return bank and CPU address of a fetch key, e.g. "main $0300" or "rom $fa62"
+	 */
+	public static String describeFetchKey( int key ) {
+		if( key>=MemoryBusIIe.FETCH_KEY_SLOT_ROM )
+			return "slot-rom $"+Cpu65c02.getHexString(0xc000+key-MemoryBusIIe.FETCH_KEY_SLOT_ROM, 4);
+		if( key>=MemoryBusIIe.FETCH_KEY_ROM )
+			return "rom $"+Cpu65c02.getHexString(0xc000+key-MemoryBusIIe.FETCH_KEY_ROM, 4);
+		// Language card bank 1 is stored below $D000
+		String address = "$"+Cpu65c02.getHexString(key&0xffff, 4);
+		if( (key&0xf000)==0xc000 )
+			address = "$"+Cpu65c02.getHexString((key&0xffff)+0x1000, 4)+"/1";
+		return ((key&MemoryBusIIe.BANKED_RAM)!=0 ? "aux " : "main ")+address;
+	}
+
+	private static double percent( long value, long total ) {
+		return total==0 ? 0 : 100.0*value/total;
+	}
+
+	private static int[] topIndices( long[] values, int topCount ) {
+		PriorityQueue<Integer> top = new PriorityQueue<>((a, b) -> Long.compare(values[a], values[b]));
+		for( int i = 0; i<values.length; i++ ) {
+			if( values[i]==0 )
+				continue;
+			if( top.size()<topCount )
+				top.add(i);
+			else if( values[i]>values[top.peek()] ) {
+				top.poll();
+				top.add(i);
+			}
+		}
+		int[] out = new int[top.size()];
+		for( int i = out.length-1; i>=0; i-- )
+			out[i] = top.poll();
+		return out;
+	}
+
+}
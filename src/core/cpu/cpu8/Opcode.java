@@ -5,21 +5,31 @@ import core.cpu.cpu8.Cpu65c02.OpcodeMnemonic;
 
 public class Opcode
 {
-	private Integer machineCode;
+	private int machineCode;  // -1 for interrupts
+	private int tableIndex;
 	private OpcodeMnemonic mnemonic;
 	private AddressMode addressMode;
 	private byte instrSize;
 	private byte cycleTime;
 	public Opcode(Integer machineCode, OpcodeMnemonic mnemonic, AddressMode addressMode, int instrSize, int cycleTime) {
 		super();
-		this.machineCode = machineCode;
+		this.machineCode = machineCode==null ? -1 : machineCode.intValue();
+		this.tableIndex = machineCode==null ?
+				Cpu65c02OpcodeTable.INTERRUPT_BASE+mnemonic.ordinal()-OpcodeMnemonic.IRQ.ordinal() : this.machineCode;
 		this.mnemonic = mnemonic;
 		this.addressMode = addressMode;
 		this.instrSize = (byte) instrSize;
 		this.cycleTime = (byte) cycleTime;
 	}
 	public Integer getMachineCode() {
-		return machineCode;
+		return machineCode<0 ? null : Integer.valueOf(machineCode);
+	}
+	public boolean hasMachineCode() {
+		return machineCode>=0;
+	}
+	// Index into the Cpu65c02OpcodeTable arrays
+	int getTableIndex() {
+		return tableIndex;
 	}
 	public OpcodeMnemonic getMnemonic() {
 		return mnemonic;
@@ -35,7 +45,7 @@ public class Opcode
 	}
 	@Override
 	public String toString() {
-		return "Opcode [machineCode=" + machineCode + ", mnemonic=" + mnemonic
+		return "Opcode [machineCode=" + getMachineCode() + ", mnemonic=" + mnemonic
 				+ ", addressMode=" + addressMode + ", instrSize=" + instrSize
 				+ ", cycleTime=" + cycleTime + "]";
 	}
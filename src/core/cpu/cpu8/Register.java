@@ -7,7 +7,15 @@ public class Register {
 	private int   X;   // Index register x
 	private int   PC;  // Program counter (PCL:PCH)
 	private int   S;   // Stack pointer (0x01NN)
-	private int   P;   // Processor status
+	private int   P;   // Processor status (N, V, Z and C are held lazily below)
+
+	// Last results that determine the arithmetic flags, evaluated only when P is read
+	private int   nResult;  // N: bit 7
+	private int   vResult;  // V: bit 7
+	private int   zResult;  // Z: low byte is zero
+	private int   cResult;  // C: bit 8
+
+	private static final int LAZY_FLAGS = 0xc3;
 
 	enum StatusRegister
 	{
@@ -66,82 +74,86 @@ public class Register {
 		this.S = 0xff&S;
 	}
 	public int getP() {
-		return P;
+		return (P&~LAZY_FLAGS) |
+				(nResult&0x80) |
+				((vResult>>1)&0x40) |
+				((zResult&0xff)==0 ? StatusRegister.Z.value:0) |
+				((cResult>>8)&0x01);
 	}
 	public boolean getP(StatusRegister statusRegister) {
-		return (P&statusRegister.value)!=0;
+		switch( statusRegister ) {
+			case N:
+				return (nResult&0x80)!=0;
+			case V:
+				return (vResult&0x80)!=0;
+			case Z:
+				return (zResult&0xff)==0;
+			case C:
+				return (cResult&0x100)!=0;
+			default:
+				return (P&statusRegister.value)!=0;
+		}
 	}
 	public void setP(int P) {
 		this.P = 0xff&P;
+		nResult = P;
+		vResult = P<<1;
+		zResult = (P&StatusRegister.Z.value)==0 ? 1:0;
+		cResult = P<<8;
 	}
 	public void setP(StatusRegister statusRegister) {
-		this.P |= statusRegister.value;
+		testP(true, statusRegister);
 	}
 	public void clearP(StatusRegister statusRegister) {
-		this.P &= ~statusRegister.value;
+		testP(false, statusRegister);
 	}
 	public void testP(boolean setFlag, StatusRegister statusRegister) {
-		if( setFlag )
-			this.P |= statusRegister.value;
-		else
-			this.P &= ~statusRegister.value;
+		switch( statusRegister ) {
+			case N:
+				nResult = setFlag ? 0x80:0;
+				break;
+			case V:
+				vResult = setFlag ? 0x80:0;
+				break;
+			case Z:
+				zResult = setFlag ? 0:1;
+				break;
+			case C:
+				cResult = setFlag ? 0x100:0;
+				break;
+			default:
+				if( setFlag )
+					this.P |= statusRegister.value;
+				else
+					this.P &= ~statusRegister.value;
+		}
 	}
 	public void testPZ(int value) {
-		if( (value&0xff)==0 )
-			this.P |= StatusRegister.Z.value;
-		else
-			this.P &= ~StatusRegister.Z.value;
-
+		zResult = value;
 	}
 	public void testPN(int value) {
-		if( (value & 0x80)!=0 )
-			this.P |= StatusRegister.N.value;
-		else
-			this.P &= ~StatusRegister.N.value;
+		nResult = value;
+	}
+	public void testPV(int value) {
+		vResult = value;
 	}
 	public void testPC(int value) {
-		if( (value & 0x100)!=0 )
-			this.P |= StatusRegister.C.value;
-		else
-			this.P &= ~StatusRegister.C.value;
+		cResult = value;
 	}
 	public void testPZN(int value) {
-		if( (value&0xff)==0 )
-			this.P |= StatusRegister.Z.value;
-		else
-			this.P &= ~StatusRegister.Z.value;
-		if( (value & 0x80)!=0 )
-			this.P |= StatusRegister.N.value;
-		else
-			this.P &= ~StatusRegister.N.value;
+		zResult = value;
+		nResult = value;
 	}
 	public void testPCZN(int value) {
-		if( (value & 0x100)!=0 )
-			this.P |= StatusRegister.C.value;
-		else
-			this.P &= ~StatusRegister.C.value;
-		if( (value&0xff)==0 )
-			this.P |= StatusRegister.Z.value;
-		else
-			this.P &= ~StatusRegister.Z.value;
-		if( (value & 0x80)!=0 )
-			this.P |= StatusRegister.N.value;
-		else
-			this.P &= ~StatusRegister.N.value;
+		cResult = value;
+		zResult = value;
+		nResult = value;
 	}
 	public void testPC_ZN(int value) {
-		if( value < 0 )
-			this.P |= StatusRegister.C.value;
-		else
-			this.P &= ~StatusRegister.C.value;
-		if( (value&0xff)==0 )
-			this.P |= StatusRegister.Z.value;
-		else
-			this.P &= ~StatusRegister.Z.value;
-		if( (value & 0x80)!=0 )
-			this.P |= StatusRegister.N.value;
-		else
-			this.P &= ~StatusRegister.N.value;
+		// Carry is set for negative values, i.e. bit 31 moved to bit 8
+		cResult = value>>>23;
+		zResult = value;
+		nResult = value;
 	}
 	
 	public String toString() {
@@ -0,0 +1,14 @@
+package core.emulator;
+
+/**
+ * Device that is not stepped every cycle but brought up to the current time
+ * on demand, when its state is observed or about to change.
+ */
+public interface CatchUpDevice {
+
+	/**
+	 * Advances the device through every cycle before the current time of its clock
+	 */
+	void catchUp();
+
+}
@@ -0,0 +1,16 @@
+package core.emulator;
+
+/**
+ * Hardware that depends on the exact cycle of CPU bus accesses while active,
+ * e.g. a speaker being toggled or a disk drive with its motor on.
+ * The CPU polls registered sources on every instruction boundary and steps
+ * the next instruction cycle by cycle while any of them asks for it.
+ */
+public interface CyclePrecisionSource {
+
+	/**
+	 * @return true while CPU accesses must land in their exact cycle
+	 */
+	boolean isCyclePrecisionRequired();
+
+}
@@ -8,9 +8,9 @@ public abstract class HardwareManager implements HardwareComponent, Comparable<H
 
 	private static final AtomicLong NEXT_ID = new AtomicLong();
 	private final long id = NEXT_ID.getAndIncrement();
+	private final MachineContext context = MachineContext.current();
 	private long nextActionCycleUnits;
 	protected long unitsPerCycle;
-	private static long offsetUnits;
 	
 	public HardwareManager( long unitsPerCycle ) {
 		super();
@@ -24,20 +24,65 @@ public abstract class HardwareManager implements HardwareComponent, Comparable<H
 	 */
 	public abstract void cycle() throws HardwareException;
 
+	/**
+	 * Runs at least one cycle and, for managers that support batching, keeps
+	 * cycling while the next action remains before the given deadline.
+	 * The default implementation runs exactly one cycle.
+	 * @param cycleUnitsDeadline Cycle unit time of the next competing manager
+	 * @throws HardwareException
+	 */
+	public void runUntil( long cycleUnitsDeadline ) throws HardwareException {
+		cycle();
+	}
+
+	/**
+	 * Same as runUntil, but managers that can prove they are spinning without
+	 * side effects may skip ahead as far as skipDeadline instead of cycling.
+	 * The default implementation calls runUntil.
+	 * @param cycleUnitsDeadline Cycle unit time to run until
+	 * @param skipDeadline Cycle unit time a skip may reach, at or after cycleUnitsDeadline
+	 * @param resumed Whether no other manager has run since this manager's previous run
+	 * @throws HardwareException
+	 */
+	public void fastForwardUntil( long cycleUnitsDeadline, long skipDeadline, boolean resumed ) throws HardwareException {
+		runUntil(cycleUnitsDeadline);
+	}
+
 	public void incSleepCycles( long sleepCycles ) {
 		nextActionCycleUnits += sleepCycles*unitsPerCycle;
 	}
 
+	/**
+	 * Moves the next call to the given cycle unit time, for managers that
+	 * follow another manager's clock instead of their own cycle count.
+	 */
+	protected void sleepUntil( long cycleUnits ) {
+		nextActionCycleUnits = cycleUnits;
+	}
+
 	/**
 	 * Resets cycle unit count for the given cycle manager.
 	 * Unless this method is overridden, hardware timing will be offset slightly
 	 * to maintain cycling in the order competing managers were reset.
 	 */
 	public void resetCycleCount() {
-		nextActionCycleUnits = offsetUnits;
-		offsetUnits = (long) ((offsetUnits+unitsPerCycle/(Math.sqrt(unitsPerCycle)))%unitsPerCycle);
+		nextActionCycleUnits = context.nextOffsetUnits(unitsPerCycle);
+	}
+
+	/**
+	 * @return machine this manager was created for
+	 */
+	public MachineContext getContext() {
+		return context;
 	}
 	
+	/**
+	 * @return creation order of this manager, used to order managers due at the same time
+	 */
+	public long getId() {
+		return id;
+	}
+
 	public long getNextCycleUnits() {
 		return nextActionCycleUnits;
 	}
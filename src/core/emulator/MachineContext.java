@@ -0,0 +1,145 @@
+package core.emulator;
+
+/**
+ * State that belongs to one machine rather than the process: the timing
+ * offsets handed out as managers reset their cycle counts, and the debug and
+ * window settings of its devices.
+ * Managers, devices and emulators bind to the context current on the thread
+ * that creates them. Every thread starts with its own context and begin()
+ * starts a fresh one, so machines built on separate threads (or one after
+ * another after begin) never share timing or settings and each runs the same
+ * as it would alone in the JVM.
+ */
+public final class MachineContext {
+
+	private static final ThreadLocal<MachineContext> CURRENT = ThreadLocal.withInitial(MachineContext::new);
+
+	private long offsetUnits;
+	private volatile boolean blockingDebugEnabled;
+	private volatile boolean keyLoggingEnabled;
+	private volatile String windowBackend = "lwjgl";
+	private volatile boolean startFullscreenOnLaunch;
+	private volatile String sdlTextInputMode = "off";
+	private volatile String sdlFullscreenMode = "exclusive";
+	private volatile boolean sdlImeUiSelfImplemented;
+	private volatile boolean sdlTextAnchorDebug;
+
+	/**
+	 * @return context hardware created on this thread binds to
+	 */
+	public static MachineContext current() {
+		return CURRENT.get();
+	}
+
+	/**
+	 * Makes a new context current on this thread, for building another machine.
+	 */
+	public static MachineContext begin() {
+		MachineContext context = new MachineContext();
+		CURRENT.set(context);
+		return context;
+	}
+
+	/**
+	 * @return cycle unit offset for the next manager resetting its cycle count;
+	 *         offsets advance in reset order to keep competing managers cycling
+	 *         in that order
+	 */
+	synchronized long nextOffsetUnits( long unitsPerCycle ) {
+		long units = offsetUnits;
+		offsetUnits = (long) ((offsetUnits+unitsPerCycle/(Math.sqrt(unitsPerCycle)))%unitsPerCycle);
+		return units;
+	}
+
+	public boolean isBlockingDebugEnabled() {
+		return blockingDebugEnabled;
+	}
+
+	public void setBlockingDebugEnabled( boolean enabled ) {
+		blockingDebugEnabled = enabled;
+	}
+
+	public boolean isKeyLoggingEnabled() {
+		return keyLoggingEnabled;
+	}
+
+	public void setKeyLoggingEnabled( boolean enabled ) {
+		keyLoggingEnabled = enabled;
+	}
+
+	public String getWindowBackend() {
+		return windowBackend;
+	}
+
+	public void setWindowBackend( String backend ) {
+		if( backend==null ) {
+			windowBackend = "lwjgl";
+			return;
+		}
+		String normalized = backend.trim().toLowerCase();
+		if( normalized.isEmpty() )
+			normalized = "lwjgl";
+		if( !"lwjgl".equals(normalized) && !"sdl".equals(normalized) )
+			throw new IllegalArgumentException("Unsupported window backend: "+backend+" (expected lwjgl or sdl)");
+		windowBackend = normalized;
+	}
+
+	public boolean isStartFullscreenOnLaunch() {
+		return startFullscreenOnLaunch;
+	}
+
+	public void setStartFullscreenOnLaunch( boolean enabled ) {
+		startFullscreenOnLaunch = enabled;
+	}
+
+	public String getSdlTextInputMode() {
+		return sdlTextInputMode;
+	}
+
+	public void setSdlTextInputMode( String mode ) {
+		if( mode==null ) {
+			sdlTextInputMode = "off";
+			return;
+		}
+		String normalized = mode.trim().toLowerCase();
+		if( normalized.isEmpty() )
+			normalized = "off";
+		if( !"off".equals(normalized) && !"offscreen".equals(normalized) && !"normal".equals(normalized) && !"center".equals(normalized) )
+			throw new IllegalArgumentException("Unsupported text input mode: "+mode+" (expected off, offscreen, normal, or center)");
+		sdlTextInputMode = normalized;
+	}
+
+	public String getSdlFullscreenMode() {
+		return sdlFullscreenMode;
+	}
+
+	public void setSdlFullscreenMode( String mode ) {
+		if( mode==null ) {
+			sdlFullscreenMode = "exclusive";
+			return;
+		}
+		String normalized = mode.trim().toLowerCase();
+		if( normalized.isEmpty() )
+			normalized = "exclusive";
+		if( !"exclusive".equals(normalized) && !"desktop".equals(normalized) )
+			throw new IllegalArgumentException("Unsupported SDL fullscreen mode: "+mode+" (expected exclusive or desktop)");
+		sdlFullscreenMode = normalized;
+	}
+
+	public boolean isSdlImeUiSelfImplemented() {
+		return sdlImeUiSelfImplemented;
+	}
+
+	public void setSdlImeUiSelfImplemented( boolean enabled ) {
+		sdlImeUiSelfImplemented = enabled;
+	}
+
+	public boolean isSdlTextAnchorDebug() {
+		return sdlTextAnchorDebug;
+	}
+
+	public void setSdlTextAnchorDebug( boolean enabled ) {
+		sdlTextAnchorDebug = enabled;
+	}
+
+}
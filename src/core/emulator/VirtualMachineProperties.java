@@ -7,6 +7,8 @@ import java.io.IOException;
 import java.util.Arrays;
 import java.util.Properties;
 
+import core.memory.memory8.SharedRomStore;
+
 public class VirtualMachineProperties {
 
 	public static enum MachineLayoutType {
@@ -32,20 +34,16 @@ public class VirtualMachineProperties {
 		properties.load(new FileInputStream(propertiesFile));
 		this.layout = MachineLayoutType.valueOf(properties.getProperty("machine.layout"));
 		this.programStart = Integer.decode(properties.getProperty("address.start"));
-		FileInputStream binStream;
 		String fileName = properties.getProperty("binary.file");
-		try {
-			binStream = new FileInputStream(propertiesFile.getParent()+"/"+fileName);
-		} catch ( FileNotFoundException e ) {
-			binStream = new FileInputStream(fileName);
-		}
-		try {
-			program = new byte[0x10000];
-			int len = binStream.read(program, 0, 0x10000);
-			program = Arrays.copyOf(program, len);
-		} finally {
-			binStream.close();
-		}
+		File binFile = new File(propertiesFile.getParent()+"/"+fileName);
+		if( !binFile.isFile() )
+			binFile = new File(fileName);
+		if( !binFile.isFile() )
+			throw new FileNotFoundException(fileName);
+		// Shared with other machines loading the same file
+		program = SharedRomStore.load(binFile);
+		if( program.length>0x10000 )
+			program = SharedRomStore.intern(Arrays.copyOf(program, 0x10000));
 		for( Integer i = 1; i<=7; i++ ) {
 			String layoutStr = properties.getProperty("machine.layout.slot."+i, null);
 			if( layoutStr!=null && layoutStr.length()>0 )
@@ -58,6 +56,9 @@ public class VirtualMachineProperties {
 	public int getProgramStart() {
 		return programStart;
 	}
+	/**
+	 * @return program image, shared between machines and not to be modified
+	 */
 	public byte[] getCode() {
 		return program;
 	}
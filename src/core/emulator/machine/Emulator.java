@@ -1,21 +1,28 @@
 package core.emulator.machine;
 
-import java.util.PriorityQueue;
+import java.util.Collection;
+import java.util.concurrent.locks.LockSupport;
 
 import core.exception.HardwareException;
 import core.emulator.HardwareManager;
+import core.emulator.MachineContext;
 
 public class Emulator {
-	private static volatile boolean blockingDebugEnabled;
+	private final boolean blockingDebugEnabled;
 	private static final long STEP_LISTENER_DEBUG_THRESHOLD_NS = 2_000_000L; // 2ms
 	private static final long MANAGER_CYCLE_DEBUG_THRESHOLD_NS = 20_000_000L; // 20ms
 	private static final long SPEAKER_MANAGER_CYCLE_DEBUG_THRESHOLD_NS = 200_000_000L; // 200ms
 	private static final long SLEEP_OVERSHOOT_DEBUG_THRESHOLD_NS = 20_000_000L; // 20ms
 	private static final long HANG_WATCHDOG_WARN_NS = 2_000_000_000L; // 2s
 	private static final long HANG_WATCHDOG_POLL_MS = 250L;
-	private static final long MAX_SLEEP_CHUNK_MS = 50L;
 	private static final long ABNORMAL_SLEEP_REQUEST_MS = 500L;
 	private static final int HANG_STACK_TRACE_FRAMES = 8;
+	private static final long MAX_BATCH_CYCLES = 1024L;  // Bounds realtime throttle latency when one manager runs alone
+	private static final long PACE_SLICE_NS = 16_688_000L;  // One Apple IIe video frame of 17030 cycles
+	private static final long MAX_PACE_LAG_NS = 100_000_000L;  // Further behind than this is dropped, not caught up
+
+	public static final double SPEED_WARP = Double.POSITIVE_INFINITY;
+	private static final double[] SPEED_PRESETS = { 0.5d, 1d, 2d, 4d, SPEED_WARP };
 
 	public static interface StepListener {
 		void onStep( long step, HardwareManager manager );
@@ -24,25 +31,84 @@ public class Emulator {
 		boolean onStepPhase( long step, HardwareManager manager, boolean preCycle );
 	}
 
-	protected PriorityQueue<HardwareManager> hardwareManagerQueue;
+	protected HardwareScheduler scheduler;
 	protected int granularityBitsPerSecond;
 	private boolean realtimeThrottleEnabled = true;
+	private boolean batchedExecutionEnabled = true;
+	private Boolean idleFastForwardOverride;
+	private int lastRunSlot = -1;  // Lets a manager batched again back to back keep its idle loop state
+	private volatile double speed = 1d;
+	private final double nsPerUnit;
+	private final long paceSliceUnits;
+	protected final EmulatorMetrics metrics;
 	
-	public Emulator(PriorityQueue<HardwareManager> hardwareManagerQueue, int granularityBitsPerMs)
+	public Emulator(Collection<HardwareManager> hardwareManagers, int granularityBitsPerMs)
 			throws HardwareException {
-		this.hardwareManagerQueue = hardwareManagerQueue;
+		this.scheduler = new HardwareScheduler(hardwareManagers);
+		this.blockingDebugEnabled = MachineContext.current().isBlockingDebugEnabled();
 		this.granularityBitsPerSecond = granularityBitsPerMs;
+		this.nsPerUnit = 1_000_000d/(1L<<granularityBitsPerMs);
+		this.paceSliceUnits = Math.max(1L, (long) (PACE_SLICE_NS/nsPerUnit));
+		this.metrics = new EmulatorMetrics(scheduler.getManagers(), nsPerUnit);
 		coldReset();
 	}
 
-	public static void setBlockingDebugEnabled(boolean enabled) {
-		blockingDebugEnabled = enabled;
+	public EmulatorMetrics getMetrics() {
+		return metrics;
 	}
 
 	public void setRealtimeThrottleEnabled(boolean enabled) {
 		realtimeThrottleEnabled = enabled;
 	}
 
+	public void setBatchedExecutionEnabled(boolean enabled) {
+		batchedExecutionEnabled = enabled;
+	}
+
+	/**
+	 * Lets batched managers skip idle loops up to the next competing manager.
+	 * Unless set explicitly, this is enabled only while the realtime throttle is off.
+	 */
+	public void setIdleFastForwardEnabled(boolean enabled) {
+		idleFastForwardOverride = enabled;
+	}
+
+	public boolean isIdleFastForwardEnabled() {
+		return idleFastForwardOverride==null ? !realtimeThrottleEnabled || speed==SPEED_WARP : idleFastForwardOverride;
+	}
+
+	/**
+	 * Sets emulated time per wall clock time for the realtime throttle,
+	 * independent of the clock rates of the managers. May be called from
+	 * other threads while running; takes effect at the next pacing slice.
+	 * @param speed multiple of realtime, or SPEED_WARP to run unthrottled
+	 */
+	public void setSpeed( double speed ) {
+		if( !(speed>0d) )
+			throw new IllegalArgumentException("Speed must be > 0, got "+speed);
+		this.speed = speed;
+	}
+
+	public double getSpeed() {
+		return speed;
+	}
+
+	/**
+	 * Steps to the next of 0.5x, 1x, 2x, 4x and warp, wrapping around.
+	 * @return the new speed
+	 */
+	public double cycleSpeed() {
+		double current = speed;
+		double next = SPEED_PRESETS[0];
+		for( int i = 0; i<SPEED_PRESETS.length; i++ )
+			if( SPEED_PRESETS[i]>current ) {
+				next = SPEED_PRESETS[i];
+				break;
+			}
+		speed = next;
+		return next;
+	}
+
 	public void start() throws HardwareException, InterruptedException {
 		start(-1, null, null);
 	}
@@ -60,8 +126,11 @@ public class Emulator {
 	}
 
 	public long startWithStepPhases( long maxSteps, HardwareManager stepManager, StepPhaseListener stepPhaseListener ) throws HardwareException, InterruptedException {
-		long schedulerStartNs = System.nanoTime();
 		long steps = 0;
+		long paceNextUnits = Long.MIN_VALUE;
+		long paceAnchorUnits = 0;
+		long paceAnchorNs = 0;
+		double paceSpeed = 0d;
 		final long[] lastProgressNs = new long[] { System.nanoTime() };
 		final long[] opStartNs = new long[] { 0L };
 		final long[] lastHangReportNs = new long[] { 0L };
@@ -100,45 +169,60 @@ public class Emulator {
 			hangWatchdog.setDaemon(true);
 			hangWatchdog.start();
 		}
+		// Managers may have been reset or stepped outside the loop since the last run
+		scheduler.refresh();
+		lastRunSlot = -1;
 		try {
 		do {
-			HardwareManager nextManager = hardwareManagerQueue.remove();
-			long clockTime = (System.nanoTime()-schedulerStartNs)/1_000_000L;
-			if( realtimeThrottleEnabled && maxSteps<0 ) {
-				long waitTime = (nextManager.getNextCycleUnits()>>granularityBitsPerSecond)-clockTime;
-				if( waitTime>0 ) {
+			int slot = scheduler.next();
+			HardwareManager nextManager = scheduler.getManager(slot);
+			// Pace once per slice of emulated time; sleeping against a fixed
+			// anchor makes every wakeup correct the drift of the ones before
+			if( realtimeThrottleEnabled && maxSteps<0 && nextManager.getNextCycleUnits()>=paceNextUnits ) {
+				long units = nextManager.getNextCycleUnits();
+				double currentSpeed = speed;
+				long nowNs = paceNanoTime();
+				if( currentSpeed!=paceSpeed ) {
+					paceSpeed = currentSpeed;
+					paceAnchorUnits = units;
+					paceAnchorNs = nowNs;
+				}
+				long waitNs = currentSpeed==SPEED_WARP ? 0L :
+						paceAnchorNs+(long) ((units-paceAnchorUnits)*nsPerUnit/currentSpeed)-nowNs;
+				metrics.recordPace(-waitNs);
+				if( waitNs<-MAX_PACE_LAG_NS ) {
+					paceAnchorUnits = units;
+					paceAnchorNs = nowNs;
+				}
+				else if( waitNs>0 ) {
+					long wakeNs = nowNs+waitNs;
 					if( blockingDebugEnabled ) {
 						currentOperation[0] = "scheduler_sleep("+nextManager.getClass().getSimpleName()+")";
-						opStartNs[0] = System.nanoTime();
-						if( waitTime>=ABNORMAL_SLEEP_REQUEST_MS ) {
+						opStartNs[0] = nowNs;
+						if( waitNs/1_000_000L>=ABNORMAL_SLEEP_REQUEST_MS ) {
 							System.out.println("[debug] scheduler_sleep_request_abnormal manager="+nextManager.getClass().getSimpleName()+
-									" requestedMs="+waitTime+
-									" nextCycleMs="+(nextManager.getNextCycleUnits()>>granularityBitsPerSecond)+
-									" clockMs="+clockTime);
+									" requestedMs="+(waitNs/1_000_000.0)+
+									" speed="+currentSpeed);
 						}
 					}
-					long remainingSleepMs = waitTime;
-					while( remainingSleepMs>0 ) {
-						long chunkMs = Math.min(remainingSleepMs, MAX_SLEEP_CHUNK_MS);
-						if( blockingDebugEnabled ) {
-							long startNs = System.nanoTime();
-							Thread.sleep(chunkMs);
-							long elapsedNs = System.nanoTime()-startNs;
-							long requestedNs = chunkMs * 1_000_000L;
-							long overshootNs = elapsedNs-requestedNs;
-							if( overshootNs>=SLEEP_OVERSHOOT_DEBUG_THRESHOLD_NS ) {
-								System.out.println("[debug] scheduler_sleep_overshoot manager="+nextManager.getClass().getSimpleName()+
-										" requestedMs="+chunkMs+
-										" elapsedMs="+(elapsedNs/1_000_000.0)+
-										" overshootMs="+(overshootNs/1_000_000.0));
-							}
-						}
-						else {
-							Thread.sleep(chunkMs);
+					while( waitNs>0 ) {
+						paceParkNanos(waitNs);
+						if( Thread.interrupted() )
+							throw new InterruptedException();
+						waitNs = wakeNs-paceNanoTime();
+					}
+					metrics.recordSleep(-waitNs);
+					if( blockingDebugEnabled ) {
+						long overshootNs = -waitNs;
+						if( overshootNs>=SLEEP_OVERSHOOT_DEBUG_THRESHOLD_NS ) {
+							System.out.println("[debug] scheduler_sleep_overshoot manager="+nextManager.getClass().getSimpleName()+
+									" requestedMs="+((wakeNs-opStartNs[0])/1_000_000.0)+
+									" elapsedMs="+((System.nanoTime()-opStartNs[0])/1_000_000.0)+
+									" overshootMs="+(overshootNs/1_000_000.0));
 						}
-						remainingSleepMs -= chunkMs;
 					}
 				}
+				paceNextUnits = units+paceSliceUnits;
 			}
 			if( maxSteps>=0 && nextManager==stepManager ) {
 				long stepNumber = steps+1;
@@ -159,17 +243,18 @@ public class Emulator {
 					else
 						continueRun = stepPhaseListener.onStepPhase(stepNumber, nextManager, true);
 				}
-				if( !continueRun ) {
-					hardwareManagerQueue.add(nextManager);
+				if( !continueRun )
 					break;
-				}
 				steps = stepNumber;
 			}
+			long unitsBefore = nextManager.getNextCycleUnits();
+			boolean sampleWall = metrics.sampleRun(slot);
+			long runStartNs = sampleWall ? System.nanoTime() : 0L;
 			if( blockingDebugEnabled ) {
 				currentOperation[0] = "manager_cycle("+nextManager.getClass().getSimpleName()+")";
 				opStartNs[0] = System.nanoTime();
 				long startNs = System.nanoTime();
-				nextManager.cycle();
+				runManager(slot, nextManager, maxSteps, stepManager);
 				long elapsedNs = System.nanoTime()-startNs;
 				long cycleThresholdNs = getManagerCycleDebugThresholdNs(nextManager);
 				if( elapsedNs>=cycleThresholdNs ) {
@@ -178,8 +263,12 @@ public class Emulator {
 				}
 			}
 			else {
-				nextManager.cycle();
+				runManager(slot, nextManager, maxSteps, stepManager);
 			}
+			long unitsAfter = nextManager.getNextCycleUnits();
+			long unitsPerCycle = nextManager.getUnitsPerCycle();
+			metrics.recordRun(slot, unitsPerCycle>0 ? (unitsAfter-unitsBefore)/unitsPerCycle : 0L, unitsAfter,
+					sampleWall ? System.nanoTime()-runStartNs : 0L);
 			if( maxSteps>=0 && nextManager==stepManager ) {
 				boolean continueRun = true;
 				if( stepPhaseListener!=null ) {
@@ -199,15 +288,15 @@ public class Emulator {
 						continueRun = stepPhaseListener.onStepPhase(steps, nextManager, false);
 				}
 				if( !continueRun ) {
-					hardwareManagerQueue.add(nextManager);
+					scheduler.update(slot);
 					break;
 				}
 				if( steps>=maxSteps ) {
-					hardwareManagerQueue.add(nextManager);
+					scheduler.update(slot);
 					break;
 				}
 			}
-			hardwareManagerQueue.add(nextManager);
+			scheduler.update(slot);
 			if( blockingDebugEnabled ) {
 				lastProgressNs[0] = System.nanoTime();
 				currentOperation[0] = "idle";
@@ -216,12 +305,47 @@ public class Emulator {
 		} while(true);
 		}
 		finally {
+			metrics.publish();
 			if( hangWatchdog!=null )
 				hangWatchdog.interrupt();
 		}
 		return steps;
 	}
 
+	/**
+	 * Clock realtime pacing runs against; tests may substitute a virtual one.
+	 */
+	protected long paceNanoTime() {
+		return System.nanoTime();
+	}
+
+	/**
+	 * Waits for at most the given time while pacing; may return early.
+	 */
+	protected void paceParkNanos( long waitNs ) {
+		LockSupport.parkNanos(waitNs);
+	}
+
+	private void runManager( int slot, HardwareManager manager, long maxSteps, HardwareManager stepManager ) throws HardwareException {
+		boolean resumed = slot==lastRunSlot;
+		lastRunSlot = slot;
+		// Stepped managers must cycle once per step so listeners observe every event
+		if( !batchedExecutionEnabled || (maxSteps>=0 && manager==stepManager) ) {
+			manager.cycle();
+			return;
+		}
+		long batchLimit = manager.getNextCycleUnits()+manager.getUnitsPerCycle()*MAX_BATCH_CYCLES;
+		long competing = scheduler.getCompetingCycleUnits(slot);
+		long deadline = Math.min(competing, batchLimit);
+		if( isIdleFastForwardEnabled() ) {
+			// Without pacing, skips go straight to the next competing manager
+			long skipDeadline = realtimeThrottleEnabled || competing==Long.MAX_VALUE ? deadline : competing;
+			manager.fastForwardUntil(deadline, skipDeadline, resumed);
+		}
+		else
+			manager.runUntil(deadline);
+	}
+
 	private static long getManagerCycleDebugThresholdNs(HardwareManager manager) {
 		String managerName = manager.getClass().getSimpleName();
 		if( "Speaker1Bit".equals(managerName) )
@@ -230,9 +354,9 @@ public class Emulator {
 	}
 
 	public void coldReset() throws HardwareException {
-		HardwareManager[] managerList = new HardwareManager[hardwareManagerQueue.size()];
-		for( HardwareManager manager : hardwareManagerQueue.toArray(managerList) )
+		for( HardwareManager manager : scheduler.getManagers() )
 			manager.coldReset();
+		scheduler.refresh();
 	}
 
 }
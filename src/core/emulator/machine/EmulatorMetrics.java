@@ -0,0 +1,290 @@
+package core.emulator.machine;
+
+import java.io.File;
+import java.io.FileWriter;
+import java.io.IOException;
+import java.io.PrintWriter;
+import java.lang.management.ManagementFactory;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.LongSupplier;
+
+import javax.management.JMException;
+import javax.management.MBeanServer;
+import javax.management.ObjectName;
+
+import core.emulator.HardwareManager;
+
+/**
+ * Always-on counters of one emulator. Counters are plain fields written only
+ * by the emulator thread; every PUBLISH_MASK+1 manager runs, and when a run
+ * ends, they are copied into an immutable snapshot, which is all that JMX and
+ * the periodic file dump ever read.
+ */
+public final class EmulatorMetrics implements EmulatorMetricsMXBean {
+
+	private static final AtomicInteger NEXT_MACHINE = new AtomicInteger();
+	private static final int WALL_SAMPLE_MASK = 0x3f;  // Time one run in 64 of each manager
+	private static final int PUBLISH_MASK = 0xffff;
+	private static final long[] OVERSHOOT_BUCKET_MICROS = { 100, 500, 1_000, 2_000, 5_000, 10_000, 20_000 };
+
+	private static final class Snapshot {
+		private final long timeMillis;
+		private final long[] managerCycles;
+		private final long[] managerWallNanos;
+		private final double driftMillis;
+		private final double maxDriftMillis;
+		private final double emulatedSpeed;
+		private final long sleepCount;
+		private final long[] overshootHistogram;
+		private final Map<String, Long> deviceGauges;
+
+		Snapshot( long timeMillis, long[] managerCycles, long[] managerWallNanos, double driftMillis,
+				double maxDriftMillis, double emulatedSpeed, long sleepCount, long[] overshootHistogram,
+				Map<String, Long> deviceGauges ) {
+			this.timeMillis = timeMillis;
+			this.managerCycles = managerCycles;
+			this.managerWallNanos = managerWallNanos;
+			this.driftMillis = driftMillis;
+			this.maxDriftMillis = maxDriftMillis;
+			this.emulatedSpeed = emulatedSpeed;
+			this.sleepCount = sleepCount;
+			this.overshootHistogram = overshootHistogram;
+			this.deviceGauges = deviceGauges;
+		}
+	}
+
+	private final String machineName = "machine"+NEXT_MACHINE.getAndIncrement();
+	private final String[] managerNames;
+	private final double nsPerUnit;
+	private final Map<String, LongSupplier> gauges = new LinkedHashMap<>();
+
+	private final long[] managerCycles;
+	private final long[] managerWallNanos;
+	// Counted per slot, so managers taking turns in a period dividing 64 are all sampled
+	private final long[] managerRuns;
+	private long runCount;
+	private long lastUnits;
+	private double driftNs;
+	private double maxDriftNs;
+	private long sleepCount;
+	private final long[] overshootHistogram = new long[OVERSHOOT_BUCKET_MICROS.length+1];
+	private long publishedUnits = -1;
+	private long publishedNs;
+
+	private volatile Snapshot snapshot;
+	private ObjectName registeredName;
+
+	EmulatorMetrics( HardwareManager[] managers, double nsPerUnit ) {
+		this.managerNames = new String[managers.length];
+		for( int slot = 0; slot<managers.length; slot++ )
+			managerNames[slot] = managers[slot].getClass().getSimpleName();
+		this.nsPerUnit = nsPerUnit;
+		this.managerCycles = new long[managers.length];
+		this.managerWallNanos = new long[managers.length];
+		this.managerRuns = new long[managers.length];
+		publish();
+	}
+
+	/**
+	 * Adds a device counter read on the emulator thread whenever a snapshot
+	 * is published. Must be called before the emulator starts.
+	 */
+	public void addGauge( String name, LongSupplier gauge ) {
+		gauges.put(name, gauge);
+	}
+
+	/**
+	 * Counts a run of the manager in the given slot about to start.
+	 * @return whether the run should be timed for the wall time sample
+	 */
+	boolean sampleRun( int slot ) {
+		return (++managerRuns[slot]&WALL_SAMPLE_MASK)==0;
+	}
+
+	void recordRun( int slot, long cycles, long units, long sampledWallNs ) {
+		managerCycles[slot] += cycles;
+		managerWallNanos[slot] += sampledWallNs*(WALL_SAMPLE_MASK+1);
+		lastUnits = units;
+		if( (++runCount&PUBLISH_MASK)==0 )
+			publish();
+	}
+
+	/**
+	 * @param lagNs how far behind its deadline a pacing slice started, negative when ahead
+	 */
+	void recordPace( long lagNs ) {
+		driftNs = lagNs;
+		if( lagNs>maxDriftNs )
+			maxDriftNs = lagNs;
+	}
+
+	void recordSleep( long overshootNs ) {
+		sleepCount++;
+		long micros = overshootNs/1_000L;
+		int bucket = 0;
+		while( bucket<OVERSHOOT_BUCKET_MICROS.length && micros>=OVERSHOOT_BUCKET_MICROS[bucket] )
+			bucket++;
+		overshootHistogram[bucket]++;
+	}
+
+	/**
+	 * Copies the counters into the snapshot read by JMX and the file dump.
+	 */
+	void publish() {
+		long nowNs = System.nanoTime();
+		double emulatedSpeed = 0d;
+		if( publishedUnits>=0 && nowNs>publishedNs )
+			emulatedSpeed = (lastUnits-publishedUnits)*nsPerUnit/(nowNs-publishedNs);
+		publishedUnits = lastUnits;
+		publishedNs = nowNs;
+		Map<String, Long> deviceGauges = new LinkedHashMap<>();
+		for( Map.Entry<String, LongSupplier> gauge : gauges.entrySet() )
+			deviceGauges.put(gauge.getKey(), gauge.getValue().getAsLong());
+		snapshot = new Snapshot(System.currentTimeMillis(), managerCycles.clone(), managerWallNanos.clone(),
+				driftNs/1_000_000d, maxDriftNs/1_000_000d, emulatedSpeed, sleepCount, overshootHistogram.clone(),
+				Collections.unmodifiableMap(deviceGauges));
+	}
+
+	public String getMachineName() {
+		return machineName;
+	}
+
+	public synchronized void register() throws JMException {
+		if( registeredName!=null )
+			return;
+		ObjectName name = new ObjectName("ever2e:type=Emulator,name="+machineName);
+		MBeanServer server = ManagementFactory.getPlatformMBeanServer();
+		server.registerMBean(this, name);
+		registeredName = name;
+	}
+
+	public synchronized void unregister() throws JMException {
+		if( registeredName==null )
+			return;
+		ManagementFactory.getPlatformMBeanServer().unregisterMBean(registeredName);
+		registeredName = null;
+	}
+
+	/**
+	 * Rewrites the file with the latest snapshot every interval from a daemon
+	 * thread, and once more at JVM shutdown.
+	 */
+	public Thread startFileDump( File file, long intervalMs ) {
+		Thread dumper = new Thread(() -> {
+			while( !Thread.currentThread().isInterrupted() ) {
+				try {
+					Thread.sleep(intervalMs);
+					writeFile(file);
+				}
+				catch( InterruptedException e ) {
+					Thread.currentThread().interrupt();
+				}
+				catch( IOException e ) {
+					System.err.println("Warning: Unable to write metrics file "+file+": "+e.getMessage());
+				}
+			}
+		}, "EmulatorMetricsDump-"+machineName);
+		dumper.setDaemon(true);
+		dumper.start();
+		// Keep the final snapshot of runs that end between dumps
+		Runtime.getRuntime().addShutdownHook(new Thread(() -> {
+			try {
+				writeFile(file);
+			}
+			catch( IOException e ) {
+				System.err.println("Warning: Unable to write metrics file "+file+": "+e.getMessage());
+			}
+		}, "EmulatorMetricsFinalDump-"+machineName));
+		return dumper;
+	}
+
+	public void writeFile( File file ) throws IOException {
+		File temp = new File(file.getPath()+".tmp");
+		try( PrintWriter out = new PrintWriter(new FileWriter(temp)) ) {
+			writeText(out);
+		}
+		Files.move(temp.toPath(), file.toPath(), StandardCopyOption.REPLACE_EXISTING);
+	}
+
+	public void writeText( PrintWriter out ) {
+		Snapshot current = snapshot;
+		out.println("machine="+machineName);
+		out.println("snapshot_time_ms="+current.timeMillis);
+		for( int slot = 0; slot<managerNames.length; slot++ )
+			out.println("manager."+slot+"."+managerNames[slot]+" cycles="+current.managerCycles[slot]+
+					" wall_ms="+current.managerWallNanos[slot]/1_000_000L);
+		out.println("drift_ms="+current.driftMillis);
+		out.println("max_drift_ms="+current.maxDriftMillis);
+		out.println("emulated_speed="+current.emulatedSpeed);
+		out.println("sleeps="+current.sleepCount);
+		for( int bucket = 0; bucket<current.overshootHistogram.length; bucket++ )
+			out.println("sleep_overshoot_us"+(bucket<OVERSHOOT_BUCKET_MICROS.length ?
+					"<"+OVERSHOOT_BUCKET_MICROS[bucket] : ">="+OVERSHOOT_BUCKET_MICROS[bucket-1])+
+					"="+current.overshootHistogram[bucket]);
+		for( Map.Entry<String, Long> gauge : current.deviceGauges.entrySet() )
+			out.println(gauge.getKey()+"="+gauge.getValue());
+		out.flush();
+	}
+
+	@Override
+	public long getSnapshotTimeMillis() {
+		return snapshot.timeMillis;
+	}
+
+	@Override
+	public String[] getManagerNames() {
+		return managerNames.clone();
+	}
+
+	@Override
+	public long[] getManagerCycles() {
+		return snapshot.managerCycles.clone();
+	}
+
+	@Override
+	public long[] getManagerWallNanos() {
+		return snapshot.managerWallNanos.clone();
+	}
+
+	@Override
+	public double getDriftMillis() {
+		return snapshot.driftMillis;
+	}
+
+	@Override
+	public double getMaxDriftMillis() {
+		return snapshot.maxDriftMillis;
+	}
+
+	@Override
+	public double getEmulatedSpeed() {
+		return snapshot.emulatedSpeed;
+	}
+
+	@Override
+	public long getSleepCount() {
+		return snapshot.sleepCount;
+	}
+
+	@Override
+	public long[] getSleepOvershootBucketMicros() {
+		return Arrays.copyOf(OVERSHOOT_BUCKET_MICROS, OVERSHOOT_BUCKET_MICROS.length);
+	}
+
+	@Override
+	public long[] getSleepOvershootHistogram() {
+		return snapshot.overshootHistogram.clone();
+	}
+
+	@Override
+	public Map<String, Long> getDeviceGauges() {
+		return snapshot.deviceGauges;
+	}
+
+}
@@ -0,0 +1,45 @@
+package core.emulator.machine;
+
+import java.util.Map;
+
+/**
+ * JMX view of one emulator's metrics. Values come from the last snapshot the
+ * emulator thread published, so they may lag the running machine slightly.
+ */
+public interface EmulatorMetricsMXBean {
+
+	long getSnapshotTimeMillis();
+
+	String[] getManagerNames();
+
+	long[] getManagerCycles();
+
+	/**
+	 * @return wall time per manager extrapolated from sampled runs
+	 */
+	long[] getManagerWallNanos();
+
+	/**
+	 * @return how far the last pacing slice was behind its deadline, negative when ahead
+	 */
+	double getDriftMillis();
+
+	double getMaxDriftMillis();
+
+	/**
+	 * @return emulated time per wall time since the previous snapshot
+	 */
+	double getEmulatedSpeed();
+
+	long getSleepCount();
+
+	long[] getSleepOvershootBucketMicros();
+
+	long[] getSleepOvershootHistogram();
+
+	/**
+	 * @return device counters such as frames rendered, audio underruns or keyboard queue depth
+	 */
+	Map<String, Long> getDeviceGauges();
+
+}
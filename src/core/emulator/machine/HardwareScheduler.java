@@ -0,0 +1,82 @@
+package core.emulator.machine;
+
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Comparator;
+
+import core.emulator.HardwareManager;
+
+/**
+ * Picks the hardware manager due next for the emulator loop.
+ * Machines only have a handful of managers, so their next cycle times are
+ * kept in a long[] and scanned linearly instead of going through a heap of
+ * Comparable objects. Slots are ordered by manager creation, so managers due
+ * at the same time run in the same stable order HardwareManager.compareTo
+ * defines.
+ * The cached time of a manager is only refreshed by update, which the
+ * emulator calls after running it; managers only ever move their own time.
+ */
+public final class HardwareScheduler {
+
+	private final HardwareManager[] managers;
+	private final long[] nextCycleUnits;
+
+	public HardwareScheduler( Collection<HardwareManager> managers ) {
+		this.managers = managers.toArray(new HardwareManager[0]);
+		// Creation order breaks ties; compareTo of equal times is by id
+		Arrays.sort(this.managers, Comparator.comparingLong(HardwareManager::getId));
+		this.nextCycleUnits = new long[this.managers.length];
+		refresh();
+	}
+
+	/**
+	 * Reloads the next cycle time of every manager.
+	 */
+	public void refresh() {
+		for( int slot = 0; slot<managers.length; slot++ )
+			nextCycleUnits[slot] = managers[slot].getNextCycleUnits();
+	}
+
+	public void update( int slot ) {
+		nextCycleUnits[slot] = managers[slot].getNextCycleUnits();
+	}
+
+	/**
+	 * @return slot of the manager due first, the lowest slot among equals
+	 */
+	public int next() {
+		int best = 0;
+		long bestUnits = nextCycleUnits[0];
+		for( int slot = 1; slot<nextCycleUnits.length; slot++ )
+			if( nextCycleUnits[slot]<bestUnits ) {
+				best = slot;
+				bestUnits = nextCycleUnits[slot];
+			}
+		return best;
+	}
+
+	/**
+	 * @return earliest next cycle time of the managers other than the given
+	 *         slot, or Long.MAX_VALUE when it runs alone
+	 */
+	public long getCompetingCycleUnits( int slot ) {
+		long units = Long.MAX_VALUE;
+		for( int other = 0; other<nextCycleUnits.length; other++ )
+			if( other!=slot && nextCycleUnits[other]<units )
+				units = nextCycleUnits[other];
+		return units;
+	}
+
+	public HardwareManager getManager( int slot ) {
+		return managers[slot];
+	}
+
+	public int size() {
+		return managers.length;
+	}
+
+	public HardwareManager[] getManagers() {
+		return managers.clone();
+	}
+
+}
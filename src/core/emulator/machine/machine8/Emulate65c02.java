@@ -1,6 +1,6 @@
 package core.emulator.machine.machine8;
 
-import java.util.PriorityQueue;
+import java.util.Collection;
 
 import core.exception.HardwareException;
 import core.emulator.HardwareManager;
@@ -8,9 +8,9 @@ import core.emulator.machine.Emulator;
 
 public class Emulate65c02 extends Emulator {
 
-	public Emulate65c02(PriorityQueue<HardwareManager> hardwareManagerQueue,
+	public Emulate65c02(Collection<HardwareManager> hardwareManagers,
 			int granularityBitsPerMs) throws HardwareException {
-		super(hardwareManagerQueue, granularityBitsPerMs);
+		super(hardwareManagers, granularityBitsPerMs);
 	}
 
 /*	@Override
@@ -1,5 +1,8 @@
 package core.emulator.machine.machine8;
 
+import java.io.BufferedOutputStream;
+import java.io.File;
+import java.io.FileOutputStream;
 import java.io.IOException;
 import java.io.PrintWriter;
 import java.io.FileWriter;
@@ -10,24 +13,32 @@ import java.nio.file.Files;
 import java.nio.file.Paths;
 import java.awt.GraphicsEnvironment;
 import java.text.DecimalFormat;
-import java.util.Arrays;
+import java.util.Collection;
 import java.util.LinkedHashSet;
 import java.util.PriorityQueue;
 import java.util.Set;
 
+import javax.management.JMException;
 
 import peripherals.PeripheralIIe;
 import core.cpu.cpu8.Cpu65c02;
+import core.cpu.cpu8.Cpu65c02Profile;
 import core.cpu.cpu8.Opcode;
+import core.emulator.CyclePrecisionSource;
 import core.emulator.HardwareManager;
+import core.emulator.MachineContext;
 import core.emulator.VirtualMachineProperties;
 import core.emulator.VirtualMachineProperties.MachineLayoutType;
 import core.emulator.machine.Emulator;
+import core.emulator.machine.EmulatorMetrics;
 import core.exception.HardwareException;
 import core.memory.memory8.Memory8;
 import core.memory.memory8.MemoryBus8;
 import core.memory.memory8.MemoryBusDemo8;
 import core.memory.memory8.MemoryBusIIe;
+import core.memory.memory8.MemoryBusIIeHeatmap;
+import core.memory.memory8.SharedRomStore;
+import core.memory.memory8.OffHeapMemory8;
 import device.display.Display32x32;
 import device.display.Display32x32Console;
 import device.display.DisplayConsoleAppleIIe;
@@ -45,6 +56,8 @@ public class Emulator8Coordinator {
 	private static final boolean ENABLE_STARTUP_JIT_PRIME = true;
 	private static final int STARTUP_JIT_PRIME_STEPS = 300000;
 	private static final long MONITOR_BLOCKING_DEBUG_THRESHOLD_NS = 2_000_000L; // 2ms
+	private static final int DEFAULT_PROFILE_TOP_COUNT = 20;
+	private static final long DEFAULT_METRICS_INTERVAL_MS = 1000L;
 
 	private static int parseByteArg(String value, String argName) {
 		String raw = value.trim();
@@ -63,6 +76,59 @@ public class Emulator8Coordinator {
 		return parsed;
 	}
 
+	private static long parseMetricsInterval(String value) {
+		long parsed = Long.parseLong(value.trim());
+		if( parsed<=0 )
+			throw new IllegalArgumentException("--metrics-interval-ms must be > 0, got "+value);
+		return parsed;
+	}
+
+	private static void registerMetrics(EmulatorMetrics metrics, Collection<HardwareManager> managers,
+			KeyboardIIe keyboard, String metricsFile, long metricsIntervalMs) {
+		for( HardwareManager manager : managers ) {
+			if( manager instanceof Cpu65c02 ) {
+				Cpu65c02 cpu = (Cpu65c02) manager;
+				metrics.addGauge("cpu_atomic_instructions", cpu::getAtomicInstructionCount);
+				metrics.addGauge("cpu_io_cycle_exact_instructions", cpu::getIoCycleExactInstructionCount);
+				metrics.addGauge("cpu_device_cycle_exact_instructions", cpu::getDeviceCycleExactInstructionCount);
+				metrics.addGauge("cpu_cycle_exact_instructions", cpu::getCycleExactInstructionCount);
+			}
+			else if( manager instanceof DisplayIIe ) {
+				DisplayIIe display = (DisplayIIe) manager;
+				metrics.addGauge("frames_rendered", display::getFramesRendered);
+				metrics.addGauge("frames_dropped", display::getFramesDropped);
+			}
+			else if( manager instanceof Speaker1Bit )
+				metrics.addGauge("audio_underruns", ((Speaker1Bit) manager)::getUnderruns);
+		}
+		if( keyboard!=null )
+			metrics.addGauge("keyboard_queue_depth", keyboard::getQueuedKeyDepth);
+		try {
+			metrics.register();
+		}
+		catch( JMException e ) {
+			System.out.println("Warning: Metrics MBean unavailable: "+e.getMessage());
+		}
+		if( metricsFile!=null )
+			metrics.startFileDump(new File(metricsFile), metricsIntervalMs);
+	}
+
+	private static double parseSpeedArg(String value) {
+		String raw = value.trim().toLowerCase();
+		if( "warp".equals(raw) || "unlimited".equals(raw) )
+			return Emulator.SPEED_WARP;
+		if( raw.endsWith("x") )
+			raw = raw.substring(0, raw.length()-1);
+		double parsed = Double.parseDouble(raw);
+		if( !(parsed>0d) || Double.isInfinite(parsed) )
+			throw new IllegalArgumentException("--speed must be > 0 or warp, got "+value);
+		return parsed;
+	}
+
+	private static String describeSpeed(double speed) {
+		return speed==Emulator.SPEED_WARP ? "warp" : speed+"x";
+	}
+
 	private static int parseWordArg(String value, String argName) {
 		String raw = value.trim();
 		int parsed;
@@ -137,29 +203,56 @@ public class Emulator8Coordinator {
 				" elapsedMs="+(elapsedNs/1_000_000.0));
 	}
 
-	private static void loadProgramImage(VirtualMachineProperties properties, Memory8 memory, MemoryBus8 bus, byte[] rom16k) {
-		Arrays.fill(rom16k, (byte) 0);
-		byte [] program = properties.getCode();
+	/**
+	 * machine.memory.backing selects heap (default) or offheap RAM, and
+	 * machine.memory.file maps offheap RAM from a file other tools can read.
+	 */
+	private static Memory8 createMemory(VirtualMachineProperties properties, int size) throws IOException {
+		String backing = properties.getProperty("machine.memory.backing", "heap").trim().toLowerCase();
+		String file = properties.getProperty("machine.memory.file", "").trim();
+		if( "heap".equals(backing) ) {
+			if( !file.isEmpty() )
+				throw new IllegalArgumentException("machine.memory.file requires machine.memory.backing=offheap");
+			return new Memory8(size);
+		}
+		if( !"offheap".equals(backing) )
+			throw new IllegalArgumentException("Unsupported machine.memory.backing value: "+backing+" (expected heap or offheap)");
+		return file.isEmpty() ? new OffHeapMemory8(size) : new OffHeapMemory8(size, Paths.get(file));
+	}
 
-		// Set up initial ROM or RAM program
+	/**
+	 * Builds the internal ROM from the part of the program image at or above
+	 * $C000, plus the reset vector when the image does not supply one.
+	 * @return image shared with other machines built from the same program
+	 */
+	private static byte[] buildRomImage(VirtualMachineProperties properties) {
+		byte[] rom16k = new byte[0x4000];
+		byte [] program = properties.getCode();
 		int addr = properties.getProgramStart();
-		for( byte opcode : program ) {
-			if( bus.getClass()==MemoryBusIIe.class && addr>=MemoryBusIIe.ROM_START )
-				rom16k[addr-MemoryBusIIe.ROM_START] = opcode;
-			else
-				memory.setByte(addr, opcode);
-			addr++;
+		int romStart = Math.max(addr, MemoryBusIIe.ROM_START);
+		if( addr+program.length>romStart )
+			System.arraycopy(program, romStart-addr, rom16k, romStart-MemoryBusIIe.ROM_START, addr+program.length-romStart);
+		if( program.length+addr<0xfffd ) {
+			rom16k[0xfffc-MemoryBusIIe.ROM_START] = (byte) addr;
+			rom16k[0xfffd-MemoryBusIIe.ROM_START] = (byte) (addr>>8);
 		}
+		return SharedRomStore.intern(rom16k);
+	}
+
+	private static void loadProgramImage(VirtualMachineProperties properties, Memory8 memory, MemoryBus8 bus) {
+		byte [] program = properties.getCode();
+
+		// Set up initial RAM program; the ROM part is already in the bus ROM image
+		int addr = properties.getProgramStart();
+		int ramLength = program.length;
+		if( bus instanceof MemoryBusIIe )
+			ramLength = Math.max(0, Math.min(program.length, MemoryBusIIe.ROM_START-addr));
+		memory.writeBlock(addr, program, 0, ramLength);
 
 		// Set program start
-		if( properties.getCode().length+properties.getProgramStart()<0xfffd ) {
-			if( bus.getClass()==MemoryBusIIe.class ) {
-				rom16k[0xfffc-MemoryBusIIe.ROM_START] = (byte) properties.getProgramStart();
-				rom16k[0xfffd-MemoryBusIIe.ROM_START] = (byte) (properties.getProgramStart()>>8);
-			} else {
-				memory.setByte(0xfffc, properties.getProgramStart());
-				memory.setByte(0xfffd, properties.getProgramStart()>>8);
-			}
+		if( properties.getCode().length+properties.getProgramStart()<0xfffd && !(bus instanceof MemoryBusIIe) ) {
+			memory.setByte(0xfffc, properties.getProgramStart());
+			memory.setByte(0xfffd, properties.getProgramStart()>>8);
 		}
 	}
 
@@ -188,6 +281,16 @@ public class Emulator8Coordinator {
 		Integer resetYValue = null;
 		Integer resetSValue = null;
 		boolean floatingBusOpcodeTiming = false;
+		boolean jitEnabled = false;
+		boolean cycleExact = false;
+		boolean adaptiveAccuracy = true;
+		boolean idleFastForward = false;
+		double speed = 1d;
+		String profileFile = null;
+		int profileTopCount = DEFAULT_PROFILE_TOP_COUNT;
+		String heatmapFile = null;
+		String metricsFile = null;
+		long metricsIntervalMs = DEFAULT_METRICS_INTERVAL_MS;
 		Integer dumpPageAddress = null;
 		int dumpRangeStart = -1;
 		int dumpRangeEnd = -1;
@@ -240,6 +343,66 @@ public class Emulator8Coordinator {
 			else if( "--no-sound".equals(arg) ) {
 				noSound = true;
 			}
+			else if( "--jit".equals(arg) ) {
+				jitEnabled = true;
+			}
+			else if( "--cycle-exact".equals(arg) ) {
+				cycleExact = true;
+			}
+			else if( "--no-adaptive-accuracy".equals(arg) ) {
+				adaptiveAccuracy = false;
+			}
+			else if( "--idle-fast-forward".equals(arg) ) {
+				idleFastForward = true;
+			}
+			else if( "--speed".equals(arg) ) {
+				if( i+1>=argList.length )
+					throw new IllegalArgumentException("Missing value for --speed");
+				speed = parseSpeedArg(argList[++i]);
+			}
+			else if( arg.startsWith("--speed=") ) {
+				speed = parseSpeedArg(arg.substring("--speed=".length()));
+			}
+			else if( "--profile-file".equals(arg) ) {
+				if( i+1>=argList.length )
+					throw new IllegalArgumentException("Missing value for --profile-file");
+				profileFile = argList[++i];
+			}
+			else if( arg.startsWith("--profile-file=") ) {
+				profileFile = arg.substring("--profile-file=".length());
+			}
+			else if( "--heatmap-file".equals(arg) ) {
+				if( i+1>=argList.length )
+					throw new IllegalArgumentException("Missing value for --heatmap-file");
+				heatmapFile = argList[++i];
+			}
+			else if( arg.startsWith("--heatmap-file=") ) {
+				heatmapFile = arg.substring("--heatmap-file=".length());
+			}
+			else if( "--metrics-file".equals(arg) ) {
+				if( i+1>=argList.length )
+					throw new IllegalArgumentException("Missing value for --metrics-file");
+				metricsFile = argList[++i];
+			}
+			else if( arg.startsWith("--metrics-file=") ) {
+				metricsFile = arg.substring("--metrics-file=".length());
+			}
+			else if( "--metrics-interval-ms".equals(arg) ) {
+				if( i+1>=argList.length )
+					throw new IllegalArgumentException("Missing value for --metrics-interval-ms");
+				metricsIntervalMs = parseMetricsInterval(argList[++i]);
+			}
+			else if( arg.startsWith("--metrics-interval-ms=") ) {
+				metricsIntervalMs = parseMetricsInterval(arg.substring("--metrics-interval-ms=".length()));
+			}
+			else if( "--profile-top".equals(arg) ) {
+				if( i+1>=argList.length )
+					throw new IllegalArgumentException("Missing value for --profile-top");
+				profileTopCount = Integer.parseInt(argList[++i]);
+			}
+			else if( arg.startsWith("--profile-top=") ) {
+				profileTopCount = Integer.parseInt(arg.substring("--profile-top=".length()));
+			}
 			else if( "--no-logging".equals(arg) ) {
 				debugLogging = false;
 			}
@@ -383,16 +546,16 @@ public class Emulator8Coordinator {
 				propertiesFile = arg;
 			}
 		}
-		Emulator.setBlockingDebugEnabled(debugLogging);
-		Speaker1Bit.setBlockingDebugEnabled(debugLogging);
-		KeyboardIIe.setKeyLoggingEnabled(keyLogging);
-		DisplayIIe.setKeyLoggingEnabled(keyLogging);
-		DisplayIIe.setWindowBackend(windowBackend);
-		DisplayIIe.setStartFullscreenOnLaunch(startFullscreen);
-		DisplayIIe.setSdlTextInputMode(textInputMode);
-		DisplayIIe.setSdlFullscreenMode(sdlFullscreenMode);
-		DisplayIIe.setSdlImeUiSelfImplemented(sdlImeUiSelf);
-		DisplayIIe.setSdlTextAnchorDebug(debugLogging);
+		// Hardware built below binds to this machine's context
+		MachineContext context = MachineContext.begin();
+		context.setBlockingDebugEnabled(debugLogging);
+		context.setKeyLoggingEnabled(keyLogging);
+		context.setWindowBackend(windowBackend);
+		context.setStartFullscreenOnLaunch(startFullscreen);
+		context.setSdlTextInputMode(textInputMode);
+		context.setSdlFullscreenMode(sdlFullscreenMode);
+		context.setSdlImeUiSelfImplemented(sdlImeUiSelf);
+		context.setSdlTextAnchorDebug(debugLogging);
 		if( debugLogging ) {
 			System.err.println("[debug] launch_config windowBackend="+windowBackend+
 					" startFullscreen="+startFullscreen+
@@ -425,8 +588,8 @@ public class Emulator8Coordinator {
 
 		// Set up machine based on layout selection
 		
-		byte[] rom16k = new byte[0x4000];
-		Memory8 memory = new Memory8(0x20000);
+		byte[] rom16k = buildRomImage(properties);
+		Memory8 memory = createMemory(properties, 0x20000);
 		MemoryBus8 bus;
 		Cpu65c02 cpu;
 			KeyboardIIe keyboard = null;
@@ -468,7 +631,7 @@ public class Emulator8Coordinator {
 			((MemoryBusIIe) bus).setDisplay(null);
 			hardwareManagerQueue.add(keyboard);
 		} else {
-			bus = new MemoryBusIIe(memory, rom16k);
+			bus = heatmapFile!=null ? new MemoryBusIIeHeatmap(memory, rom16k) : new MemoryBusIIe(memory, rom16k);
 			bus.coldReset();
 			hardwareManagerQueue.add(cpu = new Cpu65c02((MemoryBusIIe) bus, (long) (unitsPerCycle/cpuMultiplier)));
 			cpu.coldReset();
@@ -487,6 +650,11 @@ public class Emulator8Coordinator {
 			else {
 				DisplayIIe windowDisplay = new DisplayIIe((MemoryBusIIe) bus, keyboard, (long) (unitsPerCycle/displayMultiplier));
 				windowDisplay.setShowFps(showFps);
+				if( !floatingBusOpcodeTiming ) {
+					// Rendered in bulk on reads, video switch changes and VBL edges
+					windowDisplay.setClock(cpu, Cpu65c02.INTERRUPT_RES.getCycleTime());
+					((MemoryBusIIe) bus).addCatchUpDevice(windowDisplay);
+				}
 				display = windowDisplay;
 				hardwareManagerQueue.add(windowDisplay);
 			}
@@ -502,10 +670,19 @@ public class Emulator8Coordinator {
 				}
 			((MemoryBusIIe) bus).setKeyboard(keyboard);
 			((MemoryBusIIe) bus).setDisplay(display);
+			if( headlessProbe!=null && !floatingBusOpcodeTiming ) {
+				// Caught up to the CPU on reads and video switch changes instead of every step
+				headlessProbe.setClock(cpu, Cpu65c02.INTERRUPT_RES.getCycleTime());
+				((MemoryBusIIe) bus).addCatchUpDevice(headlessProbe);
+				hardwareManagerQueue.add(headlessProbe);
+			}
 			hardwareManagerQueue.add(keyboard);
 		}
 
-		loadProgramImage(properties, memory, bus, rom16k);
+		cpu.setJitEnabled(jitEnabled);
+		cpu.setCycleExactEnabled(cycleExact);
+		cpu.setAdaptiveAccuracyEnabled(adaptiveAccuracy);
+		loadProgramImage(properties, memory, bus);
 
 		System.out.println();
 		
@@ -522,7 +699,7 @@ public class Emulator8Coordinator {
 							getConstructor(int.class, long.class, VirtualMachineProperties.class).newInstance(
 									slot, (long) unitsPerCycle, properties);
 					card = ((MemoryBusIIe) bus).setSlot(slot, peripheralCard);
-					((MemoryBusIIe) bus).setSlotRom(slot, card==null ? null:card.getRom256b());
+					((MemoryBusIIe) bus).setSlotRom(slot, card==null ? null:SharedRomStore.intern(card.getRom256b()));
 					if( card!=null )
 						hardwareManagerQueue.add(card);
 				} catch ( Exception e ) {
@@ -537,10 +714,21 @@ public class Emulator8Coordinator {
 				}
 		}
 		
+		// Speaker and disk controllers ask for cycle-exact execution while active
+		for( HardwareManager manager : hardwareManagerQueue )
+			if( manager instanceof CyclePrecisionSource )
+				cpu.addCyclePrecisionSource((CyclePrecisionSource) manager);
+
 		Emulator emulator = new Emulate65c02(hardwareManagerQueue, GRANULARITY_BITS_PER_MS);
 		boolean runningHeadless = isHeadlessMode(windowBackend);
 		if( runningHeadless )
 			emulator.setRealtimeThrottleEnabled(false);
+		if( idleFastForward )
+			emulator.setIdleFastForwardEnabled(true);
+		emulator.setSpeed(speed);
+		registerMetrics(emulator.getMetrics(), hardwareManagerQueue, keyboard, metricsFile, metricsIntervalMs);
+		if( keyboard!=null )
+			keyboard.setSpeedHotkey(() -> System.out.println("Speed: "+describeSpeed(emulator.cycleSpeed())));
 		if( ENABLE_STARTUP_JIT_PRIME && !noSound ) {
 			try {
 				runSilently(() -> emulator.startWithStepPhases(STARTUP_JIT_PRIME_STEPS, cpu, (step, manager, preCycle) -> true));
@@ -556,6 +744,23 @@ public class Emulator8Coordinator {
 			}
 		}
 
+		// Enabled after the JIT prime so the profile only covers the actual run
+		if( profileFile!=null ) {
+			cpu.setProfileEnabled(true);
+			final String finalProfileFile = profileFile;
+			final int finalProfileTopCount = profileTopCount;
+			Runtime.getRuntime().addShutdownHook(new Thread(() -> writeProfile(cpu, finalProfileFile, finalProfileTopCount)));
+		}
+		if( heatmapFile!=null ) {
+			if( !(bus instanceof MemoryBusIIeHeatmap) )
+				throw new IllegalArgumentException("--heatmap-file requires the APPLE_IIE machine layout");
+			((MemoryBusIIeHeatmap) bus).clear();
+			final MemoryBusIIeHeatmap heatmap = (MemoryBusIIeHeatmap) bus;
+			final String finalHeatmapFile = heatmapFile;
+			final int finalProfileTopCount = profileTopCount;
+			Runtime.getRuntime().addShutdownHook(new Thread(() -> writeHeatmap(heatmap, finalHeatmapFile, finalProfileTopCount)));
+		}
+
 		System.out.println();
 		System.out.println("--------------------------------------");
 		System.out.println("          Starting Emulation          ");
@@ -594,7 +799,8 @@ public class Emulator8Coordinator {
 	   		final String finalTracePhase = tracePhase;
 	   		final Integer finalTraceStartPc = traceStartPc;
 	   		final Set<Integer> finalHaltExecutions = haltExecutions;
-	   		final HeadlessVideoProbe finalHeadlessProbe = headlessProbe;
+	   		// Only a probe without a clock is advanced by the step listener
+	   		final HeadlessVideoProbe finalHeadlessProbe = floatingBusOpcodeTiming ? headlessProbe : null;
 	   		final boolean finalFloatingBusOpcodeTiming = floatingBusOpcodeTiming;
 	   		final KeyboardIIe finalKeyboard = keyboard;
 	   		final boolean[] haltedAtAddress = new boolean[] { false };
@@ -769,6 +975,10 @@ public class Emulator8Coordinator {
 						" remaining="+keyboard.getQueuedKeyDepth());
 				if( traceFile!=null )
 					System.out.println("Trace written: "+traceFile);
+				if( profileFile!=null )
+					writeProfile(cpu, profileFile, profileTopCount);
+				if( heatmapFile!=null )
+					writeHeatmap((MemoryBusIIeHeatmap) bus, heatmapFile, profileTopCount);
 				if( printTextAtExit && bus instanceof MemoryBusIIe )
 					printTextScreen((MemoryBusIIe) bus, memory);
 				// In windowed mode, AWT's event thread keeps the process alive after bounded runs.
@@ -777,7 +987,8 @@ public class Emulator8Coordinator {
 					System.exit(0);
 	   	}
 	   	else {
-	   		final HeadlessVideoProbe finalHeadlessProbe = headlessProbe;
+	   		// Only a probe without a clock is advanced by the step listener
+	   		final HeadlessVideoProbe finalHeadlessProbe = floatingBusOpcodeTiming ? headlessProbe : null;
 	   		final boolean finalFloatingBusOpcodeTiming = floatingBusOpcodeTiming;
 	   		final KeyboardIIe finalKeyboard = keyboard;
 	   		final String finalPasteFile = pasteFile;
@@ -822,6 +1033,10 @@ public class Emulator8Coordinator {
 	   			return true;
 	   		});
 			System.out.println("Done");
+			if( profileFile!=null )
+				writeProfile(cpu, profileFile, profileTopCount);
+			if( heatmapFile!=null )
+				writeHeatmap((MemoryBusIIeHeatmap) bus, heatmapFile, profileTopCount);
 			if( printCpuStateAtExit )
 				printCpuState(maxCpuSteps, -1, false, -1, cpu);
 			if( dumpPageAddress!=null )
@@ -836,6 +1051,48 @@ public class Emulator8Coordinator {
 
 	}
 
+	/**
+	 * Writes the binary profile to the given file and a top-N summary next to it.
+	 * Runs at most once per process, from the regular exit path or the shutdown hook.
+	 */
+	private static synchronized void writeProfile(Cpu65c02 cpu, String profileFile, int topCount) {
+		Cpu65c02Profile profile = cpu.getProfile();
+		if( profile==null )
+			return;
+		cpu.setProfileEnabled(false);
+		String summaryFile = profileFile+".txt";
+		try( OutputStream out = new BufferedOutputStream(new FileOutputStream(profileFile));
+				PrintWriter summary = new PrintWriter(new FileWriter(summaryFile)) ) {
+			profile.writeBinary(out);
+			profile.writeSummary(summary, topCount);
+		}
+		catch( IOException e ) {
+			System.err.println("Warning: Unable to write profile "+profileFile+": "+e.getMessage());
+			return;
+		}
+		System.out.println("Profile written: "+profileFile+" (summary "+summaryFile+")");
+	}
+
+	/**
+	 * Writes the binary heatmap to the given file and a top-N summary next to it.
+	 * Runs at most once per process, from the regular exit path or the shutdown hook.
+	 */
+	private static synchronized void writeHeatmap(MemoryBusIIeHeatmap heatmap, String heatmapFile, int topCount) {
+		if( !heatmap.markWritten() )
+			return;
+		String summaryFile = heatmapFile+".txt";
+		try( OutputStream out = new BufferedOutputStream(new FileOutputStream(heatmapFile));
+				PrintWriter summary = new PrintWriter(new FileWriter(summaryFile)) ) {
+			heatmap.writeBinary(out);
+			heatmap.writeSummary(summary, topCount);
+		}
+		catch( IOException e ) {
+			System.err.println("Warning: Unable to write heatmap "+heatmapFile+": "+e.getMessage());
+			return;
+		}
+		System.out.println("Heatmap written: "+heatmapFile+" (summary "+summaryFile+")");
+	}
+
 	private static boolean isHeadlessMode(String windowBackend) {
 		if( "sdl".equalsIgnoreCase(windowBackend) )
 			return Boolean.parseBoolean(System.getProperty("java.awt.headless", "false"));
@@ -984,7 +1241,14 @@ public class Emulator8Coordinator {
 	private static void printRangeDump(MemoryBus8 bus, int startAddress, int endAddress) {
 		System.err.println("range_dump_begin start=$"+Cpu65c02.getHexString(startAddress, 4)+
 				" end=$"+Cpu65c02.getHexString(endAddress, 4));
-		for( int rowBase = (startAddress & 0xfff0); rowBase<=endAddress; rowBase += 16 ) {
+		int firstRow = startAddress & 0xfff0;
+		byte[] block = new byte[Math.max(0, endAddress-firstRow+1)];
+		if( bus instanceof MemoryBusIIe )
+			((MemoryBusIIe) bus).peekBlockNoSideEffects(firstRow, block, 0, block.length);
+		else
+			for( int i = 0; i<block.length; i++ )
+				block[i] = (byte) bus.getByte((firstRow+i) & 0xffff);
+		for( int rowBase = firstRow; rowBase<=endAddress; rowBase += 16 ) {
 			StringBuilder line = new StringBuilder();
 			line.append(Cpu65c02.getHexString(rowBase & 0xffff, 4)).append(":");
 			for( int col = 0; col<16; col++ ) {
@@ -993,10 +1257,7 @@ public class Emulator8Coordinator {
 					line.append(" ..");
 					continue;
 				}
-				int value = bus instanceof MemoryBusIIe
-					? ((MemoryBusIIe) bus).peekByteNoSideEffects(addr)
-					: bus.getByte(addr);
-				line.append(" ").append(Cpu65c02.getHexString(value, 2));
+				line.append(" ").append(Cpu65c02.getHexString(Byte.toUnsignedInt(block[rowBase+col-firstRow]), 2));
 			}
 			System.err.println(line);
 		}
@@ -1011,6 +1272,10 @@ public class Emulator8Coordinator {
 		if( haltedAtAddress )
 			System.out.println("halt_pc=" + Cpu65c02.getHexString(haltedAtPc, 4));
 		System.out.println("registers=" + cpu.getRegister().toString());
+		System.out.println("atomic_instructions=" + cpu.getAtomicInstructionCount());
+		System.out.println("cycle_exact_instructions=" + cpu.getCycleExactInstructionCount() +
+				" io=" + cpu.getIoCycleExactInstructionCount() +
+				" device=" + cpu.getDeviceCycleExactInstructionCount());
 		System.out.println("cpu_state_end");
 	}
 
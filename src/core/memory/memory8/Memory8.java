@@ -1,5 +1,6 @@
 package core.memory.memory8;
 
+import java.lang.foreign.MemorySegment;
 import java.util.Arrays;
 
 import core.exception.HardwareException;
@@ -9,16 +10,38 @@ public class Memory8 implements HardwareComponent {
 
 	private int size;
 	private byte address [];
+	// One bit per 256-byte page, set on every write and handed on to each
+	// consumer's dirty bitmap the next time any consumer asks
+	private long pageWritten [];
+	private long dirtyPages [][];
+
+	/**
+	 * Consumer used by the single-consumer page methods, i.e. the decoded instruction cache.
+	 */
+	public static final int DEFAULT_CONSUMER = 0;
 	
 	public Memory8( int size ) {
 		this.size = size;
+		this.pageWritten = new long[(Math.max(size, 0)+0x3fff)>>14];
+		this.dirtyPages = new long[][] { new long[pageWritten.length] };
 	}
 
 	@Override
 	public void coldReset() throws HardwareException {
 		if( size<=0 )
 			throw new HardwareException("Memory size not supported");
-		address = new byte[size];
+		resetBacking();
+		markAllPagesWritten();
+	}
+
+	/**
+	 * Clears the backing store, keeping it in place so slices stay valid.
+	 */
+	protected void resetBacking() throws HardwareException {
+		if( address==null )
+			address = new byte[size];
+		else
+			Arrays.fill(address, (byte) 0);
 	}
 
 	public int getByte( int address ) {
@@ -27,6 +50,154 @@ public class Memory8 implements HardwareComponent {
 
 	public void setByte(int address, int value) {
 		this.address[address] = (byte) value;
+		pageWritten[address>>>14] |= 1L<<(address>>>8);
+	}
+
+	protected final void markPageWritten( int address ) {
+		pageWritten[address>>>14] |= 1L<<(address>>>8);
+	}
+
+	protected final void markPagesWritten( int address, int length ) {
+		if( length<=0 )
+			return;
+		for( int page = address>>>8; page<=(address+length-1)>>>8; page++ )
+			pageWritten[page>>>6] |= 1L<<page;
+	}
+
+	public void readBlock( int address, byte[] dest, int offset, int length ) {
+		System.arraycopy(this.address, address, dest, offset, length);
+	}
+
+	public void writeBlock( int address, byte[] src, int offset, int length ) {
+		System.arraycopy(src, offset, this.address, address, length);
+		markPagesWritten(address, length);
+	}
+
+	public void fill( int address, int length, int value ) {
+		Arrays.fill(this.address, address, address+length, (byte) value);
+		markPagesWritten(address, length);
+	}
+
+	/**
+	 * Copies length bytes from one address to another; the ranges may overlap.
+	 */
+	public void copyRange( int fromAddress, int toAddress, int length ) {
+		System.arraycopy(this.address, fromAddress, this.address, toAddress, length);
+		markPagesWritten(toAddress, length);
+	}
+
+	/**
+	 * @return copy of the whole memory
+	 */
+	public byte[] snapshot() {
+		return address.clone();
+	}
+
+	/**
+	 * Overwrites the whole memory with an image taken by snapshot.
+	 */
+	public void restore( byte[] image ) {
+		checkImageSize(image);
+		System.arraycopy(image, 0, address, 0, size);
+		markAllPagesWritten();
+	}
+
+	/**
+	 * @return read-only view of the given range, e.g. main RAM at 0 or
+	 *         auxiliary RAM at MemoryBusIIe.BANKED_RAM, without copying
+	 */
+	public MemorySegment getReadOnlySlice( int offset, int length ) {
+		return MemorySegment.ofArray(address).asSlice(offset, length).asReadOnly();
+	}
+
+	protected final void checkImageSize( byte[] image ) {
+		if( image.length!=size )
+			throw new IllegalArgumentException("Memory image is "+image.length+" bytes, expected "+size);
+	}
+
+	protected final void markAllPagesWritten() {
+		Arrays.fill(pageWritten, -1L);
+	}
+
+	/**
+	 * Registers another reader of written pages, e.g. a display diffing frames.
+	 * Each consumer sees every write once, independent of the others.
+	 * @return consumer id for the fetch-and-clear methods
+	 */
+	public int addDirtyPageConsumer() {
+		int consumer = dirtyPages.length;
+		dirtyPages = Arrays.copyOf(dirtyPages, consumer+1);
+		// Starts out with everything dirty, as after a cold reset
+		dirtyPages[consumer] = new long[pageWritten.length];
+		Arrays.fill(dirtyPages[consumer], -1L);
+		return consumer;
+	}
+
+	private void distribute( int word ) {
+		long written = pageWritten[word];
+		if( written==0 )
+			return;
+		for( long[] dirty : dirtyPages )
+			dirty[word] |= written;
+		pageWritten[word] = 0;
+	}
+
+	/**
+	 * Reports whether the given 256-byte page has been written since the last call
+	 * for the default consumer and clears its written flag.
+	 */
+	public boolean fetchAndClearPageWritten( int page ) {
+		return fetchAndClearPageWritten(DEFAULT_CONSUMER, page);
+	}
+
+	public boolean fetchAndClearPageWritten( int consumer, int page ) {
+		int index = page>>>6;
+		if( pageWritten[index]!=0 )
+			distribute(index);
+		long bit = 1L<<page;
+		long[] dirty = dirtyPages[consumer];
+		long word = dirty[index];
+		if( (word&bit)==0 )
+			return false;
+		dirty[index] = word&~bit;
+		return true;
+	}
+
+	/**
+	 * Reports whether any page in the range has been written since the last call
+	 * for this consumer and clears their written flags.
+	 */
+	public boolean fetchAndClearPagesWritten( int consumer, int firstPage, int pageCount ) {
+		boolean written = false;
+		for( int page = firstPage; page<firstPage+pageCount; page++ )
+			written |= fetchAndClearPageWritten(consumer, page);
+		return written;
+	}
+
+	/**
+	 * Copies this consumer's dirty bitmap, one bit per page in getPageCount()
+	 * bits, to dirty and clears it.
+	 */
+	public void fetchAndClearDirtyPages( int consumer, long[] dirty ) {
+		long[] own = dirtyPages[consumer];
+		for( int index = 0; index<own.length; index++ ) {
+			distribute(index);
+			dirty[index] = own[index];
+			own[index] = 0;
+		}
+	}
+
+	/**
+	 * Reports whether the given 256-byte page has been written without clearing
+	 * the default consumer's flag.
+	 */
+	public boolean isPageWritten( int page ) {
+		int index = page>>>6;
+		return ((pageWritten[index]|dirtyPages[DEFAULT_CONSUMER][index])&(1L<<page))!=0;
+	}
+
+	public int getPageCount() {
+		return (size+0xff)>>8;
 	}
 
 	public int getMaxAddress() {
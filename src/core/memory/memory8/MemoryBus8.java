@@ -17,8 +17,7 @@ public class MemoryBus8 implements HardwareComponent {
 
 	public void coldReset() throws HardwareException {
 		memory.coldReset();
-		for( int i = getMaxAddress()-1; i>=0; i-- ) 
-			memory.setByte(i, 0x00);
+		memory.fill(0, getMaxAddress(), 0x00);
 	}
 
 	public int getByte( int address ) {
@@ -1,6 +1,9 @@
 package core.memory.memory8;
 
+import java.util.Arrays;
+
 import peripherals.PeripheralIIe;
+import core.emulator.CatchUpDevice;
 import core.exception.HardwareException;
 import device.display.DisplayIIe;
 import device.display.VideoSignalSource;
@@ -11,58 +14,119 @@ public class MemoryBusIIe extends MemoryBus8 {
 	public static final int BANKED_RAM = 0x10000;
 	public static final int ROM_START = 0xc000;
 
+	// Instruction fetch keys identify the physical byte behind a CPU address
+	// 0x00000-0x1ffff main/auxiliary RAM, then internal ROM, then slot ROM pages
+	public static final int FETCH_KEY_NONE = -1;
+	public static final int FETCH_KEY_ROM = 0x20000;
+	public static final int FETCH_KEY_SLOT_ROM = FETCH_KEY_ROM+0x4000;
+	public static final int FETCH_KEY_LIMIT = FETCH_KEY_SLOT_ROM+0x800;
+
+	// Soft switch bits packed into a single word, see getSwitchBits
+	public static final int SWITCH_80STORE = 1<<0;
+	public static final int SWITCH_HIRES = 1<<1;
+	public static final int SWITCH_RAMRD = 1<<2;
+	public static final int SWITCH_RAMWRT = 1<<3;
+	public static final int SWITCH_TEXT = 1<<4;
+	public static final int SWITCH_PAGE2 = 1<<5;
+	public static final int SWITCH_MIXED = 1<<6;
+	public static final int SWITCH_ALTZP = 1<<7;
+	public static final int SWITCH_BANK1 = 1<<8;
+	public static final int SWITCH_HRAMRD = 1<<9;
+	public static final int SWITCH_HRAMWRT = 1<<10;
+	public static final int SWITCH_PREWRITE = 1<<11;
+	public static final int SWITCH_INTCXROM = 1<<12;
+	public static final int SWITCH_SLOTC3ROM = 1<<13;
+	public static final int SWITCH_INTC8ROM = 1<<14;
+	public static final int SWITCH_80COL = 1<<15;
+	public static final int SWITCH_ALTCHARSET = 1<<16;
+	public static final int SWITCH_AN0 = 1<<17;
+	public static final int SWITCH_AN1 = 1<<18;
+	public static final int SWITCH_AN2 = 1<<19;
+	public static final int SWITCH_AN3 = 1<<20;
+	public static final int SWITCH_SPEAKER = 1<<21;
+
+	// Switches counted by the memory map and video change counters
+	private static final int MAP_SWITCHES = SWITCH_80STORE|SWITCH_HIRES|SWITCH_RAMRD|SWITCH_RAMWRT|SWITCH_PAGE2|
+			SWITCH_ALTZP|SWITCH_BANK1|SWITCH_HRAMRD|SWITCH_HRAMWRT|SWITCH_INTCXROM|SWITCH_SLOTC3ROM|SWITCH_INTC8ROM;
+	private static final int VIDEO_SWITCHES = SWITCH_80STORE|SWITCH_HIRES|SWITCH_TEXT|SWITCH_PAGE2|SWITCH_MIXED|
+			SWITCH_80COL|SWITCH_ALTCHARSET|SWITCH_AN0|SWITCH_AN1|SWITCH_AN2|SWITCH_AN3;
+
+	private static final byte[] COLD_RESET_PATTERN = new byte[0x100];
+	static {
+		for( int i = 1; i<COLD_RESET_PATTERN.length; i += 2 )
+			COLD_RESET_PATTERN[i] = (byte) 0xff;
+	}
+
 	private byte[] rom16k;
 	private byte[] slotRom[] = new byte[8][];
 	private SwitchSet8[] slotSwitchList = new SwitchSet8[8];
 
 	private KeyboardIIe keyboard;
 	private VideoSignalSource monitor;
-
-	private SwitchState switch80Store = new SwitchState();
-	private SwitchState switchHiRes = new SwitchState();
-	private SwitchState switchRamRead = new SwitchState();
-	private SwitchState switchRamWrt = new SwitchState();
-	private SwitchState switchText = new SwitchState();
-	private SwitchState switchPage2 = new SwitchState();
-	private SwitchState switchMixed = new SwitchState();
-	private SwitchState switchAltZp = new SwitchState();
-	private SwitchState switchBank1 = new SwitchState();
-	private SwitchState switchHRamRd = new SwitchState();
-	private SwitchState switchHRamWrt = new SwitchState();
-	private SwitchState switchPreWrite = new SwitchState();
-	private SwitchState switchIntCxRom = new SwitchState();
-	private SwitchState switchSlotC3Rom = new SwitchState();
-	private SwitchState switchIntC8Rom = new SwitchState();
-	private SwitchState switch80Col = new SwitchState();
-	private SwitchState switchAltCharSet = new SwitchState();
-	private SwitchState switchAn0 = new SwitchState();
-	private SwitchState switchAn1 = new SwitchState();
-	private SwitchState switchAn2 = new SwitchState();
-	private SwitchState switchAn3 = new SwitchState();
-	private SwitchState switchSpeakerToggle = new SwitchState();
+	private CatchUpDevice[] catchUpDevices = new CatchUpDevice[0];
+
+	private int switchBits;
+	private SwitchState switch80Store = new SwitchState(SWITCH_80STORE);
+	private SwitchState switchHiRes = new SwitchState(SWITCH_HIRES);
+	private SwitchState switchRamRead = new SwitchState(SWITCH_RAMRD);
+	private SwitchState switchRamWrt = new SwitchState(SWITCH_RAMWRT);
+	private SwitchState switchText = new SwitchState(SWITCH_TEXT);
+	private SwitchState switchPage2 = new SwitchState(SWITCH_PAGE2);
+	private SwitchState switchMixed = new SwitchState(SWITCH_MIXED);
+	private SwitchState switchAltZp = new SwitchState(SWITCH_ALTZP);
+	private SwitchState switchBank1 = new SwitchState(SWITCH_BANK1);
+	private SwitchState switchHRamRd = new SwitchState(SWITCH_HRAMRD);
+	private SwitchState switchHRamWrt = new SwitchState(SWITCH_HRAMWRT);
+	private SwitchState switchPreWrite = new SwitchState(SWITCH_PREWRITE);
+	private SwitchState switchIntCxRom = new SwitchState(SWITCH_INTCXROM);
+	private SwitchState switchSlotC3Rom = new SwitchState(SWITCH_SLOTC3ROM);
+	private SwitchState switchIntC8Rom = new SwitchState(SWITCH_INTC8ROM);
+	private SwitchState switch80Col = new SwitchState(SWITCH_80COL);
+	private SwitchState switchAltCharSet = new SwitchState(SWITCH_ALTCHARSET);
+	private SwitchState switchAn0 = new SwitchState(SWITCH_AN0);
+	private SwitchState switchAn1 = new SwitchState(SWITCH_AN1);
+	private SwitchState switchAn2 = new SwitchState(SWITCH_AN2);
+	private SwitchState switchAn3 = new SwitchState(SWITCH_AN3);
+	private SwitchState switchSpeakerToggle = new SwitchState(SWITCH_SPEAKER);
 
 	private int switchIteration;
+	private int memoryMapIteration;
+	private int videoIteration;
+	private int speakerIteration;
+	private int romIteration;
+
+	// Physical page behind each CPU page as a fetch key, rebuilt whenever the memory map changes.
+	// Reads and writes of pages without a key go through the memory layout handlers.
+	private final int[] fetchPageKey = new int[0x100];
+	private final int[] readPageKey = new int[0x100];
+	private final int[] writePageKey = new int[0x100];
 
 	public class SwitchState {
 
-		private boolean state = false;
+		private final int bit;
+
+		public SwitchState( int bit ) {
+			this.bit = bit;
+		}
 
 		public boolean getState() {
-			return state;
+			return (switchBits&bit)!=0;
 		}
 
 		public void setState() {
-			state = true;
 			switchIteration++;
+			if( (switchBits&bit)==0 )
+				changeSwitchBits(switchBits|bit);
 		}
 
 		public void resetState() {
-			state = false;
 			switchIteration++;
+			if( (switchBits&bit)!=0 )
+				changeSwitchBits(switchBits&~bit);
 		}
 
 		public String toString() {
-			return new Boolean(state).toString();
+			return Boolean.toString(getState());
 		}
 
 	}
@@ -1028,34 +1092,48 @@ public class MemoryBusIIe extends MemoryBus8 {
 
 		memoryLayout.completeBlock();
 
+		rebuildPageTables();
+
 	}
 
 	@Override
 	public int getByte( int address ) {
-		return memoryLayout.readMem(address);
+		int key = readPageKey[(address>>8)&0xff];
+		if( key<0 )
+			return memoryLayout.readMem(address);
+		if( key<FETCH_KEY_ROM )
+			return memory.getByte(key|(address&0xff));
+		return Byte.toUnsignedInt(rom16k[(key-FETCH_KEY_ROM)|(address&0xff)]);
 	}
 
-	public int peekByteNoSideEffects(int address) {
-		address &= 0xffff;
-		if( address<0x0200 ) {
-			if( switchAltZp.getState() )
-				return memory.getByte(BANKED_RAM|address);
-			return memory.getByte(address);
-		}
-		if( address<0xc000 ) {
-			boolean auxRead;
-			if( switch80Store.getState() ) {
-				if( ( address>=0x400 && address<0x800 ) || ( switchHiRes.getState() && address>=0x2000 && address<0x4000 ) )
-					auxRead = switchPage2.getState();
-				else
-					auxRead = switchRamRead.getState();
-			}
+	/**
+	 * Reads length bytes as the CPU would see them without side effects,
+	 * copying whole RAM and ROM pages at a time.
+	 */
+	public void peekBlockNoSideEffects(int address, byte[] dest, int offset, int length) {
+		while( length>0 ) {
+			address &= 0xffff;
+			int count = Math.min(length, 0x100-(address&0xff));
+			int key = readPageKey[address>>8];
+			if( key<0 )
+				for( int i = 0; i<count; i++ )
+					dest[offset+i] = (byte) peekByteNoSideEffects(address+i);
+			else if( key<FETCH_KEY_ROM )
+				memory.readBlock(key|(address&0xff), dest, offset, count);
 			else
-				auxRead = switchRamRead.getState();
-			if( auxRead )
-				return memory.getByte(BANKED_RAM|address);
-			return memory.getByte(address);
+				System.arraycopy(rom16k, (key-FETCH_KEY_ROM)|(address&0xff), dest, offset, count);
+			address += count;
+			offset += count;
+			length -= count;
 		}
+	}
+
+	public int peekByteNoSideEffects(int address) {
+		address &= 0xffff;
+		int key = readPageKey[address>>8];
+		if( key>=0 )
+			return key<FETCH_KEY_ROM ? memory.getByte(key|(address&0xff)) :
+				Byte.toUnsignedInt(rom16k[(key-FETCH_KEY_ROM)|(address&0xff)]);
 		if( address<0xc100 )
 			// Snapshot dumps should avoid side effects, but still expose live status readings.
 			switch( address ) {
@@ -1160,29 +1238,162 @@ public class MemoryBusIIe extends MemoryBus8 {
 				return Byte.toUnsignedInt(slotRom[slot][address&0x00ff]);
 			return 0x00;
 		}
-		if( address<0xd000 ) {
-			if( address==0xcfff )
-				return 0x00;
-			if( switchIntC8Rom.getState() || switchIntCxRom.getState() )
-				return Byte.toUnsignedInt(rom16k[address-0xc000]);
+		if( address==0xcfff )
 			return 0x00;
+		if( switchIntC8Rom.getState() || switchIntCxRom.getState() )
+			return Byte.toUnsignedInt(rom16k[address-0xc000]);
+		return 0x00;
+	}
+
+	@Override
+	public void setByte( int address, int value ) {
+		int key = writePageKey[(address>>8)&0xff];
+		if( key<0 )
+			memoryLayout.writeMem(address, value);
+		else if( key<FETCH_KEY_ROM )
+			memory.setByte(key|(address&0xff), value);
+		// Writes to ROM are ignored
+	}
+
+	/**
+	 * Called by the CPU with the address of every opcode it fetches; a no-op
+	 * here so the call disappears unless a counting subclass is in use.
+	 */
+	public void opcodeFetched( int address ) {
+	}
+
+	/**
+	 * Maps a CPU address to the physical byte a data read would reach, or
+	 * FETCH_KEY_NONE when the read goes to I/O or slot handlers.
+	 */
+	public int getReadKey( int address ) {
+		int pageKey = readPageKey[(address>>8)&0xff];
+		return pageKey<0 ? FETCH_KEY_NONE : pageKey|(address&0xff);
+	}
+
+	/**
+	 * Maps a CPU address to the physical byte a write would reach, or
+	 * FETCH_KEY_NONE when the write goes to I/O or slot handlers.
+	 */
+	public int getWriteKey( int address ) {
+		int pageKey = writePageKey[(address>>8)&0xff];
+		return pageKey<0 ? FETCH_KEY_NONE : pageKey|(address&0xff);
+	}
+
+	/**
+	 * Maps a CPU address to the physical byte an instruction fetch would read, or
+	 * FETCH_KEY_NONE when the read has side effects or is not backed by RAM/ROM.
+	 */
+	public int getFetchKey( int address ) {
+		int pageKey = fetchPageKey[(address>>8)&0xff];
+		return pageKey<0 ? FETCH_KEY_NONE : pageKey|(address&0xff);
+	}
+
+	/**
+	 * Reads the byte behind a fetch key without bus side effects.
+	 */
+	public int peekFetchKey( int key ) {
+		if( key<FETCH_KEY_ROM )
+			return memory.getByte(key);
+		if( key<FETCH_KEY_SLOT_ROM )
+			return Byte.toUnsignedInt(rom16k[key-FETCH_KEY_ROM]);
+		key -= FETCH_KEY_SLOT_ROM;
+		return Byte.toUnsignedInt(slotRom[key>>8][key&0xff]);
+	}
+
+	/**
+	 * Incremented whenever ROM contents behind fetch keys may have changed.
+	 */
+	public int getRomIteration() {
+		return romIteration;
+	}
+
+	private void changeSwitchBits( int bits ) {
+		int changed = bits^switchBits;
+		if( (changed&VIDEO_SWITCHES)!=0 ) {
+			// Lazily synced video must see the old mode up to this cycle
+			for( CatchUpDevice device : catchUpDevices )
+				device.catchUp();
+			videoIteration++;
+		}
+		switchBits = bits;
+		if( (changed&SWITCH_SPEAKER)!=0 )
+			speakerIteration++;
+		if( (changed&MAP_SWITCHES)!=0 )
+			memoryMapChanged();
+	}
+
+	private void memoryMapChanged() {
+		memoryMapIteration++;
+		rebuildPageTables();
+	}
+
+	private void rebuildPageTables() {
+		for( int page = 0; page<0x100; page++ ) {
+			fetchPageKey[page] = getFetchPageKey(page<<8);
+			// I/O and slot space always dispatch to their handlers
+			boolean ioPage = page>=0xc0 && page<0xd0;
+			readPageKey[page] = ioPage ? FETCH_KEY_NONE : fetchPageKey[page];
+			writePageKey[page] = ioPage ? FETCH_KEY_NONE : getWritePageKey(page<<8);
+		}
+	}
+
+	private int getFetchPageKey( int address ) {
+		// Mirrors the read paths of the memory layout for side-effect free pages
+		if( address<0x0200 )
+			return switchAltZp.getState() ? BANKED_RAM|address : address;
+		if( address<0xc000 ) {
+			boolean auxRead;
+			if( switch80Store.getState() &&
+					( ( address>=0x400 && address<0x800 ) || ( switchHiRes.getState() && address>=0x2000 && address<0x4000 ) ) )
+				auxRead = switchPage2.getState();
+			else
+				auxRead = switchRamRead.getState();
+			return auxRead ? BANKED_RAM|address : address;
+		}
+		if( address<0xc100 )
+			// I/O switches
+			return FETCH_KEY_NONE;
+		if( address<0xc800 ) {
+			int slot = (address-0xc000)>>8;
+			if( slot==3 )
+				// $C3XX reads may set INTC8ROM
+				return FETCH_KEY_NONE;
+			if( switchIntCxRom.getState() )
+				return FETCH_KEY_ROM+address-0xc000;
+			return slotRom[slot]==null ? FETCH_KEY_NONE : FETCH_KEY_SLOT_ROM+(slot<<8);
+		}
+		if( address<0xd000 ) {
+			// $CFFF resets INTC8ROM and unmapped expansion reads warn
+			if( address>=0xcf00 || !(switchIntC8Rom.getState() || switchIntCxRom.getState()) )
+				return FETCH_KEY_NONE;
+			return FETCH_KEY_ROM+address-0xc000;
 		}
 		if( switchHRamRd.getState() ) {
-			if( switchAltZp.getState() ) {
-				if( address<0xe000 && switchBank1.getState() )
-					return memory.getByte(BANKED_RAM|(address-0x1000));
-				return memory.getByte(BANKED_RAM|address);
-			}
-			if( address<0xe000 && switchBank1.getState() )
-				return memory.getByte(address-0x1000);
-			return memory.getByte(address);
+			int ramAddress = address<0xe000 && switchBank1.getState() ? address-0x1000 : address;
+			return switchAltZp.getState() ? BANKED_RAM|ramAddress : ramAddress;
 		}
-		return Byte.toUnsignedInt(rom16k[address-ROM_START]);
+		return FETCH_KEY_ROM+address-ROM_START;
 	}
 
-	@Override
-	public void setByte( int address, int value ) {
-		memoryLayout.writeMem(address, value);
+	// Mirrors the write paths of the memory layout; ROM keys mark writes that are ignored
+	private int getWritePageKey( int address ) {
+		if( address<0x0200 )
+			return switchAltZp.getState() ? BANKED_RAM|address : address;
+		if( address<0xc000 ) {
+			boolean auxWrite;
+			if( switch80Store.getState() &&
+					( ( address>=0x400 && address<0x800 ) || ( switchHiRes.getState() && address>=0x2000 && address<0x4000 ) ) )
+				auxWrite = switchPage2.getState();
+			else
+				auxWrite = switchRamWrt.getState();
+			return auxWrite ? BANKED_RAM|address : address;
+		}
+		if( switchHRamWrt.getState() ) {
+			int ramAddress = address<0xe000 && switchBank1.getState() ? address-0x1000 : address;
+			return switchAltZp.getState() ? BANKED_RAM|ramAddress : ramAddress;
+		}
+		return FETCH_KEY_ROM+address-ROM_START;
 	}
 
 	public void warmReset() {
@@ -1217,8 +1428,10 @@ public class MemoryBusIIe extends MemoryBus8 {
 
 		super.coldReset();
 		// Match MAME boot snapshot pattern for main 64K: 00/FF alternating by byte.
-		for( int addr = 0; addr<0x10000; addr++ )
-			memory.setByte(addr, (addr&0x1)==0 ? 0x00 : 0xff);
+		memory.writeBlock(0, COLD_RESET_PATTERN, 0, COLD_RESET_PATTERN.length);
+		// Double the patterned range until it covers the 64K
+		for( int length = COLD_RESET_PATTERN.length; length<0x10000; length <<= 1 )
+			memory.copyRange(0, length, length);
 	
 		switchText.resetState();
 		switchMixed.resetState();
@@ -1248,6 +1461,8 @@ public class MemoryBusIIe extends MemoryBus8 {
 
 	public void setSlotRom( int slot, byte[] slotRom ) {
 		this.slotRom[slot] = slotRom;
+		romIteration++;
+		memoryMapChanged();
 	}
 
 	public KeyboardIIe getKeyboard() {
@@ -1266,6 +1481,14 @@ public class MemoryBusIIe extends MemoryBus8 {
 		this.monitor = display;
 	}
 
+	/**
+	 * Registers a device to be caught up before any video soft switch changes.
+	 */
+	public void addCatchUpDevice( CatchUpDevice device ) {
+		catchUpDevices = Arrays.copyOf(catchUpDevices, catchUpDevices.length+1);
+		catchUpDevices[catchUpDevices.length-1] = device;
+	}
+
 	public boolean is80Store() {
 		return switch80Store.getState();
 	}
@@ -1508,10 +1731,47 @@ public class MemoryBusIIe extends MemoryBus8 {
 			this.switchSpeakerToggle.resetState();
 	}
 
+	/**
+	 * @return counter incremented on every soft switch access
+	 */
 	public int getSwitchIteration() {
 		return switchIteration;
 	}
 
+	/**
+	 * @return counter incremented when a switch that affects the video output
+	 *         (TEXT, MIXED, PAGE2, HIRES, 80STORE, 80COL, ALTCHARSET, AN0-AN3) changes
+	 */
+	public int getVideoIteration() {
+		return videoIteration;
+	}
+
+	/**
+	 * @return counter incremented when the memory map changes
+	 */
+	public int getMemoryMapIteration() {
+		return memoryMapIteration;
+	}
+
+	public int getSpeakerIteration() {
+		return speakerIteration;
+	}
+
+	/**
+	 * @return every soft switch as one word of SWITCH_* bits
+	 */
+	public int getSwitchBits() {
+		return switchBits;
+	}
+
+	/**
+	 * Restores soft switches from a word returned by getSwitchBits.
+	 */
+	public void setSwitchBits( int bits ) {
+		switchIteration++;
+		changeSwitchBits(bits);
+	}
+
 /*
 
 	public String toString()
@@ -0,0 +1,191 @@
+package core.memory.memory8;
+
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.PrintWriter;
+import java.util.Arrays;
+import java.util.PriorityQueue;
+
+/**
+ * MemoryBusIIe that counts reads, writes and opcode fetches per physical
+ * byte. RAM (main, auxiliary and language card banks), internal ROM and
+ * slot ROM are indexed by fetch key; accesses that reach I/O or slot
+ * handlers are counted by CPU address in $C000-$CFFF after FETCH_KEY_LIMIT.
+ * Only used when the heatmap is enabled, so the plain bus keeps its
+ * monomorphic read and write paths. Operand bytes served from the decode
+ * cache and reads skipped by idle loop fast forward are not counted.
+ */
+public class MemoryBusIIeHeatmap extends MemoryBusIIe {
+
+	public static final int IO_BASE = FETCH_KEY_LIMIT;
+	public static final int SIZE = IO_BASE+0x1000;
+
+	private static final int BINARY_MAGIC = 0x4532484d; // "E2HM"
+	private static final int BINARY_VERSION = 1;
+
+	private final long[] reads = new long[SIZE];
+	private final long[] writes = new long[SIZE];
+	private final long[] executes = new long[SIZE];
+	private boolean written;
+
+	public MemoryBusIIeHeatmap( Memory8 memory, byte[] rom16k ) {
+		super(memory, rom16k);
+	}
+
+	private static int index( int key, int address ) {
+		return key>=0 ? key : IO_BASE+(address&0xfff);
+	}
+
+	@Override
+	public int getByte( int address ) {
+		reads[index(getReadKey(address), address)]++;
+		return super.getByte(address);
+	}
+
+	@Override
+	public void setByte( int address, int value ) {
+		writes[index(getWriteKey(address), address)]++;
+		super.setByte(address, value);
+	}
+
+	@Override
+	public void opcodeFetched( int address ) {
+		executes[index(getFetchKey(address), address)]++;
+	}
+
+	public void clear() {
+		Arrays.fill(reads, 0);
+		Arrays.fill(writes, 0);
+		Arrays.fill(executes, 0);
+	}
+
+	/**
+	 * Claims the counters for writing out, so the regular exit path and the
+	 * shutdown hook write them only once.
+	 * @return false if they were already claimed
+	 */
+	public synchronized boolean markWritten() {
+		if( written )
+			return false;
+		written = true;
+		return true;
+	}
+
+	public long getReads( int index ) {
+		return reads[index];
+	}
+
+	public long getWrites( int index ) {
+		return writes[index];
+	}
+
+	public long getExecutes( int index ) {
+		return executes[index];
+	}
+
+	/**
+	 * Binary layout (big endian):
+	 * magic, version, index count, number of records followed by
+	 * (index, reads, writes, executes) for every index accessed.
+	 */
+	public void writeBinary( OutputStream out ) throws IOException {
+		DataOutputStream data = new DataOutputStream(out);
+		data.writeInt(BINARY_MAGIC);
+		data.writeInt(BINARY_VERSION);
+		data.writeInt(SIZE);
+		int records = 0;
+		for( int i = 0; i<SIZE; i++ )
+			if( (reads[i]|writes[i]|executes[i])!=0 )
+				records++;
+		data.writeInt(records);
+		for( int i = 0; i<SIZE; i++ ) {
+			if( (reads[i]|writes[i]|executes[i])==0 )
+				continue;
+			data.writeInt(i);
+			data.writeLong(reads[i]);
+			data.writeLong(writes[i]);
+			data.writeLong(executes[i]);
+		}
+		data.flush();
+	}
+
+	public void writeSummary( PrintWriter out, int topCount ) {
+		long[] pageTotal = new long[SIZE>>8];
+		long totalReads = 0, totalWrites = 0, totalExecutes = 0;
+		for( int i = 0; i<SIZE; i++ ) {
+			totalReads += reads[i];
+			totalWrites += writes[i];
+			totalExecutes += executes[i];
+			pageTotal[i>>8] += reads[i]+writes[i]+executes[i];
+		}
+		out.println("reads="+totalReads+" writes="+totalWrites+" executes="+totalExecutes);
+
+		out.println();
+		out.println("Top pages by accesses:");
+		out.println(String.format("%4s %-14s %14s %14s %14s", "rank", "page", "reads", "writes", "executes"));
+		int rank = 1;
+		for( int page : topIndices(pageTotal, 0, pageTotal.length, topCount) ) {
+			long pageReads = 0, pageWrites = 0, pageExecutes = 0;
+			for( int i = page<<8; i<(page+1)<<8; i++ ) {
+				pageReads += reads[i];
+				pageWrites += writes[i];
+				pageExecutes += executes[i];
+			}
+			out.println(String.format("%4d %-14s %14d %14d %14d", rank++, describeIndex(page<<8),
+					pageReads, pageWrites, pageExecutes));
+		}
+
+		// Soft switches are the $C000-$C0FF part of the I/O range
+		long[] switchTotal = new long[SIZE];
+		for( int i = IO_BASE; i<IO_BASE+0x100; i++ )
+			switchTotal[i] = reads[i]+writes[i];
+		out.println();
+		out.println("Top soft switches by accesses:");
+		out.println(String.format("%4s %-14s %14s %14s", "rank", "switch", "reads", "writes"));
+		rank = 1;
+		for( int i : topIndices(switchTotal, IO_BASE, IO_BASE+0x100, topCount) )
+			out.println(String.format("%4d %-14s %14d %14d", rank++, describeIndex(i), reads[i], writes[i]));
+		out.flush();
+	}
+
+	/**
+	 * @return bank and CPU address of a heatmap index, e.g. "aux $0400" or "io $c030"
+	 */
+	public static String describeIndex( int index ) {
+		if( index>=IO_BASE )
+			return "io $"+hex(0xc000+index-IO_BASE);
+		if( index>=FETCH_KEY_SLOT_ROM )
+			return "slot-rom $"+hex(0xc000+index-FETCH_KEY_SLOT_ROM);
+		if( index>=FETCH_KEY_ROM )
+			return "rom $"+hex(0xc000+index-FETCH_KEY_ROM);
+		// Language card bank 1 is stored below $D000
+		String address = "$"+hex(index&0xffff);
+		if( (index&0xf000)==0xc000 )
+			address = "$"+hex((index&0xffff)+0x1000)+"/1";
+		return ((index&BANKED_RAM)!=0 ? "aux " : "main ")+address;
+	}
+
+	private static String hex( int value ) {
+		return String.format("%04x", value);
+	}
+
+	private static int[] topIndices( long[] values, int from, int to, int topCount ) {
+		PriorityQueue<Integer> top = new PriorityQueue<>((a, b) -> Long.compare(values[a], values[b]));
+		for( int i = from; i<to; i++ ) {
+			if( values[i]==0 )
+				continue;
+			if( top.size()<topCount )
+				top.add(i);
+			else if( values[i]>values[top.peek()] ) {
+				top.poll();
+				top.add(i);
+			}
+		}
+		int[] out = new int[top.size()];
+		for( int i = out.length-1; i>=0; i-- )
+			out[i] = top.poll();
+		return out;
+	}
+
+}
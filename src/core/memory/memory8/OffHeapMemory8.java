@@ -0,0 +1,132 @@
+package core.memory.memory8;
+
+import java.io.IOException;
+import java.lang.foreign.Arena;
+import java.lang.foreign.MemorySegment;
+import java.lang.foreign.ValueLayout;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+
+import core.exception.HardwareException;
+
+/**
+ * Memory8 backed by an off-heap segment, optionally mapped from a file so
+ * other processes can watch main and auxiliary RAM while the machine runs.
+ * The segment is allocated once and cleared in place on cold reset, so
+ * slices handed out stay valid for the life of the memory.
+ */
+public class OffHeapMemory8 extends Memory8 implements AutoCloseable {
+
+	private static final ValueLayout.OfByte BYTE = ValueLayout.JAVA_BYTE;
+
+	private final Arena arena;
+	private final MemorySegment segment;
+	private final boolean mapped;
+
+	public OffHeapMemory8( int size ) {
+		super(size);
+		arena = Arena.ofShared();
+		segment = arena.allocate(Math.max(size, 1));
+		mapped = false;
+	}
+
+	/**
+	 * Maps the memory from the given file, which is created or resized to fit.
+	 */
+	public OffHeapMemory8( int size, Path file ) throws IOException {
+		super(size);
+		arena = Arena.ofShared();
+		try( FileChannel channel = FileChannel.open(file, StandardOpenOption.CREATE,
+				StandardOpenOption.READ, StandardOpenOption.WRITE) ) {
+			// Mapping read-write grows a short file
+			if( channel.size()>size )
+				channel.truncate(size);
+			segment = channel.map(FileChannel.MapMode.READ_WRITE, 0, Math.max(size, 1), arena);
+		} catch( IOException|RuntimeException e ) {
+			arena.close();
+			throw e;
+		}
+		mapped = true;
+	}
+
+	@Override
+	protected void resetBacking() throws HardwareException {
+		segment.fill((byte) 0);
+	}
+
+	@Override
+	public int getByte( int address ) {
+		return Byte.toUnsignedInt(segment.get(BYTE, address));
+	}
+
+	@Override
+	public void setByte( int address, int value ) {
+		segment.set(BYTE, address, (byte) value);
+		markPageWritten(address);
+	}
+
+	@Override
+	public void readBlock( int address, byte[] dest, int offset, int length ) {
+		MemorySegment.copy(segment, BYTE, address, dest, offset, length);
+	}
+
+	@Override
+	public void writeBlock( int address, byte[] src, int offset, int length ) {
+		MemorySegment.copy(src, offset, segment, BYTE, address, length);
+		markPagesWritten(address, length);
+	}
+
+	@Override
+	public void fill( int address, int length, int value ) {
+		segment.asSlice(address, length).fill((byte) value);
+		markPagesWritten(address, length);
+	}
+
+	@Override
+	public void copyRange( int fromAddress, int toAddress, int length ) {
+		MemorySegment.copy(segment, fromAddress, segment, toAddress, length);
+		markPagesWritten(toAddress, length);
+	}
+
+	@Override
+	public byte[] snapshot() {
+		return segment.asSlice(0, getMaxAddress()).toArray(BYTE);
+	}
+
+	@Override
+	public void restore( byte[] image ) {
+		checkImageSize(image);
+		MemorySegment.copy(image, 0, segment, BYTE, 0, image.length);
+		markAllPagesWritten();
+	}
+
+	@Override
+	public MemorySegment getReadOnlySlice( int offset, int length ) {
+		return segment.asSlice(offset, length).asReadOnly();
+	}
+
+	public boolean isMapped() {
+		return mapped;
+	}
+
+	/**
+	 * Writes a file-mapped memory back to its file.
+	 */
+	public void force() {
+		if( mapped )
+			segment.force();
+	}
+
+	@Override
+	public void close() {
+		force();
+		arena.close();
+	}
+
+	@Override
+	public String toString() {
+		return "OffHeapMemory8 [size=" + getMaxAddress() + ", mapped=" + mapped + "]";
+	}
+
+}
@@ -0,0 +1,99 @@
+package core.memory.memory8;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Process-wide store of ROM and program images, so machines running in the
+ * same JVM share one array per distinct image instead of each holding a copy.
+ * Files are cached by canonical path and reloaded when their size or
+ * modification time changes; every image is interned by content.
+ * Arrays handed out are shared and must be treated as read-only.
+ */
+public final class SharedRomStore {
+
+	private static final class ContentKey {
+		private final byte[] data;
+		private final int hash;
+
+		ContentKey( byte[] data ) {
+			this.data = data;
+			this.hash = Arrays.hashCode(data);
+		}
+
+		@Override
+		public int hashCode() {
+			return hash;
+		}
+
+		@Override
+		public boolean equals( Object other ) {
+			return other instanceof ContentKey && hash==((ContentKey) other).hash &&
+					Arrays.equals(data, ((ContentKey) other).data);
+		}
+	}
+
+	private static final class FileEntry {
+		private final long length;
+		private final long lastModified;
+		private final byte[] data;
+
+		FileEntry( long length, long lastModified, byte[] data ) {
+			this.length = length;
+			this.lastModified = lastModified;
+			this.data = data;
+		}
+	}
+
+	private static final Map<String, FileEntry> FILES = new HashMap<>();
+	private static final Map<ContentKey, byte[]> CONTENTS = new HashMap<>();
+
+	private SharedRomStore() {
+	}
+
+	/**
+	 * @return shared contents of the file
+	 */
+	public static synchronized byte[] load( File file ) throws IOException {
+		String path = file.getCanonicalPath();
+		long length = file.length();
+		long lastModified = file.lastModified();
+		FileEntry entry = FILES.get(path);
+		if( entry!=null && entry.length==length && entry.lastModified==lastModified )
+			return entry.data;
+		byte[] data = intern(Files.readAllBytes(file.toPath()));
+		FILES.put(path, new FileEntry(length, lastModified, data));
+		return data;
+	}
+
+	/**
+	 * @return the shared array with the same contents as image, which becomes
+	 *         the shared array when none exists yet; image must not be modified
+	 *         afterwards either way
+	 */
+	public static synchronized byte[] intern( byte[] image ) {
+		if( image==null )
+			return null;
+		return CONTENTS.computeIfAbsent(new ContentKey(image), key -> key.data);
+	}
+
+	/**
+	 * @return number of distinct images held
+	 */
+	public static synchronized int size() {
+		return CONTENTS.size();
+	}
+
+	/**
+	 * Drops all cached images; arrays already handed out stay valid.
+	 */
+	public static synchronized void clear() {
+		FILES.clear();
+		CONTENTS.clear();
+	}
+
+}
@@ -18,22 +18,28 @@ public class DisplayConsoleAppleIIe extends DisplayConsole {
 	private int pendingPage;
 	private boolean hasPendingChanges;
 	private long lastRenderMs;
+	private int dirtyPageConsumer;
 
 	public DisplayConsoleAppleIIe( MemoryBusIIe memoryBus, long unitsPerCycle ) {
 		super(unitsPerCycle);
 		this.memoryBus = memoryBus;
 		this.memory = memoryBus.getMemory();
+		this.dirtyPageConsumer = memory.addDirtyPageConsumer();
 	}
 
 	@Override
 	public void cycle() throws HardwareException {
 		incSleepCycles(1);
 		int page = memoryBus.isPage2() ? 2:1;
-		char[] frame = captureFrame(page);
-		if( pendingFrame==null || pendingPage!=page || !Arrays.equals(pendingFrame, frame) ) {
-			pendingFrame = frame;
-			pendingPage = page;
-			hasPendingChanges = true;
+		// Main RAM text page 1 is $0400-$07FF, page 2 is $0800-$0BFF
+		boolean textWritten = memory.fetchAndClearPagesWritten(dirtyPageConsumer, 0x04, 0x08);
+		if( pendingFrame==null || pendingPage!=page || textWritten ) {
+			char[] frame = captureFrame(page);
+			if( pendingFrame==null || pendingPage!=page || !Arrays.equals(pendingFrame, frame) ) {
+				pendingFrame = frame;
+				pendingPage = page;
+				hasPendingChanges = true;
+			}
 		}
 		if( !hasPendingChanges )
 			return;
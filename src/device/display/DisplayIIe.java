@@ -27,6 +27,9 @@ import org.lwjgl.sdl.SDL_Rect;
 import org.lwjgl.sdl.SDL_DisplayMode;
 import org.lwjgl.system.MemoryUtil;
 
+import core.emulator.CatchUpDevice;
+import core.emulator.HardwareManager;
+import core.emulator.MachineContext;
 import core.exception.HardwareException;
 import core.memory.memory8.Memory8;
 import core.memory.memory8.MemoryBusIIe;
@@ -34,14 +37,15 @@ import device.display.display8.ScanlineTracer8;
 import device.display.display8.TraceMap8;
 import device.keyboard.KeyboardIIe;
 
-public class DisplayIIe extends DisplayWindow implements VideoSignalSource {
-	private static volatile boolean keyLoggingEnabled;
-	private static volatile String windowBackend = "lwjgl";
-	private static volatile boolean startFullscreenOnLaunch;
-	private static volatile String sdlTextInputMode = "off";
-	private static volatile String sdlFullscreenMode = "exclusive";
-	private static volatile boolean sdlImeUiSelfImplemented;
-	private static volatile boolean sdlTextAnchorDebug;
+public class DisplayIIe extends DisplayWindow implements VideoSignalSource, CatchUpDevice {
+	// Settings of the machine this display belongs to
+	private final boolean keyLoggingEnabled;
+	private final String windowBackend;
+	private final boolean startFullscreenOnLaunch;
+	private final String sdlTextInputMode;
+	private final String sdlFullscreenMode;
+	private final boolean sdlImeUiSelfImplemented;
+	private final boolean sdlTextAnchorDebug;
 
 	private ScanlineTracer8 tracer;
 
@@ -57,6 +61,12 @@ public class DisplayIIe extends DisplayWindow implements VideoSignalSource {
 	private boolean showFps;
 	private long fpsWindowStartNs;
 	private int fpsFrameCount;
+	private long framesRendered;
+	private long framesDropped;
+	private long lastFlipNs;
+	private HardwareManager clock;
+	private int clockStartCycles;
+	private long syncedUnits;
 	private int xPaint;
 	private int yPaint;
 	private int colorWord;
@@ -65,7 +75,7 @@ public class DisplayIIe extends DisplayWindow implements VideoSignalSource {
 	private int offset40 = 0;
 
 	private int flashToggle = 0;
-	private int lastSwitchIteration;
+	private int lastVideoIteration;
 
 	private int [] pal;
 	private int palIndex;
@@ -102,6 +112,7 @@ public class DisplayIIe extends DisplayWindow implements VideoSignalSource {
 	private static final int XSIZE = 567;
 	private static final int YSIZE = 384;
 	private static final int SPLIT_DRAW = 320;
+	private static final long FRAME_INTERVAL_NS = 16_688_000L;  // 17030 cycles
 	private static final float WINDOW_BORDER_RATIO = 0.07f;
 	private static final float CONTENT_FRACTION = 1.0f - (2.0f * WINDOW_BORDER_RATIO);
 	private static final int CONTENT_WIDTH = XSIZE + 2;
@@ -113,57 +124,6 @@ public class DisplayIIe extends DisplayWindow implements VideoSignalSource {
 	private static final long FULLSCREEN_TRANSITION_GUARD_NS = 1_500_000_000L;
 	private static final int SDL_TEXT_ANCHOR_BELOW_OFFSET = 400;
 
-	public static void setWindowBackend(String backend) {
-		if( backend==null ) {
-			windowBackend = "lwjgl";
-			return;
-		}
-		String normalized = backend.trim().toLowerCase();
-		if( normalized.isEmpty() )
-			normalized = "lwjgl";
-		if( !"lwjgl".equals(normalized) && !"sdl".equals(normalized) )
-			throw new IllegalArgumentException("Unsupported window backend: "+backend+" (expected lwjgl or sdl)");
-		windowBackend = normalized;
-	}
-
-	public static void setStartFullscreenOnLaunch(boolean enabled) {
-		startFullscreenOnLaunch = enabled;
-	}
-
-	public static void setSdlTextInputMode(String mode) {
-		if( mode==null ) {
-			sdlTextInputMode = "off";
-			return;
-		}
-		String normalized = mode.trim().toLowerCase();
-		if( normalized.isEmpty() )
-			normalized = "off";
-		if( !"off".equals(normalized) && !"offscreen".equals(normalized) && !"normal".equals(normalized) && !"center".equals(normalized) )
-			throw new IllegalArgumentException("Unsupported text input mode: "+mode+" (expected off, offscreen, normal, or center)");
-		sdlTextInputMode = normalized;
-	}
-
-	public static void setSdlFullscreenMode(String mode) {
-		if( mode==null ) {
-			sdlFullscreenMode = "exclusive";
-			return;
-		}
-		String normalized = mode.trim().toLowerCase();
-		if( normalized.isEmpty() )
-			normalized = "exclusive";
-		if( !"exclusive".equals(normalized) && !"desktop".equals(normalized) )
-			throw new IllegalArgumentException("Unsupported SDL fullscreen mode: "+mode+" (expected exclusive or desktop)");
-		sdlFullscreenMode = normalized;
-	}
-
-	public static void setSdlImeUiSelfImplemented(boolean enabled) {
-		sdlImeUiSelfImplemented = enabled;
-	}
-
-	public static void setSdlTextAnchorDebug(boolean enabled) {
-		sdlTextAnchorDebug = enabled;
-	}
-
 	public static final TraceMap8 LO40_TRACE;
 	public static final TraceMap8 HI40_TRACE;
 
@@ -1305,6 +1265,14 @@ public class DisplayIIe extends DisplayWindow implements VideoSignalSource {
 	
 		super(unitsPerCycle);
 		this.keyboard = keyboard;
+		MachineContext context = getContext();
+		keyLoggingEnabled = context.isKeyLoggingEnabled();
+		windowBackend = context.getWindowBackend();
+		startFullscreenOnLaunch = context.isStartFullscreenOnLaunch();
+		sdlTextInputMode = context.getSdlTextInputMode();
+		sdlFullscreenMode = context.getSdlFullscreenMode();
+		sdlImeUiSelfImplemented = context.isSdlImeUiSelfImplemented();
+		sdlTextAnchorDebug = context.isSdlTextAnchorDebug();
 		
 		setMemoryBus(memoryBus);
 		tracer = new ScanlineTracer8();
@@ -1321,10 +1289,6 @@ public class DisplayIIe extends DisplayWindow implements VideoSignalSource {
 		initializationComplete = true;
 	}
 
-	public static void setKeyLoggingEnabled(boolean enabled) {
-		keyLoggingEnabled = enabled;
-	}
-
 	private void initializeWindow() throws HardwareException {
 		if( "sdl".equals(windowBackend) )
 			initializeSdlWindow();
@@ -1903,6 +1867,17 @@ public class DisplayIIe extends DisplayWindow implements VideoSignalSource {
 		}
 	}
 
+	public long getFramesRendered() {
+		return framesRendered;
+	}
+
+	/**
+	 * @return 60Hz refreshes that passed without a new frame because emulation ran late
+	 */
+	public long getFramesDropped() {
+		return framesDropped;
+	}
+
 	public void setShowFps(boolean showFps) {
 		this.showFps = showFps;
 		this.fpsWindowStartNs = System.nanoTime();
@@ -1973,10 +1948,53 @@ public class DisplayIIe extends DisplayWindow implements VideoSignalSource {
 
 	}
 
+	/**
+	 * Follows the given clock instead of running every cycle: elapsed cycles
+	 * are rendered in bulk whenever the beam is read, a video switch changes
+	 * or a VBL edge is reached.
+	 * @param clock manager whose time the display catches up to, normally the CPU
+	 * @param startCycles clock cycles that pass before the first display cycle
+	 */
+	public void setClock( HardwareManager clock, int startCycles ) {
+		this.clock = clock;
+		this.clockStartCycles = startCycles;
+		syncedUnits = clock.getNextCycleUnits()+startCycles*clock.getUnitsPerCycle();
+		scheduleVblChange();
+	}
+
+	private void scheduleVblChange() {
+		// Wake on VBL edges so a finished frame is flipped without waiting for a read
+		if( clock!=null )
+			sleepUntil(syncedUnits+(tracer.getCyclesToVblChange()-1)*unitsPerCycle);
+	}
+
+	@Override
+	public void catchUp() {
+		if( clock==null )
+			return;
+		long now = clock.getNextCycleUnits();
+		while( syncedUnits<now ) {
+			tick();
+			syncedUnits += unitsPerCycle;
+		}
+	}
+
 	@Override
 	public void cycle() throws HardwareException {
+		if( clock==null ) {
+			incSleepCycles(1);
+			tick();
+			return;
+		}
+		catchUp();
+		while( syncedUnits<=getNextCycleUnits() ) {
+			tick();
+			syncedUnits += unitsPerCycle;
+		}
+		scheduleVblChange();
+	}
 
-		incSleepCycles(1);
+	private void tick() {
 
 		if( !tracer.isBlank() ) {
 			tracer.cycle();
@@ -1987,10 +2005,10 @@ public class DisplayIIe extends DisplayWindow implements VideoSignalSource {
 				shiftBit = 0;
 				yPaint += 2;
 				if( yPaint==SPLIT_DRAW )
-					lastSwitchIteration--;
+					lastVideoIteration--;
 				else if( yPaint==YSIZE ) {
 					yPaint = 0;
-					lastSwitchIteration--;
+					lastVideoIteration--;
 					flipPage();
 					cleanEdges();
 				}
@@ -2007,10 +2025,9 @@ public class DisplayIIe extends DisplayWindow implements VideoSignalSource {
 				return;
 		}
 
-		// *** TODO change this to evaluate only display switch changes
-		int switchIteration = memoryBus.getSwitchIteration();
-		if( lastSwitchIteration!=switchIteration ) {
-			lastSwitchIteration = switchIteration;
+		int videoIteration = memoryBus.getVideoIteration();
+		if( lastVideoIteration!=videoIteration ) {
+			lastVideoIteration = videoIteration;
 			evaluateSwitchChange();
 		}
 
@@ -2131,6 +2148,11 @@ public class DisplayIIe extends DisplayWindow implements VideoSignalSource {
 		paintPage = bufferPage;
 		blitToWindow(rawDisplay[paintPage]);
 		bufferPage = bufferPage==1 ? 0:1;
+		long flipNs = System.nanoTime();
+		if( lastFlipNs!=0L && flipNs-lastFlipNs>2*FRAME_INTERVAL_NS )
+			framesDropped += (flipNs-lastFlipNs)/FRAME_INTERVAL_NS-1;
+		lastFlipNs = flipNs;
+		framesRendered++;
 		if( showFps ) {
 			fpsFrameCount++;
 			long nowNs = System.nanoTime();
@@ -2436,7 +2458,7 @@ public class DisplayIIe extends DisplayWindow implements VideoSignalSource {
 
 	@Override
 	public void coldReset() throws HardwareException {
-		lastSwitchIteration = -1;
+		lastVideoIteration = -1;
 		evaluateSwitchChange();
 		tracer.coldReset();
 		rawDisplay = new BufferedImage[2];
@@ -2452,11 +2474,12 @@ public class DisplayIIe extends DisplayWindow implements VideoSignalSource {
 		int randScans = new Random().nextInt(17030);
 		memory = new Memory8(0x10000);
 		memory.coldReset();
-		for( int i = 0; i<randScans; i++ ) {
-			incSleepCycles(-1);
-			cycle();
-		}
+		for( int i = 0; i<randScans; i++ )
+			tick();
 		memory = memoryBus.getMemory();
+		if( clock!=null )
+			syncedUnits = clock.getNextCycleUnits()+clockStartCycles*clock.getUnitsPerCycle();
+		scheduleVblChange();
 	}
 
 	private void generatePalette() {
@@ -2518,15 +2541,18 @@ public class DisplayIIe extends DisplayWindow implements VideoSignalSource {
 	}
 
 	public int getLastRead() {
+		catchUp();
 		return memory.getByte(tracer.getAddress());
 	}
 
 	public boolean isVbl() {
+		catchUp();
 		return tracer.isVbl();
 	}
 
 	@Override
 	public int getVScan() {
+		catchUp();
 		return tracer.getVScan();
 	}
 
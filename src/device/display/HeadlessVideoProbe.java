@@ -1,5 +1,6 @@
 package device.display;
 
+import core.emulator.CatchUpDevice;
 import core.emulator.HardwareManager;
 import core.exception.HardwareException;
 import core.memory.memory8.Memory8;
@@ -9,14 +10,20 @@ import device.display.display8.ScanlineTracer8;
 /**
  * Headless monitor timing/probe used to supply floating-bus style reads
  * without creating a UI window.
+ * The probe is either advanced explicitly with advanceCycles or, once given a
+ * clock, caught up lazily to that clock whenever it is read or a video switch
+ * changes. In the latter case it only runs as a manager at VBL edges.
  */
-public class HeadlessVideoProbe extends HardwareManager implements VideoSignalSource {
+public class HeadlessVideoProbe extends HardwareManager implements VideoSignalSource, CatchUpDevice {
 
 	private final MemoryBusIIe memoryBus;
 	private final Memory8 memory;
 	private final ScanlineTracer8 tracer;
 	private final int resetPhaseCycles;
-	private int lastSwitchIteration;
+	private int lastVideoIteration;
+	private HardwareManager clock;
+	private int clockStartCycles;
+	private long syncedUnits;
 
 	public HeadlessVideoProbe(MemoryBusIIe memoryBus, long unitsPerCycle) {
 		super(unitsPerCycle);
@@ -30,11 +37,26 @@ public class HeadlessVideoProbe extends HardwareManager implements VideoSignalSo
 	}
 
 	private void coldResetNoThrow() {
-		lastSwitchIteration = -1;
+		lastVideoIteration = -1;
 		evaluateSwitchChange();
 		tracer.coldReset();
 		if( resetPhaseCycles>0 )
 			advanceCycles(resetPhaseCycles);
+		if( clock!=null )
+			syncedUnits = clock.getNextCycleUnits()+clockStartCycles*clock.getUnitsPerCycle();
+		scheduleVblChange();
+	}
+
+	/**
+	 * Follows the given clock instead of advanceCycles.
+	 * @param clock manager whose time the probe catches up to, normally the CPU
+	 * @param startCycles clock cycles that pass before the first probe cycle
+	 */
+	public void setClock( HardwareManager clock, int startCycles ) {
+		this.clock = clock;
+		this.clockStartCycles = startCycles;
+		syncedUnits = clock.getNextCycleUnits()+startCycles*clock.getUnitsPerCycle();
+		scheduleVblChange();
 	}
 
 	private void evaluateSwitchChange() {
@@ -45,24 +67,58 @@ public class HeadlessVideoProbe extends HardwareManager implements VideoSignalSo
 			tracer.setTraceMap(DisplayIIe.LO40_TRACE);
 	}
 
-	@Override
-	public void cycle() throws HardwareException {
-		incSleepCycles(1);
-		if( lastSwitchIteration!=memoryBus.getSwitchIteration() ) {
-			lastSwitchIteration = memoryBus.getSwitchIteration();
+	private void tick() {
+		if( lastVideoIteration!=memoryBus.getVideoIteration() ) {
+			lastVideoIteration = memoryBus.getVideoIteration();
 			evaluateSwitchChange();
 		}
 		tracer.cycle();
 	}
 
-	public void advanceCycles(int cycles) {
-		for( int i = 0; i<cycles; i++ ) {
-			try {
-				cycle();
-			} catch( HardwareException e ) {
-				throw new RuntimeException(e);
-			}
+	private void scheduleVblChange() {
+		// Wake on the cycle that flips VBL so idle loop fast forward never
+		// skips a VBL edge a polling loop is waiting for
+		if( clock!=null )
+			sleepUntil(syncedUnits+(tracer.getCyclesToVblChange()-1)*unitsPerCycle);
+	}
+
+	@Override
+	public void catchUp() {
+		if( clock==null )
+			return;
+		long now = clock.getNextCycleUnits();
+		while( syncedUnits<now ) {
+			tick();
+			syncedUnits += unitsPerCycle;
+		}
+	}
+
+	@Override
+	public void cycle() throws HardwareException {
+		if( clock==null ) {
+			incSleepCycles(1);
+			tick();
+			return;
+		}
+		catchUp();
+		while( syncedUnits<=getNextCycleUnits() ) {
+			tick();
+			syncedUnits += unitsPerCycle;
 		}
+		scheduleVblChange();
+	}
+
+	/**
+	 * Advances the beam by the given number of cycles; with a clock this only
+	 * shifts the beam phase against the clock.
+	 */
+	public void advanceCycles(int cycles) {
+		for( int i = 0; i<cycles; i++ )
+			tick();
+		if( clock==null )
+			incSleepCycles(cycles);
+		else
+			scheduleVblChange();
 	}
 
 	@Override
@@ -72,10 +128,11 @@ public class HeadlessVideoProbe extends HardwareManager implements VideoSignalSo
 
 	@Override
 	public int getLastRead() {
+		catchUp();
 		// Keep soft-switch display mode/page changes visible to floating-bus reads
 		// immediately, even between probe cycles.
-		if( lastSwitchIteration!=memoryBus.getSwitchIteration() ) {
-			lastSwitchIteration = memoryBus.getSwitchIteration();
+		if( lastVideoIteration!=memoryBus.getVideoIteration() ) {
+			lastVideoIteration = memoryBus.getVideoIteration();
 			evaluateSwitchChange();
 		}
 		return memory.getByte(tracer.getAddress());
@@ -83,11 +140,13 @@ public class HeadlessVideoProbe extends HardwareManager implements VideoSignalSo
 
 	@Override
 	public boolean isVbl() {
+		catchUp();
 		return tracer.isVbl();
 	}
 
 	@Override
 	public int getVScan() {
+		catchUp();
 		return tracer.getVScan();
 	}
 }
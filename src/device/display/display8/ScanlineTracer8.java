@@ -88,6 +88,14 @@ public class ScanlineTracer8 implements HardwareComponent {
 		return isHbl()||isVbl();
 	}
 
+	/**
+	 * @return number of cycle calls until isVbl changes
+	 */
+	public int getCyclesToVblChange() {
+		int lines = isVbl() ? vStart-vScan : vSize-vScan;
+		return hSize-hScan+(lines-1)*hSize;
+	}
+
 	public int getHScan() {
 		return hScan;
 	}
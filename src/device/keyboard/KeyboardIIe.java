@@ -19,8 +19,6 @@ import core.cpu.cpu8.Cpu65c02;
 import core.exception.HardwareException;
 
 public class KeyboardIIe extends Keyboard {
-	private static volatile boolean keyLoggingEnabled;
-
 	private Cpu65c02 cpu;
 
 	private ConcurrentLinkedQueue<Integer> keyEventQueue = new ConcurrentLinkedQueue<>();
@@ -38,6 +36,8 @@ public class KeyboardIIe extends Keyboard {
 	private int keyCount;
 	private byte modIndex;
 	private boolean isHalted;
+	private volatile Runnable speedHotkey;
+	private boolean speedHotkeyDown;
 	private int cycleCount;
 	private int delayCount;
 	private long queuedKeyCount;
@@ -215,8 +215,11 @@ public class KeyboardIIe extends Keyboard {
 		applyCapsLockState();
 	}
 
-	public static void setKeyLoggingEnabled(boolean enabled) {
-		keyLoggingEnabled = enabled;
+	/**
+	 * @param action run on the input thread when F11 is pressed
+	 */
+	public void setSpeedHotkey( Runnable action ) {
+		speedHotkey = action;
 	}
 
 	@Override
@@ -271,6 +274,10 @@ public class KeyboardIIe extends Keyboard {
 			// Ignore Ctrl+F11 to avoid accidental non-reset hotkeys when users intend Ctrl+F12.
 			if( ctrlDown || (modifierSet&KEY_MASK_CTRL)!=0 )
 				return;
+			// F11 steps through the emulation speeds, once per press
+			if( !speedHotkeyDown && speedHotkey!=null )
+				speedHotkey.run();
+			speedHotkeyDown = true;
 			break;
 		case KeyEvent.VK_F12:
 			if( (modifierSet&KEY_MASK_CTRL)!=0 && !isHalted ) {
@@ -393,6 +400,7 @@ public class KeyboardIIe extends Keyboard {
 		case KeyEvent.VK_F9:           endPressedKeyEvent(KEY_MASK_F9); break;
 		case KeyEvent.VK_F10:          endPressedKeyEvent(KEY_MASK_F10); break;
 		case KeyEvent.VK_F11:
+			speedHotkeyDown = false;
 			if( ctrlDown || (modifierSet&KEY_MASK_CTRL)!=0 )
 				return;
 			break;
@@ -724,9 +732,9 @@ public class KeyboardIIe extends Keyboard {
 			modifierSet &= ~KEY_MASK_CAPS;
 	}
 
-	private static void logKeyProbe(String phase, int keyCode, char keyChar,
+	private void logKeyProbe(String phase, int keyCode, char keyChar,
 			boolean shiftDown, boolean ctrlDown, boolean altDown, boolean metaDown, int modifiersEx) {
-		if( !keyLoggingEnabled )
+		if( !getContext().isKeyLoggingEnabled() )
 			return;
 		if( keyCode!=KeyEvent.VK_INSERT && keyCode!=KeyEvent.VK_F11 && keyCode!=KeyEvent.VK_F12 && keyCode!=KeyEvent.VK_HELP )
 			return;
@@ -8,10 +8,11 @@ import javax.sound.sampled.SourceDataLine;
 
 import core.exception.HardwareException;
 import core.memory.memory8.MemoryBusIIe;
+import core.emulator.CyclePrecisionSource;
 import core.emulator.HardwareManager;
 
-public class Speaker1Bit extends HardwareManager  {
-	private static volatile boolean blockingDebugEnabled;
+public class Speaker1Bit extends HardwareManager implements CyclePrecisionSource  {
+	private final boolean blockingDebugEnabled;
 	private static final long BLOCKING_DEBUG_THRESHOLD_NS = 100_000_000L; // 100ms
 
 	private static final int SAMPLE_BUFFER_SAMPLES = 1024;   // Lag of 1/40th to 1/20th of a second at 22050Hz
@@ -23,6 +24,9 @@ public class Speaker1Bit extends HardwareManager  {
 	private static final int SKIP_CYCLES = 4;   // Granularity of physics simulation (speaker sensitivity)
 	                                            // A value of 1 checks for changes every cycle, 4 every 4 cycles, etc.
 	
+	private static final int PRECISION_HOLD_CYCLES = 8192;  // CPU runs cycle-exact for this long after a toggle,
+	                                                        // so tones above ~125Hz keep exact toggle spacing
+
 	private static final float FRICTION = .01f;                                 // 1% acceleration loss per unit velocity
 	private static final int CHARGE_DURATION = 20/SKIP_CYCLES;                  // 20 cycles
 	private static final float MAGNET_FORCE = 11f*SKIP_CYCLES*SKIP_CYCLES;      // Magnet acceleration in units distance per increment
@@ -44,6 +48,7 @@ public class Speaker1Bit extends HardwareManager  {
 	private SourceDataLine sdl;
 	private int bufferIndex;
 	private boolean closed;
+	private long underruns;
 	private volatile long muteUntilNs;
 
 	private float pos;
@@ -52,6 +57,7 @@ public class Speaker1Bit extends HardwareManager  {
 	private boolean toggleChargeNegative;
 	private float charge;
 	private int chargeDur;
+	private int precisionCycles;
 	
 	private float sampleSum;
 	private int sampleTotal;
@@ -61,6 +67,7 @@ public class Speaker1Bit extends HardwareManager  {
 	public Speaker1Bit( MemoryBusIIe bus, long unitsPerCycle, long bitGranularity ) throws LineUnavailableException {
 
 		super(unitsPerCycle);
+		blockingDebugEnabled = getContext().isBlockingDebugEnabled();
 		durationInc = 1000000000d*(unitsPerCycle/Math.pow(2d, bitGranularity)/1000d)*SKIP_CYCLES;
 		this.bus = bus;
 		
@@ -84,15 +91,17 @@ public class Speaker1Bit extends HardwareManager  {
 		
 	}
 
-	public static void setBlockingDebugEnabled(boolean enabled) {
-		blockingDebugEnabled = enabled;
-	}
-	
 	public void toggle()
 	{
 		chargeDur = CHARGE_DURATION;
 		charge = toggleChargeNegative ? -MAGNET_FORCE : MAGNET_FORCE;
 		toggleChargeNegative = !toggleChargeNegative;
+		precisionCycles = PRECISION_HOLD_CYCLES;
+	}
+
+	@Override
+	public boolean isCyclePrecisionRequired() {
+		return precisionCycles>0;
 	}
 
 	public static int getSkipCycles() {
@@ -106,6 +115,8 @@ public class Speaker1Bit extends HardwareManager  {
 			toggle();
 			bus.setSpeakerToggle(false);
 		}
+		else if( precisionCycles>0 )
+			precisionCycles -= SKIP_CYCLES;
 		
 		super.incSleepCycles(SKIP_CYCLES);
 		advanceSimulation(true);
@@ -121,6 +132,7 @@ public class Speaker1Bit extends HardwareManager  {
 		boolean savedToggleChargeNegative = toggleChargeNegative;
 		float savedCharge = charge;
 		int savedChargeDur = chargeDur;
+		int savedPrecisionCycles = precisionCycles;
 		float savedSampleSum = sampleSum;
 		int savedSampleTotal = sampleTotal;
 		double savedSampleLength = sampleLength;
@@ -161,6 +173,7 @@ public class Speaker1Bit extends HardwareManager  {
 		toggleChargeNegative = savedToggleChargeNegative;
 		charge = savedCharge;
 		chargeDur = savedChargeDur;
+		precisionCycles = savedPrecisionCycles;
 		sampleSum = savedSampleSum;
 		sampleTotal = savedSampleTotal;
 		sampleLength = savedSampleLength;
@@ -243,6 +256,9 @@ public class Speaker1Bit extends HardwareManager  {
 		}
 		if( bufferIndex>=buffer.length ) {
 			int bytesToWrite = bufferIndex;
+			// A line with nothing left to play has already gone silent
+			if( sdl.available()>=sdl.getBufferSize() && sdl.getLongFramePosition()>0 )
+				underruns++;
 			if( blockingDebugEnabled ) {
 				long startNs = System.nanoTime();
 				sdl.write(buffer, 0, bufferIndex);
@@ -264,6 +280,13 @@ public class Speaker1Bit extends HardwareManager  {
 		sdl.start();
 	}
 
+	/**
+	 * @return buffers written after the audio line had run dry
+	 */
+	public long getUnderruns() {
+		return underruns;
+	}
+
 	public void setStartupMuteMs(int muteMs) {
 		if( muteMs<=0 )
 			muteUntilNs = 0L;
@@ -0,0 +1,106 @@
+package jmh.cpu;
+
+import java.util.PriorityQueue;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OperationsPerInvocation;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import core.cpu.cpu8.Cpu65c02;
+import core.emulator.HardwareManager;
+import core.emulator.machine.Emulator;
+import core.exception.HardwareException;
+import core.memory.memory8.Memory8;
+import core.memory.memory8.MemoryBusIIe;
+
+/**
+ * Per-cycle CPU cost for tight loops of one opcode family each.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class CpuCycleBenchmark {
+
+	private static final int CYCLES_PER_INVOCATION = 1024;
+	private static final int PROGRAM_START = 0x0300;
+
+	@Param({ "LDA", "STA", "ALU", "RMW", "BRANCH", "STACK" })
+	public String family;
+
+	@Param({ "false", "true" })
+	public boolean jit;
+
+	private Cpu65c02 cpu;
+
+	@Setup
+	public void setUp() throws HardwareException {
+		Memory8 memory = new Memory8(0x20000);
+		byte[] rom = new byte[0x4000];
+		rom[0x3ffc] = (byte) PROGRAM_START;
+		rom[0x3ffd] = (byte) (PROGRAM_START>>8);
+		MemoryBusIIe bus = new MemoryBusIIe(memory, rom);
+		cpu = new Cpu65c02(bus, 1);
+		cpu.setJitEnabled(jit);
+		PriorityQueue<HardwareManager> queue = new PriorityQueue<>();
+		queue.add(cpu);
+		new Emulator(queue, 0);
+
+		int[] program = getProgram(family);
+		for( int i = 0; i<program.length; i++ )
+			bus.setByte(PROGRAM_START+i, program[i]);
+		// Pointer used by (ind),Y forms and a subroutine for STACK
+		bus.setByte(0x20, 0x00);
+		bus.setByte(0x21, 0x04);
+		bus.setByte(0x0380, 0x60);
+	}
+
+	private static int[] getProgram( String family ) {
+		switch( family ) {
+			case "LDA":
+				return new int[] { 0xa9, 0x11, 0xa5, 0x10, 0xad, 0x00, 0x04, 0xbd, 0x00, 0x04,
+						0xb9, 0xf0, 0x04, 0xb1, 0x20, 0x4c, 0x00, 0x03 };
+			case "STA":
+				return new int[] { 0x85, 0x10, 0x8d, 0x00, 0x04, 0x9d, 0x00, 0x04,
+						0x99, 0x00, 0x04, 0x91, 0x20, 0x4c, 0x00, 0x03 };
+			case "ALU":
+				return new int[] { 0xd8, 0x69, 0x01, 0xe9, 0x01, 0x25, 0x10, 0x0d, 0x00, 0x04,
+						0x5d, 0x00, 0x04, 0xc9, 0x40, 0x4c, 0x00, 0x03 };
+			case "RMW":
+				return new int[] { 0xe6, 0x10, 0xce, 0x00, 0x04, 0x1e, 0x00, 0x04,
+						0x46, 0x10, 0x2a, 0x7e, 0x00, 0x04, 0x4c, 0x00, 0x03 };
+			case "BRANCH":
+				return new int[] { 0xa2, 0x00, 0xe8, 0xd0, 0xfd, 0x4c, 0x00, 0x03 };
+			case "STACK":
+				return new int[] { 0x20, 0x80, 0x03, 0x48, 0x68, 0x08, 0x28, 0x4c, 0x00, 0x03 };
+			default:
+				throw new IllegalArgumentException("Unknown opcode family: "+family);
+		}
+	}
+
+	@Benchmark
+	@OperationsPerInvocation(CYCLES_PER_INVOCATION)
+	public void cycle() throws HardwareException {
+		for( int i = 0; i<CYCLES_PER_INVOCATION; i++ )
+			cpu.cycle();
+	}
+
+	@Benchmark
+	@OperationsPerInvocation(CYCLES_PER_INVOCATION)
+	public void runUntil() throws HardwareException {
+		cpu.runUntil(cpu.getNextCycleUnits()+CYCLES_PER_INVOCATION);
+	}
+
+}
@@ -0,0 +1,77 @@
+package jmh.device;
+
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+import core.exception.HardwareException;
+import core.memory.memory8.Memory8;
+import core.memory.memory8.MemoryBusIIe;
+import device.display.HeadlessVideoProbe;
+
+/**
+ * Cost of tracing one 65-cycle scanline of video timing and fetches.
+ * DisplayIIe needs a GLFW/SDL window and cannot run under JMH's headless
+ * forks, so this measures the shared ScanlineTracer8 path through
+ * HeadlessVideoProbe, which DisplayIIe drives the same way per cycle.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class ScanlineBenchmark {
+
+	private static final int CYCLES_PER_SCANLINE = 65;
+
+	@Param({ "TEXT", "HIRES", "HIRES_PAGE2" })
+	public String mode;
+
+	private MemoryBusIIe bus;
+	private HeadlessVideoProbe probe;
+
+	@Setup
+	public void setUp() throws HardwareException {
+		Memory8 memory = new Memory8(0x20000);
+		bus = new MemoryBusIIe(memory, new byte[0x4000]);
+		bus.coldReset();
+		for( int address = 0x0400; address<0x6000; address++ )
+			memory.setByte(address, address*7);
+		switch( mode ) {
+			case "TEXT":
+				break;
+			case "HIRES":
+				bus.setText(false);
+				bus.setHiRes(true);
+				break;
+			case "HIRES_PAGE2":
+				bus.setText(false);
+				bus.setHiRes(true);
+				bus.setPage2(true);
+				break;
+			default:
+				throw new IllegalArgumentException("Unknown video mode: "+mode);
+		}
+		probe = new HeadlessVideoProbe(bus, 1);
+		bus.setDisplay(probe);
+	}
+
+	@Benchmark
+	public void scanline( Blackhole blackhole ) {
+		probe.advanceCycles(CYCLES_PER_SCANLINE);
+		blackhole.consume(probe.getLastRead());
+	}
+
+}
@@ -0,0 +1,73 @@
+package jmh.device;
+
+import java.util.concurrent.TimeUnit;
+
+import javax.sound.sampled.LineUnavailableException;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OperationsPerInvocation;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import core.exception.HardwareException;
+import core.memory.memory8.Memory8;
+import core.memory.memory8.MemoryBusIIe;
+import device.speaker.Speaker1Bit;
+
+/**
+ * Speaker1Bit.cycle cost with the speaker idle or toggled periodically.
+ * Each call covers Speaker1Bit.getSkipCycles() CPU cycles.
+ * Needs an audio line; output stays muted so line writes never block.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class SpeakerBenchmark {
+
+	private static final int CYCLES_PER_INVOCATION = 1024;
+	private static final int GRANULARITY_BITS_PER_MS = 32;
+	private static final double CPU_CLOCK = 1020484d;
+
+	// Calls between toggles, 0 for a silent speaker
+	@Param({ "0", "64" })
+	public int toggleInterval;
+
+	private MemoryBusIIe bus;
+	private Speaker1Bit speaker;
+
+	@Setup
+	public void setUp() throws HardwareException, LineUnavailableException {
+		bus = new MemoryBusIIe(new Memory8(0x20000), new byte[0x4000]);
+		bus.coldReset();
+		speaker = new Speaker1Bit(bus, (long) ((1000L<<GRANULARITY_BITS_PER_MS)/CPU_CLOCK), GRANULARITY_BITS_PER_MS);
+		speaker.setStartupMuteMs(Integer.MAX_VALUE);
+	}
+
+	@TearDown
+	public void tearDown() {
+		speaker.close();
+	}
+
+	@Benchmark
+	@OperationsPerInvocation(CYCLES_PER_INVOCATION)
+	public void cycle() throws HardwareException {
+		for( int i = 0; i<CYCLES_PER_INVOCATION; i++ ) {
+			if( toggleInterval>0 && i%toggleInterval==0 )
+				bus.setSpeakerToggle(true);
+			speaker.cycle();
+		}
+	}
+
+}
@@ -0,0 +1,160 @@
+package jmh.machine;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.PriorityQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+import org.openjdk.jmh.annotations.AuxCounters;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import core.cpu.cpu8.Cpu65c02;
+import core.emulator.HardwareManager;
+import core.emulator.machine.Emulator;
+import core.exception.HardwareException;
+import core.memory.memory8.Memory8;
+import core.memory.memory8.MemoryBusIIe;
+import device.display.HeadlessVideoProbe;
+import device.keyboard.KeyboardIIe;
+
+/**
+ * Full-machine throughput on the ROMS/opcode_smoke_* images: each invocation
+ * runs one image from reset to its pass or fail loop on a headless IIe.
+ * The "cycles" counter is emulated CPU cycles per second, i.e. emulated Hz.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 5)
+@Measurement(iterations = 5, time = 5)
+@Fork(1)
+public class OpcodeSmokeBenchmark {
+
+	private static final long FRAME_CYCLES = 17030;
+	private static final long MAX_FRAMES = 10000;
+
+	@Param({ "opcode_smoke_hgr_mem_32k" })
+	public String image;
+
+	@Param({ "false", "true" })
+	public boolean jit;
+
+	private byte[] program;
+	private int base;
+	private int entry;
+	private int brkTarget;
+	private int passLoop;
+	private int failLoop;
+
+	@AuxCounters(AuxCounters.Type.EVENTS)
+	@State(Scope.Thread)
+	public static class EmulatedCycles {
+		public long cycles;
+
+		@Setup(Level.Iteration)
+		public void reset() {
+			cycles = 0;
+		}
+	}
+
+	// Stops the run once the CPU sits in the pass or fail loop
+	private static final class LoopWatch extends HardwareManager {
+		private final Cpu65c02 cpu;
+		private final int passLoop;
+		private final int failLoop;
+		private boolean done;
+
+		LoopWatch( Cpu65c02 cpu, int passLoop, int failLoop ) {
+			super(FRAME_CYCLES);
+			this.cpu = cpu;
+			this.passLoop = passLoop;
+			this.failLoop = failLoop;
+		}
+
+		@Override
+		public void coldReset() {
+			resetCycleCount();
+			done = false;
+		}
+
+		@Override
+		public void cycle() {
+			int pc = cpu.getRegister().getPC()&0xffff;
+			done = pc==passLoop || pc==failLoop;
+			incSleepCycles(1);
+		}
+	}
+
+	@Setup(Level.Trial)
+	public void loadImage() throws IOException {
+		program = Files.readAllBytes(Path.of("ROMS", image+".bin"));
+		String meta = new String(Files.readAllBytes(Path.of("ROMS", image+".meta.json")), StandardCharsets.UTF_8);
+		base = getMetaInt(meta, "base");
+		entry = Integer.decode(getMetaString(meta, "entry_addr"));
+		brkTarget = getMetaInt(meta, "brk_vector_target");
+		passLoop = getMetaInt(meta, "pass_loop");
+		failLoop = getMetaInt(meta, "fail_loop");
+	}
+
+	private static String getMetaString( String meta, String key ) {
+		Matcher matcher = Pattern.compile("\""+key+"\"\\s*:\\s*\"([^\"]*)\"").matcher(meta);
+		if( !matcher.find() )
+			throw new IllegalStateException("Missing \""+key+"\" in image metadata");
+		return matcher.group(1);
+	}
+
+	private static int getMetaInt( String meta, String key ) {
+		Matcher matcher = Pattern.compile("\""+key+"\"\\s*:\\s*(\\d+)").matcher(meta);
+		if( !matcher.find() )
+			throw new IllegalStateException("Missing \""+key+"\" in image metadata");
+		return Integer.parseInt(matcher.group(1));
+	}
+
+	@Benchmark
+	public void runToPassLoop( EmulatedCycles counters ) throws HardwareException, InterruptedException {
+		Memory8 memory = new Memory8(0x20000);
+		byte[] rom = new byte[0x4000];
+		rom[0x3ffc] = (byte) entry;
+		rom[0x3ffd] = (byte) (entry>>8);
+		rom[0x3ffe] = (byte) brkTarget;
+		rom[0x3fff] = (byte) (brkTarget>>8);
+		MemoryBusIIe bus = new MemoryBusIIe(memory, rom);
+		bus.coldReset();
+		Cpu65c02 cpu = new Cpu65c02(bus, 1);
+		cpu.setJitEnabled(jit);
+		KeyboardIIe keyboard = new KeyboardIIe(FRAME_CYCLES, cpu);
+		bus.setKeyboard(keyboard);
+		bus.setDisplay(new HeadlessVideoProbe(bus, 1));
+		LoopWatch watch = new LoopWatch(cpu, passLoop, failLoop);
+		PriorityQueue<HardwareManager> queue = new PriorityQueue<>();
+		queue.add(cpu);
+		queue.add(keyboard);
+		queue.add(watch);
+		Emulator emulator = new Emulator(queue, 0);
+		emulator.setRealtimeThrottleEnabled(false);
+		emulator.setIdleFastForwardEnabled(false);
+		for( int i = 0; i<program.length; i++ )
+			memory.setByte(base+i, program[i]);
+
+		emulator.startWithStepPhases(MAX_FRAMES, watch, (step, manager, preCycle) -> preCycle || !watch.done);
+		if( (cpu.getRegister().getPC()&0xffff)!=passLoop )
+			throw new IllegalStateException("Opcode smoke image "+image+" did not reach its pass loop");
+		counters.cycles += cpu.getNextCycleUnits();
+	}
+
+}
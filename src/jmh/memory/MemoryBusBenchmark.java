@@ -0,0 +1,132 @@
+package jmh.memory;
+
+import java.util.PriorityQueue;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OperationsPerInvocation;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+import core.cpu.cpu8.Cpu65c02;
+import core.emulator.HardwareManager;
+import core.emulator.machine.Emulator;
+import core.exception.HardwareException;
+import core.memory.memory8.Memory8;
+import core.memory.memory8.MemoryBusIIe;
+import device.keyboard.KeyboardIIe;
+
+/**
+ * MemoryBusIIe byte access cost per 256-byte page of each memory region,
+ * under the soft switch states that change how the region is mapped.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class MemoryBusBenchmark {
+
+	private static final int BYTES_PER_INVOCATION = 0x100;
+
+	@Param({ "ZERO_PAGE", "MAIN_RAM", "TEXT_PAGE", "HIRES_PAGE", "LANGUAGE_CARD", "ROM", "STATUS_SWITCHES" })
+	public String region;
+
+	@Param({ "MAIN", "AUX", "STORE80_PAGE2", "LC_RAM" })
+	public String switches;
+
+	private MemoryBusIIe bus;
+	private int base;
+
+	@Setup
+	public void setUp() throws HardwareException {
+		Memory8 memory = new Memory8(0x20000);
+		byte[] rom = new byte[0x4000];
+		for( int i = 0; i<rom.length; i++ )
+			rom[i] = (byte) i;
+		bus = new MemoryBusIIe(memory, rom);
+		Cpu65c02 cpu = new Cpu65c02(bus, 1);
+		KeyboardIIe keyboard = new KeyboardIIe(17030, cpu);
+		bus.setKeyboard(keyboard);
+		PriorityQueue<HardwareManager> queue = new PriorityQueue<>();
+		queue.add(cpu);
+		queue.add(keyboard);
+		new Emulator(queue, 0);
+
+		base = getRegionBase(region);
+		switch( switches ) {
+			case "MAIN":
+				break;
+			case "AUX":
+				bus.setRamRead(true);
+				bus.setRamWrt(true);
+				bus.setAltZp(true);
+				break;
+			case "STORE80_PAGE2":
+				bus.setByte(0xc001, 0);
+				bus.setHiRes(true);
+				bus.setPage2(true);
+				break;
+			case "LC_RAM":
+				bus.setHRamRd(true);
+				bus.setHRamWrt(true);
+				bus.setPreWrite(true);
+				break;
+			default:
+				throw new IllegalArgumentException("Unknown switch state: "+switches);
+		}
+	}
+
+	private static int getRegionBase( String region ) {
+		switch( region ) {
+			case "ZERO_PAGE":
+				return 0x0000;
+			case "MAIN_RAM":
+				return 0x0800;
+			case "TEXT_PAGE":
+				return 0x0400;
+			case "HIRES_PAGE":
+				return 0x2000;
+			case "LANGUAGE_CARD":
+				return 0xd000;
+			case "ROM":
+				return 0xf800;
+			case "STATUS_SWITCHES":
+				// $C010-$C01F only touch the keyboard strobe, so the memory map is left alone
+				return 0xc010;
+			default:
+				throw new IllegalArgumentException("Unknown memory region: "+region);
+		}
+	}
+
+	@Benchmark
+	@OperationsPerInvocation(BYTES_PER_INVOCATION)
+	public void getByte( Blackhole blackhole ) {
+		int mask = getAddressMask();
+		for( int i = 0; i<BYTES_PER_INVOCATION; i++ )
+			blackhole.consume(bus.getByte(base+(i&mask)));
+	}
+
+	@Benchmark
+	@OperationsPerInvocation(BYTES_PER_INVOCATION)
+	public void setByte() {
+		int mask = getAddressMask();
+		for( int i = 0; i<BYTES_PER_INVOCATION; i++ )
+			bus.setByte(base+(i&mask), i);
+	}
+
+	private int getAddressMask() {
+		return base==0xc010 ? 0x0f : 0xff;
+	}
+
+}
@@ -7,6 +7,7 @@ import java.io.FileOutputStream;
 import java.io.IOException;
 
 import peripherals.PeripheralIIe;
+import core.emulator.CyclePrecisionSource;
 import core.emulator.VirtualMachineProperties;
 import core.exception.HardwareException;
 import core.memory.memory8.MemoryBusIIe.SwitchSet8;
@@ -26,7 +27,7 @@ import core.memory.memory8.MemoryBusIIe.SwitchSet8;
  * 9-28 disk byte layout
  */
 
-public class Floppy525Controller extends PeripheralIIe {
+public class Floppy525Controller extends PeripheralIIe implements CyclePrecisionSource {
 
 	private String[] fileName = new String[2];
 
@@ -422,6 +423,12 @@ public class Floppy525Controller extends PeripheralIIe {
 		return driveSelect+1;
 	}
 
+	// Nibbles rotate under the head every 32 cycles while the motor runs
+	@Override
+	public boolean isCyclePrecisionRequired() {
+		return driveOn;
+	}
+
 	private void startDrive() {
 		if( driveOn )
 			return;
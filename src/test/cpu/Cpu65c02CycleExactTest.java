@@ -0,0 +1,254 @@
+package test.cpu;
+
+import core.cpu.cpu8.Cpu65c02;
+import core.cpu.cpu8.Register;
+import core.emulator.CyclePrecisionSource;
+import core.emulator.HardwareManager;
+import core.emulator.machine.Emulator;
+import core.memory.memory8.Memory8;
+import core.memory.memory8.MemoryBusIIe;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.PriorityQueue;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+public class Cpu65c02CycleExactTest {
+
+    private static final int MEM_SIZE = 0x20000;
+    private static final int ROM_SIZE = 0x4000;
+
+    private static final class TimedBus extends MemoryBusIIe {
+        private final List<String> accesses = new ArrayList<String>();
+        private Cpu65c02 cpu;
+        private long instructionStart;
+
+        TimedBus(Memory8 mem, byte[] rom) {
+            super(mem, rom);
+        }
+
+        @Override
+        public int getByte(int address) {
+            log("r", address);
+            return super.getByte(address);
+        }
+
+        @Override
+        public void setByte(int address, int value) {
+            log("w", address);
+            super.setByte(address, value);
+        }
+
+        private void log(String kind, int address) {
+            // Stack and data pages only, code fetches are left out
+            if (cpu != null && ((address >= 0x0100 && address < 0x0200) || (address >= 0x0400 && address < 0x0500)))
+                accesses.add(kind + Cpu65c02.getHexString(address, 4) + "@+" + (cpu.getNextCycleUnits() - instructionStart));
+        }
+    }
+
+    private static final class CpuEnv {
+        final TimedBus bus;
+        final Cpu65c02 cpu;
+        final Emulator emulator;
+
+        CpuEnv(TimedBus bus, Cpu65c02 cpu, Emulator emulator) {
+            this.bus = bus;
+            this.cpu = cpu;
+            this.emulator = emulator;
+        }
+    }
+
+    private static CpuEnv createEnv(boolean cycleExact, int... program) throws Exception {
+        Memory8 mem = new Memory8(MEM_SIZE);
+        byte[] rom = new byte[ROM_SIZE];
+        // Reset to $0200, BRK and IRQ to $0380
+        rom[0x3ffc] = 0x00;
+        rom[0x3ffd] = 0x02;
+        rom[0x3ffe] = (byte) 0x80;
+        rom[0x3fff] = 0x03;
+        TimedBus bus = new TimedBus(mem, rom);
+        Cpu65c02 cpu = new Cpu65c02(bus, 1);
+        cpu.setCycleExactEnabled(cycleExact);
+        PriorityQueue<HardwareManager> queue = new PriorityQueue<HardwareManager>();
+        queue.add(cpu);
+        Emulator emulator = new Emulator(queue, 0);
+        cpu.coldReset();
+        for (int i = 0; i < program.length; i++)
+            bus.setByte(0x0200 + i, program[i] & 0xFF);
+        return new CpuEnv(bus, cpu, emulator);
+    }
+
+    private static void load(CpuEnv env, int address, int... bytes) {
+        for (int i = 0; i < bytes.length; i++)
+            env.bus.setByte(address + i, bytes[i] & 0xFF);
+    }
+
+    private static void runInstruction(CpuEnv env) throws Exception {
+        env.bus.instructionStart = env.cpu.getNextCycleUnits();
+        while (true) {
+            boolean instructionEndsThisCycle = env.cpu.hasPendingInstructionEndEvent();
+            env.emulator.startWithStepPhases(1, env.cpu, (step, manager, preCycle) -> true);
+            if (instructionEndsThisCycle)
+                return;
+        }
+    }
+
+    private static List<String> runProgram(boolean cycleExact) throws Exception {
+        CpuEnv env = createEnv(cycleExact,
+                0x58,             // 0200 CLI
+                0xA2, 0x01,       // 0201 LDX #$01
+                0xA0, 0x90,       // 0203 LDY #$90
+                0xA9, 0x5A,       // 0205 LDA #$5A
+                0x85, 0x10,       // 0207 STA $10
+                0x95, 0x10,       // 0209 STA $10,X
+                0xBD, 0xFF, 0x04, // 020B LDA $04FF,X (page cross)
+                0x9D, 0x00, 0x05, // 020E STA $0500,X
+                0x1E, 0x00, 0x05, // 0211 ASL $0500,X
+                0xFE, 0x00, 0x05, // 0214 INC $0500,X
+                0xB1, 0x20,       // 0217 LDA ($20),Y (page cross)
+                0x91, 0x20,       // 0219 STA ($20),Y
+                0xA1, 0x1F,       // 021B LDA ($1F,X)
+                0x92, 0x20,       // 021D STA ($20)
+                0x04, 0x10,       // 021F TSB $10
+                0x14, 0x11,       // 0221 TRB $11
+                0x9C, 0x01, 0x05, // 0223 STZ $0501
+                0x48,             // 0226 PHA
+                0x08,             // 0227 PHP
+                0x28,             // 0228 PLP
+                0x68,             // 0229 PLA
+                0x20, 0x40, 0x02, // 022A JSR $0240
+                0x00, 0xEA,       // 022D BRK
+                0x6C, 0x00, 0x06, // 022F JMP ($0600)
+                0x00);
+        load(env, 0x0240,
+                0xE8,             // 0240 INX
+                0xDA,             // 0241 PHX
+                0xFA,             // 0242 PLX
+                0x69, 0x07,       // 0243 ADC #$07
+                0xE5, 0x10,       // 0245 SBC $10
+                0xC9, 0x20,       // 0247 CMP #$20
+                0x2C, 0x10, 0x00, // 0249 BIT $0010
+                0x66, 0x10,       // 024C ROR $10
+                0x56, 0x10,       // 024E LSR $10,X
+                0x2A,             // 0250 ROL A
+                0x60);            // 0251 RTS
+        load(env, 0x0260,
+                0x88,             // 0260 DEY
+                0xD0, 0xFD,       // 0261 BNE $0260
+                0x7C, 0x02, 0x06);// 0263 JMP ($0602,X)
+        load(env, 0x02F0,
+                0x18,             // 02F0 CLC
+                0x90, 0x10,       // 02F1 BCC $0303 (page cross)
+                0xEA);
+        load(env, 0x0303,
+                0xB0, 0x00,       // 0303 BCS (not taken)
+                0xEA,             // 0305 NOP
+                0x4C, 0x05, 0x03);// 0306 JMP $0305
+        load(env, 0x0380, 0x40);  // 0380 RTI
+        load(env, 0x0020, 0x80, 0x04);
+        load(env, 0x0600, 0x60, 0x02, 0xEA, 0xEA, 0xF0, 0x02);
+
+        List<String> states = new ArrayList<String>();
+        for (int i = 0; i < 1200; i++) {
+            runInstruction(env);
+            if (i == 20)
+                env.cpu.setInterruptPending(Cpu65c02.INTERRUPT_IRQ);
+            Register reg = env.cpu.getRegister();
+            states.add(env.cpu.getNextCycleUnits() + ":" + env.cpu.getPendingPC() + ":" + reg.getA() + ":" +
+                    reg.getX() + ":" + reg.getY() + ":" + reg.getP() + ":" + reg.getS() + ":" +
+                    env.cpu.getLastInstructionCycleCount());
+        }
+        int checksum = 0;
+        for (int address = 0; address < 0x0700; address++)
+            checksum = checksum * 31 + env.bus.getByte(address);
+        states.add("checksum:" + checksum);
+        return states;
+    }
+
+    @Test
+    public void cycleExactMatchesAtomicStateAndTiming() throws Exception {
+        List<String> atomic = runProgram(false);
+        List<String> cycleExact = runProgram(true);
+        assertEquals(atomic.size(), cycleExact.size());
+        for (int i = 0; i < atomic.size(); i++)
+            assertEquals("instruction " + i, atomic.get(i), cycleExact.get(i));
+        // The program got through to its final JMP loop
+        assertTrue(atomic.stream().anyMatch(state -> state.contains(":" + 0x0305 + ":")));
+    }
+
+    @Test
+    public void busAccessesHappenInTheirOwnCycle() throws Exception {
+        CpuEnv env = createEnv(true,
+                0xA2, 0x00,       // 0200 LDX #$00
+                0xBD, 0x00, 0x04, // 0202 LDA $0400,X
+                0xEE, 0x10, 0x04, // 0205 INC $0410
+                0x20, 0x20, 0x02);// 0208 JSR $0220
+        load(env, 0x0220, 0x60);  // 0220 RTS
+        env.bus.cpu = env.cpu;
+        List<String> perInstruction = new ArrayList<String>();
+        for (int i = 0; i < 6; i++) {
+            env.bus.accesses.clear();
+            runInstruction(env);
+            perInstruction.add(String.join(" ", env.bus.accesses));
+        }
+        assertEquals(Arrays.asList(
+                "",                           // RES
+                "",                           // LDX #$00
+                "r0400@+3",                   // LDA $0400,X
+                "r0410@+3 w0410@+5",          // INC $0410
+                "w01FD@+3 w01FC@+4",          // JSR $0220
+                "r01FC@+3 r01FD@+4"),         // RTS
+                perInstruction);
+    }
+
+    @Test
+    public void adaptiveModeStepsOnlyIoAndRequestedInstructions() throws Exception {
+        CpuEnv env = createEnv(false,
+                0xA2, 0x01,       // 0200 LDX #$01
+                0xAD, 0x00, 0x04, // 0202 LDA $0400
+                0xBD, 0xFF, 0xC0, // 0205 LDA $C0FF,X (slot space)
+                0x8D, 0x10, 0xC0, // 0208 STA $C010
+                0x4C, 0x0B, 0x02);// 020B JMP $020B
+        Cpu65c02 cpu = env.cpu;
+        assertTrue(cpu.isAdaptiveAccuracyEnabled());
+        runInstruction(env); // RES
+        long atomic = cpu.getAtomicInstructionCount();
+        runInstruction(env);
+        runInstruction(env);
+        // LDA $C0FF,X is up next and runs one cycle at a time
+        assertEquals(atomic + 1, cpu.getAtomicInstructionCount());
+        assertEquals(1, cpu.getIoCycleExactInstructionCount());
+        assertEquals(4, cpu.getPendingExecutionEventCount());
+        runInstruction(env);
+        runInstruction(env);
+        // JMP $020B is up next
+        assertEquals(atomic + 2, cpu.getAtomicInstructionCount());
+        assertEquals(2, cpu.getIoCycleExactInstructionCount());
+        assertEquals(0, cpu.getDeviceCycleExactInstructionCount());
+
+        boolean[] motorOn = new boolean[] {true};
+        CyclePrecisionSource drive = () -> motorOn[0];
+        cpu.addCyclePrecisionSource(drive);
+        runInstruction(env);
+        runInstruction(env);
+        assertEquals(2, cpu.getDeviceCycleExactInstructionCount());
+        assertTrue(cpu.hasPendingInFlightMicroEvent());
+        motorOn[0] = false;
+        runInstruction(env);
+        assertEquals(2, cpu.getDeviceCycleExactInstructionCount());
+        assertEquals(atomic + 3, cpu.getAtomicInstructionCount());
+        assertEquals(4, cpu.getCycleExactInstructionCount());
+
+        cpu.setAdaptiveAccuracyEnabled(false);
+        motorOn[0] = true;
+        runInstruction(env);
+        assertEquals(atomic + 4, cpu.getAtomicInstructionCount());
+        assertFalse(cpu.hasPendingInFlightMicroEvent());
+    }
+
+}
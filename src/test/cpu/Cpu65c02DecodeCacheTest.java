@@ -0,0 +1,87 @@
+package test.cpu;
+
+import core.cpu.cpu8.Cpu65c02;
+import core.emulator.HardwareManager;
+import core.emulator.machine.Emulator;
+import core.memory.memory8.Memory8;
+import core.memory.memory8.MemoryBusIIe;
+import org.junit.Test;
+
+import java.util.PriorityQueue;
+
+import static org.junit.Assert.assertEquals;
+
+public class Cpu65c02DecodeCacheTest {
+
+    private static final int MEM_SIZE = 0x20000;
+    private static final int ROM_SIZE = 0x4000;
+
+    private static void setVector(byte[] rom, int vectorAddr, int targetAddr) {
+        int idx = vectorAddr - 0xC000;
+        rom[idx] = (byte) (targetAddr & 0xFF);
+        rom[idx + 1] = (byte) ((targetAddr >> 8) & 0xFF);
+    }
+
+    private static Emulator createEmulator(Cpu65c02 cpu) throws Exception {
+        PriorityQueue<HardwareManager> queue = new PriorityQueue<HardwareManager>();
+        queue.add(cpu);
+        return new Emulator(queue, 0);
+    }
+
+    @Test
+    public void selfModifiedOperandIsRedecoded() throws Exception {
+        Memory8 mem = new Memory8(MEM_SIZE);
+        byte[] rom = new byte[ROM_SIZE];
+        MemoryBusIIe bus = new MemoryBusIIe(mem, rom);
+        Cpu65c02 cpu = new Cpu65c02(bus, 1);
+        setVector(rom, 0xFFFC, 0x0200);
+        Emulator emulator = createEmulator(cpu);
+
+        int[] program = new int[] {
+                0xAD, 0x00, 0x03, // LDA $0300
+                0x85, 0x10,       // STA $10
+                0xA9, 0x01,       // LDA #$01
+                0x8D, 0x01, 0x02, // STA $0201 (LDA $0300 becomes LDA $0301)
+                0x4C, 0x00, 0x02  // JMP $0200
+        };
+        for (int i = 0; i < program.length; i++)
+            bus.setByte(0x0200 + i, program[i]);
+        bus.setByte(0x0300, 0x11);
+        bus.setByte(0x0301, 0x22);
+
+        emulator.startWithStepPhases(12, cpu, (step, manager, preCycle) -> true);
+        assertEquals(0x11, bus.getByte(0x0010));
+
+        emulator.startWithStepPhases(40, cpu, (step, manager, preCycle) -> true);
+        assertEquals(0x22, bus.getByte(0x0010));
+    }
+
+    @Test
+    public void languageCardSwitchSelectsDecodedCodeByBank() throws Exception {
+        Memory8 mem = new Memory8(MEM_SIZE);
+        byte[] rom = new byte[ROM_SIZE];
+        MemoryBusIIe bus = new MemoryBusIIe(mem, rom);
+        Cpu65c02 cpu = new Cpu65c02(bus, 1);
+        setVector(rom, 0xFFFC, 0xD000);
+        Emulator emulator = createEmulator(cpu);
+
+        int[] romCode = new int[] { 0xA9, 0x01, 0x85, 0x20, 0x4C, 0x00, 0xD0 };
+        int[] ramCode = new int[] { 0xA9, 0x02, 0x85, 0x20, 0x4C, 0x00, 0xD0 };
+        for (int i = 0; i < romCode.length; i++) {
+            rom[0xD000 - 0xC000 + i] = (byte) romCode[i];
+            mem.setByte(0xD000 + i, ramCode[i]);
+        }
+
+        emulator.startWithStepPhases(30, cpu, (step, manager, preCycle) -> true);
+        assertEquals(0x01, bus.getByte(0x0020));
+
+        bus.setHRamRd(true);
+        emulator.startWithStepPhases(30, cpu, (step, manager, preCycle) -> true);
+        assertEquals(0x02, bus.getByte(0x0020));
+
+        bus.setHRamRd(false);
+        emulator.startWithStepPhases(30, cpu, (step, manager, preCycle) -> true);
+        assertEquals(0x01, bus.getByte(0x0020));
+    }
+
+}
@@ -0,0 +1,65 @@
+package test.cpu;
+
+import core.cpu.cpu8.Cpu65c02;
+import core.emulator.HardwareManager;
+import core.emulator.machine.Emulator;
+import core.memory.memory8.Memory8;
+import core.memory.memory8.MemoryBusIIe;
+import org.junit.Test;
+
+import java.util.PriorityQueue;
+
+import static org.junit.Assert.assertEquals;
+
+public class Cpu65c02DecodedOperandTest {
+
+    private static final int MEM_SIZE = 0x20000;
+    private static final int ROM_SIZE = 0x4000;
+    private static final int POINTER = 0x46;
+
+    private static final class CountingBus extends MemoryBusIIe {
+        int pointerReads;
+
+        CountingBus(Memory8 mem, byte[] rom) {
+            super(mem, rom);
+        }
+
+        @Override
+        public int getByte(int address) {
+            if (address == POINTER)
+                pointerReads++;
+            return super.getByte(address);
+        }
+    }
+
+    @Test
+    public void indirectIndexedPointerIsReadOncePerInstruction() throws Exception {
+        Memory8 mem = new Memory8(MEM_SIZE);
+        byte[] rom = new byte[ROM_SIZE];
+        rom[0x3ffc] = 0x00;
+        rom[0x3ffd] = 0x02;
+        CountingBus bus = new CountingBus(mem, rom);
+        Cpu65c02 cpu = new Cpu65c02(bus, 1);
+        PriorityQueue<HardwareManager> queue = new PriorityQueue<HardwareManager>();
+        queue.add(cpu);
+        Emulator emulator = new Emulator(queue, 0);
+
+        int[] program = new int[] {
+                0xA0, 0x20,       // LDY #$20
+                0xB1, POINTER,    // LDA ($46),Y (crosses into $0310)
+                0x85, 0x10,       // STA $10
+                0x4C, 0x06, 0x02  // JMP $0206
+        };
+        for (int i = 0; i < program.length; i++)
+            bus.setByte(0x0200 + i, program[i]);
+        bus.setByte(POINTER, 0xF0);
+        bus.setByte(POINTER + 1, 0x02);
+        bus.setByte(0x0310, 0x5A);
+        bus.pointerReads = 0;
+
+        emulator.startWithStepPhases(40, cpu, (step, manager, preCycle) -> true);
+        assertEquals(0x5A, bus.getByte(0x0010));
+        assertEquals(1, bus.pointerReads);
+    }
+
+}
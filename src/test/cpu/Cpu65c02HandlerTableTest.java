@@ -0,0 +1,93 @@
+package core.cpu.cpu8;
+
+import org.junit.Test;
+
+import java.io.InputStream;
+import java.lang.classfile.ClassFile;
+import java.lang.classfile.ClassModel;
+import java.lang.classfile.CodeElement;
+import java.lang.classfile.MethodModel;
+import java.lang.classfile.instruction.ArrayStoreInstruction;
+import java.lang.classfile.instruction.ConstantInstruction;
+import java.lang.classfile.instruction.InvokeDynamicInstruction;
+import java.lang.classfile.instruction.InvokeInstruction;
+import java.lang.constant.DirectMethodHandleDesc;
+import java.util.HashMap;
+import java.util.Map;
+
+import static org.junit.Assert.assertEquals;
+
+/**
+ * Holds the hand-specialized opcode handlers to the opcode table: every
+ * handler lambda must call the resolver and operation Cpu65c02Jit compiles
+ * for its opcode, with the page cross penalty of Cpu65c02OpcodeTable.
+ */
+public class Cpu65c02HandlerTableTest {
+
+    private static String describe(String resolve, Boolean pageCross, String operation) {
+        return (resolve == null ? "" : resolve + (pageCross == null ? "" : "(" + pageCross + ")") + " ") + operation;
+    }
+
+    private static String describeLambda(MethodModel lambda) {
+        String resolve = null;
+        Boolean pageCross = null;
+        String operation = null;
+        Object lastConstant = null;
+        for (CodeElement element : lambda.code().orElseThrow().elementList()) {
+            if (element instanceof ConstantInstruction constant)
+                lastConstant = constant.constantValue();
+            if (!(element instanceof InvokeInstruction invoke))
+                continue;
+            String name = invoke.name().stringValue();
+            if (name.startsWith("resolve")) {
+                resolve = name;
+                if (invoke.typeSymbol().parameterCount() == 2)
+                    pageCross = ((Integer) lastConstant) != 0;
+            } else if (name.startsWith("op")) {
+                operation = name;
+            }
+        }
+        return describe(resolve, pageCross, operation);
+    }
+
+    @Test
+    public void everyHandlerMatchesItsOpcodeEntry() throws Exception {
+        ClassModel cpuClass;
+        try (InputStream in = Cpu65c02.class.getResourceAsStream("Cpu65c02.class")) {
+            cpuClass = ClassFile.of().parse(in.readAllBytes());
+        }
+        Map<String, MethodModel> methods = new HashMap<String, MethodModel>();
+        MethodModel build = null;
+        for (MethodModel method : cpuClass.methods()) {
+            methods.put(method.methodName().stringValue(), method);
+            if (method.methodName().stringValue().equals("buildInstructionHandlers"))
+                build = method;
+        }
+
+        // handler[i] = <lambda>; compiles to a constant index, an invokedynamic and an aastore
+        String[] handlers = new String[Cpu65c02.OPCODE.length];
+        Object index = null;
+        String lambda = null;
+        for (CodeElement element : build.code().orElseThrow().elementList()) {
+            if (element instanceof ConstantInstruction constant)
+                index = constant.constantValue();
+            else if (element instanceof InvokeDynamicInstruction indy &&
+                    indy.bootstrapMethod().methodName().equals("metafactory"))
+                lambda = ((DirectMethodHandleDesc) indy.bootstrapArgs().get(1)).methodName();
+            else if (element instanceof ArrayStoreInstruction && lambda != null) {
+                handlers[(Integer) index] = describeLambda(methods.get(lambda));
+                lambda = null;
+            }
+        }
+
+        for (int i = 0; i < handlers.length; i++) {
+            Opcode op = Cpu65c02.OPCODE[i];
+            String resolve = Cpu65c02.getResolveMethod(op);
+            Boolean pageCross = resolve != null && Cpu65c02.hasPageCrossArgument(op.getAddressMode()) ?
+                    Cpu65c02OpcodeTable.hasPageCrossPenalty(op) : null;
+            assertEquals("opcode " + Integer.toHexString(i),
+                    describe(resolve, pageCross, Cpu65c02.getOperationMethod(op)), handlers[i]);
+        }
+    }
+
+}
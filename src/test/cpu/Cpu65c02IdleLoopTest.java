@@ -0,0 +1,139 @@
+package test.cpu;
+
+import core.cpu.cpu8.Cpu65c02;
+import core.cpu.cpu8.Register;
+import core.emulator.HardwareManager;
+import core.emulator.machine.Emulator;
+import core.memory.memory8.Memory8;
+import core.memory.memory8.MemoryBusIIe;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.PriorityQueue;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+public class Cpu65c02IdleLoopTest {
+
+    private static final int MEM_SIZE = 0x20000;
+    private static final int ROM_SIZE = 0x4000;
+
+    // Stands in for a device that releases the polling loop every few wakeups
+    private static final class PollTargetManager extends HardwareManager {
+        private final List<String> observations = new ArrayList<String>();
+        private Cpu65c02 cpu;
+        private MemoryBusIIe bus;
+
+        PollTargetManager() {
+            super(1);
+        }
+
+        @Override
+        public void coldReset() {
+            resetCycleCount();
+        }
+
+        @Override
+        public void cycle() {
+            Register reg = cpu.getRegister();
+            observations.add(cpu.getNextCycleUnits() + ":" + reg.getPC() + ":" + reg.getA() + ":" + reg.getX() + ":" +
+                    reg.getY() + ":" + reg.getP() + ":" + reg.getS() + ":" + bus.getByte(0x10) + ":" + bus.getByte(0x11));
+            if (observations.size() % 7 == 3)
+                bus.setByte(0x10, 0x01);
+            incSleepCycles(997);
+        }
+    }
+
+    // Wakes far less often than the CPU batch cap
+    private static final class SlowTickManager extends HardwareManager {
+        SlowTickManager() {
+            super(1);
+        }
+
+        @Override
+        public void coldReset() {
+            resetCycleCount();
+        }
+
+        @Override
+        public void cycle() {
+            incSleepCycles(100000);
+        }
+    }
+
+    private static List<String> observe(Boolean idleFastForward, long[] cyclesSkipped) throws Exception {
+        Memory8 mem = new Memory8(MEM_SIZE);
+        byte[] rom = new byte[ROM_SIZE];
+        rom[0x3ffc] = 0x00;
+        rom[0x3ffd] = 0x02;
+        MemoryBusIIe bus = new MemoryBusIIe(mem, rom);
+        Cpu65c02 cpu = new Cpu65c02(bus, 1);
+        PollTargetManager device = new PollTargetManager();
+        device.cpu = cpu;
+        device.bus = bus;
+        PriorityQueue<HardwareManager> queue = new PriorityQueue<HardwareManager>();
+        queue.add(cpu);
+        queue.add(device);
+        Emulator emulator = new Emulator(queue, 0);
+        emulator.setRealtimeThrottleEnabled(false);
+        if (idleFastForward != null)
+            emulator.setIdleFastForwardEnabled(idleFastForward);
+
+        int[] program = new int[] {
+                0xA5, 0x10,       // LDA $10
+                0xF0, 0xFC,       // BEQ $0200
+                0xE6, 0x11,       // INC $11
+                0xA9, 0x00,       // LDA #$00
+                0x85, 0x10,       // STA $10
+                0x4C, 0x00, 0x02  // JMP $0200
+        };
+        for (int i = 0; i < program.length; i++)
+            bus.setByte(0x0200 + i, program[i]);
+
+        emulator.startWithStepPhases(300, device, (step, manager, preCycle) -> true);
+        cyclesSkipped[0] = cpu.getIdleLoopCyclesSkipped();
+        return device.observations;
+    }
+
+    @Test
+    public void skippedIdleLoopMatchesInterpreterCycleForCycle() throws Exception {
+        long[] cyclesSkipped = new long[1];
+        List<String> interpreted = observe(Boolean.FALSE, cyclesSkipped);
+        assertEquals(0, cyclesSkipped[0]);
+        List<String> skipped = observe(null, cyclesSkipped);
+
+        assertTrue(cyclesSkipped[0] > 0);
+        assertEquals(300, interpreted.size());
+        assertEquals(interpreted, skipped);
+    }
+
+    @Test
+    public void unthrottledIdleLoopSkipsToNextCompetingManager() throws Exception {
+        Memory8 mem = new Memory8(MEM_SIZE);
+        byte[] rom = new byte[ROM_SIZE];
+        rom[0x3ffc] = 0x00;
+        rom[0x3ffd] = 0x02;
+        MemoryBusIIe bus = new MemoryBusIIe(mem, rom);
+        Cpu65c02 cpu = new Cpu65c02(bus, 1);
+        SlowTickManager tick = new SlowTickManager();
+        PriorityQueue<HardwareManager> queue = new PriorityQueue<HardwareManager>();
+        queue.add(cpu);
+        queue.add(tick);
+        Emulator emulator = new Emulator(queue, 0);
+        emulator.setRealtimeThrottleEnabled(false);
+        bus.setByte(0x0200, 0xA5); // LDA $10
+        bus.setByte(0x0201, 0x10);
+        bus.setByte(0x0202, 0xF0); // BEQ $0200
+        bus.setByte(0x0203, 0xFC);
+
+        emulator.startWithStepPhases(4, tick, (step, manager, preCycle) -> true);
+
+        // Only the iterations observed after each tick are interpreted, not a few per batch cap
+        long interpreted = cpu.getNextCycleUnits() - cpu.getIdleLoopCyclesSkipped();
+        assertTrue(cpu.getNextCycleUnits() > 300000);
+        assertTrue("interpreted " + interpreted, interpreted < 100);
+    }
+
+}
@@ -0,0 +1,128 @@
+package test.cpu;
+
+import core.cpu.cpu8.Cpu65c02;
+import core.cpu.cpu8.Register;
+import core.emulator.HardwareManager;
+import core.emulator.machine.Emulator;
+import core.memory.memory8.Memory8;
+import core.memory.memory8.MemoryBusIIe;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.PriorityQueue;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+public class Cpu65c02JitTest {
+
+    private static final int MEM_SIZE = 0x20000;
+    private static final int ROM_SIZE = 0x4000;
+
+    private static final class StateObserverManager extends HardwareManager {
+        private final List<String> observations = new ArrayList<String>();
+        private Cpu65c02 cpu;
+        private MemoryBusIIe bus;
+
+        StateObserverManager() {
+            super(1);
+        }
+
+        @Override
+        public void coldReset() {
+            resetCycleCount();
+        }
+
+        @Override
+        public void cycle() {
+            Register reg = cpu.getRegister();
+            int checksum = 0;
+            for (int address = 0; address < 0x0600; address++)
+                checksum = checksum * 31 + bus.getByte(address);
+            observations.add(cpu.getNextCycleUnits() + ":" + reg.getPC() + ":" + reg.getA() + ":" + reg.getX() + ":" +
+                    reg.getY() + ":" + reg.getP() + ":" + reg.getS() + ":" + bus.isPage2() + ":" + checksum);
+            incSleepCycles(61);
+        }
+    }
+
+    private static void setVector(byte[] rom, int vectorAddr, int targetAddr) {
+        int idx = vectorAddr - 0xC000;
+        rom[idx] = (byte) (targetAddr & 0xFF);
+        rom[idx + 1] = (byte) ((targetAddr >> 8) & 0xFF);
+    }
+
+    private static void loadProgram(MemoryBusIIe bus, int start, int... bytes) {
+        for (int i = 0; i < bytes.length; i++)
+            bus.setByte(start + i, bytes[i] & 0xFF);
+    }
+
+    private static List<String> observe(boolean jitEnabled, int[] compiledBlocks) throws Exception {
+        Memory8 mem = new Memory8(MEM_SIZE);
+        byte[] rom = new byte[ROM_SIZE];
+        MemoryBusIIe bus = new MemoryBusIIe(mem, rom);
+        Cpu65c02 cpu = new Cpu65c02(bus, 1);
+        cpu.setJitEnabled(jitEnabled);
+        StateObserverManager observer = new StateObserverManager();
+        observer.cpu = cpu;
+        observer.bus = bus;
+        setVector(rom, 0xFFFC, 0x0200);
+        PriorityQueue<HardwareManager> queue = new PriorityQueue<HardwareManager>();
+        queue.add(cpu);
+        queue.add(observer);
+        Emulator emulator = new Emulator(queue, 0);
+
+        loadProgram(bus, 0x0200,
+                0xA2, 0x00,       // LDX #$00
+                0xA0, 0x00,       // LDY #$00
+                0xEA,             // NOP
+                0x18,             // CLC
+                0xA5, 0x41,       // LDA $41
+                0x69, 0x07,       // ADC #$07
+                0x85, 0x41,       // STA $41
+                0xEA,             // NOP
+                0x8A,             // TXA
+                0x9D, 0xF0, 0x03, // STA $03F0,X
+                0x20, 0x40, 0x02, // JSR $0240
+                0xE8,             // INX
+                0xD0, 0xED,       // BNE $0204
+                0xEE, 0x1E, 0x02, // INC $021E (rewrites LDA operand below)
+                0x4C, 0x1D, 0x02, // JMP $021D
+                0xA9, 0x00,       // LDA #$00
+                0x85, 0x42,       // STA $42
+                0x4C, 0x00, 0x02  // JMP $0200
+        );
+        loadProgram(bus, 0x0240,
+                0x18,             // CLC
+                0x65, 0x40,       // ADC $40
+                0x85, 0x40,       // STA $40
+                0xB1, 0x43,       // LDA ($43),Y
+                0x91, 0x45,       // STA ($45),Y
+                0xC8,             // INY
+                0x98,             // TYA
+                0x29, 0x01,       // AND #$01
+                0x09, 0x54,       // ORA #$54
+                0x85, 0x47,       // STA $47
+                0xB2, 0x47,       // LDA ($47) (PAGE2 soft switch)
+                0x60              // RTS
+        );
+        loadProgram(bus, 0x0043, 0x00, 0x03, 0x00, 0x05, 0x00, 0x54, 0xC0);
+
+        emulator.startWithStepPhases(1500, observer, (step, manager, preCycle) -> true);
+        compiledBlocks[0] = cpu.getJitCompiledBlockCount();
+        return observer.observations;
+    }
+
+    @Test
+    public void compiledBlocksMatchInterpreterCycleForCycle() throws Exception {
+        int[] compiledBlocks = new int[1];
+        List<String> interpreted = observe(false, compiledBlocks);
+        assertEquals(0, compiledBlocks[0]);
+        List<String> compiled = observe(true, compiledBlocks);
+
+        assertTrue(compiledBlocks[0] > 0);
+        assertEquals(1500, interpreted.size());
+        assertEquals(interpreted, compiled);
+    }
+
+}
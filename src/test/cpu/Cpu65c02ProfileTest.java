@@ -0,0 +1,75 @@
+package test.cpu;
+
+import core.cpu.cpu8.Cpu65c02;
+import core.cpu.cpu8.Cpu65c02Profile;
+import core.emulator.HardwareManager;
+import core.emulator.machine.Emulator;
+import core.memory.memory8.Memory8;
+import core.memory.memory8.MemoryBusIIe;
+import org.junit.Test;
+
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.ByteArrayInputStream;
+import java.util.PriorityQueue;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+public class Cpu65c02ProfileTest {
+
+    private static final int MEM_SIZE = 0x20000;
+    private static final int ROM_SIZE = 0x4000;
+
+    @Test
+    public void countsOpcodesAddressesAndCoverage() throws Exception {
+        Memory8 mem = new Memory8(MEM_SIZE);
+        byte[] rom = new byte[ROM_SIZE];
+        rom[0x3ffc] = 0x00;
+        rom[0x3ffd] = 0x02;
+        MemoryBusIIe bus = new MemoryBusIIe(mem, rom);
+        Cpu65c02 cpu = new Cpu65c02(bus, 1);
+        PriorityQueue<HardwareManager> queue = new PriorityQueue<HardwareManager>();
+        queue.add(cpu);
+        Emulator emulator = new Emulator(queue, 0);
+        assertNull(cpu.getProfile());
+        cpu.setProfileEnabled(true);
+
+        int[] program = new int[] {
+                0xA2, 0x03,       // LDX #$03
+                0xCA,             // DEX
+                0xD0, 0xFD,       // BNE $0202
+                0x4C, 0x05, 0x02  // JMP $0205
+        };
+        for (int i = 0; i < program.length; i++)
+            bus.setByte(0x0200 + i, program[i]);
+
+        emulator.startWithStepPhases(200, cpu, (step, manager, preCycle) -> true);
+        Cpu65c02Profile profile = cpu.getProfile();
+
+        assertEquals(1, profile.getInstructionCount(0xA2));
+        assertEquals(2, profile.getInstructionCycles(0xA2));
+        assertEquals(3, profile.getInstructionCount(0xCA));
+        assertEquals(3, profile.getInstructionCount(0xD0));
+        // Two taken branches and one not taken
+        assertEquals(3 + 3 + 2, profile.getInstructionCycles(0xD0));
+        assertEquals(3, profile.getPcHits(0x0202));
+        assertEquals(3, profile.getPcHits(0x0203));
+        assertEquals(profile.getInstructionCount(0x4C), profile.getPcHits(0x0205));
+        for (int address = 0x0200; address < 0x0208; address++)
+            assertTrue(profile.isCovered(address));
+        assertFalse(profile.isCovered(0x0208));
+        assertFalse(profile.isCovered(MemoryBusIIe.BANKED_RAM | 0x0200));
+        assertEquals("main $0205", Cpu65c02Profile.describeFetchKey(0x0205));
+        assertEquals("aux $0205", Cpu65c02Profile.describeFetchKey(MemoryBusIIe.BANKED_RAM | 0x0205));
+
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        profile.writeBinary(out);
+        DataInputStream in = new DataInputStream(new ByteArrayInputStream(out.toByteArray()));
+        assertEquals(0x45325046, in.readInt());
+        assertEquals(1, in.readInt());
+    }
+
+}
@@ -150,8 +150,7 @@ public class CpuLdaOpcodeBenchTest {
             long startPlanner = System.nanoTime();
             int sum = 0;
             for (int i = 0; i < plannerIters; i++) {
-                CpuExecutionPlanner.Plan plan = planner.buildPlan(opcode, PROG_PC);
-                sum += plan.pendingCycles;
+                sum += planner.planPendingCycles(op & 0xFF, PROG_PC);
                 sum += Cpu65c02CycleEstimator.predictInstructionCycles(env.bus, env.cpu.getRegister(), opcode, PROG_PC);
             }
             long plannerNs = System.nanoTime() - startPlanner;
@@ -4,17 +4,29 @@ import core.cpu.cpu8.Cpu65c02;
 import core.cpu.cpu8.Cpu65c02CycleEstimator;
 import core.cpu.cpu8.Opcode;
 import core.emulator.HardwareManager;
+import core.emulator.MachineContext;
 import core.emulator.machine.Emulator;
+import core.emulator.machine.EmulatorMetrics;
+import core.emulator.machine.HardwareScheduler;
 import core.exception.HardwareException;
 import core.memory.memory8.Memory8;
 import core.memory.memory8.MemoryBusIIe;
 import org.junit.Test;
 
+import java.io.PrintWriter;
+import java.lang.reflect.Field;
+import java.io.StringWriter;
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.List;
 import java.util.PriorityQueue;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
 
 import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertSame;
 import static org.junit.Assert.assertTrue;
 
 public class EmulatorSchedulerContractTest {
@@ -59,6 +71,68 @@ public class EmulatorSchedulerContractTest {
         }
     }
 
+    private static final class StopAfterManager extends HardwareManager {
+        private final int cycles;
+        private int ticks;
+
+        StopAfterManager(int cycles) {
+            super(1);
+            this.cycles = cycles;
+        }
+
+        @Override
+        public void coldReset() {
+            resetCycleCount();
+            ticks = 0;
+        }
+
+        @Override
+        public void cycle() throws HardwareException {
+            if (++ticks > cycles)
+                throw new HardwareException("stop");
+            incSleepCycles(1);
+        }
+    }
+
+    // Pacing waits advance a virtual clock instead of sleeping
+    private static final class VirtualClockEmulator extends Emulator {
+        private long nowNs;
+        private int parks;
+
+        VirtualClockEmulator(PriorityQueue<HardwareManager> queue) throws HardwareException {
+            super(queue, 0);
+        }
+
+        @Override
+        protected long paceNanoTime() {
+            return nowNs;
+        }
+
+        @Override
+        protected void paceParkNanos(long waitNs) {
+            nowNs += waitNs;
+            parks++;
+        }
+    }
+
+    /**
+     * @return virtual milliseconds spent waiting on the pace of the given number of 1ms cycles
+     */
+    private static long runPacedMillis(double speed, int cycles, int[] parks) throws Exception {
+        PriorityQueue<HardwareManager> queue = new PriorityQueue<HardwareManager>();
+        queue.add(new StopAfterManager(cycles));
+        // One cycle unit per millisecond
+        VirtualClockEmulator emulator = new VirtualClockEmulator(queue);
+        emulator.setSpeed(speed);
+        try {
+            emulator.start();
+        } catch (HardwareException e) {
+            assertEquals("stop", e.getMessage());
+        }
+        parks[0] = emulator.parks;
+        return emulator.nowNs / 1_000_000L;
+    }
+
     private static final class InterruptAtTickManager extends HardwareManager {
         private final Cpu65c02 cpu;
         private final Opcode interrupt;
@@ -91,6 +165,48 @@ public class EmulatorSchedulerContractTest {
         }
     }
 
+    private static final class CpuObserverManager extends HardwareManager {
+        private final List<String> observations;
+        private Cpu65c02 cpu;
+        private MemoryBusIIe bus;
+
+        CpuObserverManager(List<String> observations) {
+            super(1);
+            this.observations = observations;
+        }
+
+        @Override
+        public void coldReset() {
+            resetCycleCount();
+        }
+
+        @Override
+        public void cycle() {
+            observations.add(cpu.getNextCycleUnits() + ":" + cpu.getRegister().getPC() + ":" + bus.getByte(0x0040));
+            incSleepCycles(5);
+        }
+    }
+
+    private List<String> observeCpuFromOtherManager(boolean batched) throws Exception {
+        List<String> observations = new ArrayList<String>();
+        CpuObserverManager observer = new CpuObserverManager(observations);
+        Env env = createEnv(observer);
+        observer.cpu = env.cpu;
+        observer.bus = env.bus;
+        env.emulator.setBatchedExecutionEnabled(batched);
+
+        setVector(env.rom, 0xFFFC, PROG_PC);
+        loadProgram(env, PROG_PC,
+                0xE6, 0x40,       // INC $40
+                0xBD, 0xF0, 0x00, // LDA $00F0,X
+                0xE8,             // INX
+                0x4C, 0x00, 0x02  // JMP $0200
+        );
+
+        env.emulator.startWithStepPhases(300, observer, (step, manager, preCycle) -> true);
+        return observations;
+    }
+
     private Env createEnv(HardwareManager... extraManagers) throws HardwareException {
         Memory8 mem = new Memory8(MEM_SIZE);
         byte[] rom = new byte[ROM_SIZE];
@@ -106,6 +222,18 @@ public class EmulatorSchedulerContractTest {
         return new Env(bus, rom, cpu, emulator);
     }
 
+    private String runCountingMachine() throws Exception {
+        Env env = createEnv();
+        setVector(env.rom, 0xFFFC, PROG_PC);
+        loadProgram(env, PROG_PC,
+                0xE6, 0x40,       // INC $40
+                0xE8,             // INX
+                0x4C, 0x00, 0x02  // JMP $0200
+        );
+        env.emulator.startWithStepPhases(5000, env.cpu, (step, manager, preCycle) -> true);
+        return env.bus.getByte(0x0040) + "/" + env.cpu.getRegister().getX() + "/" + env.cpu.getNextCycleUnits();
+    }
+
     private void setVector(byte[] rom, int vectorAddr, int targetAddr) {
         int idx = vectorAddr - 0xC000;
         rom[idx] = (byte) (targetAddr & 0xFF);
@@ -189,6 +317,28 @@ public class EmulatorSchedulerContractTest {
         assertEquals("C", runLog.get(8));
     }
 
+    @Test
+    public void schedulerPicksEarliestManagerThenCreationOrder() throws Exception {
+        List<String> runLog = new ArrayList<String>();
+        OrderedProbeManager a = new OrderedProbeManager("A", runLog);
+        OrderedProbeManager b = new OrderedProbeManager("B", runLog);
+        OrderedProbeManager c = new OrderedProbeManager("C", runLog);
+        a.incSleepCycles(2 - a.getNextCycleUnits());
+        b.incSleepCycles(1 - b.getNextCycleUnits());
+        c.incSleepCycles(1 - c.getNextCycleUnits());
+
+        HardwareScheduler scheduler = new HardwareScheduler(Arrays.<HardwareManager>asList(c, a, b));
+        assertEquals(3, scheduler.size());
+        assertEquals(b, scheduler.getManager(scheduler.next()));
+        assertEquals(1, scheduler.getCompetingCycleUnits(scheduler.next()));
+
+        int slot = scheduler.next();
+        scheduler.getManager(slot).cycle();
+        scheduler.update(slot);
+        assertEquals(c, scheduler.getManager(scheduler.next()));
+        assertEquals(2, scheduler.getCompetingCycleUnits(scheduler.next()));
+    }
+
     @Test
     public void cpuMaintainsInstructionEndEventInExecutionQueue() throws Exception {
         Env env = createEnv();
@@ -204,6 +354,73 @@ public class EmulatorSchedulerContractTest {
         assertTrue(env.cpu.hasPendingInstructionEndEvent());
     }
 
+    @Test
+    public void checkedExecutionQueueModeHoldsInvariantAcrossMicroQueuedProgram() throws Exception {
+        Env env = createEnv();
+        env.cpu.setExecutionQueueChecksEnabled(true);
+
+        setVector(env.rom, 0xFFFC, PROG_PC);
+        loadProgram(env, PROG_PC,
+                0xA9, 0x42,       // LDA #$42
+                0x85, 0x10,       // STA $10
+                0xE6, 0x10,       // INC $10
+                0x4C, 0x00, 0x02  // JMP $0200
+        );
+
+        env.emulator.startWithStepPhases(64, env.cpu, (step, manager, preCycle) -> true);
+        assertTrue(env.cpu.getPendingExecutionEventCount() >= 1);
+    }
+
+    @Test
+    public void checkedExecutionQueueModeRejectsMisorderedQueue() throws Exception {
+        assertEquals("instructionEnd must be tail event", runWithMisorderedQueue(true));
+        // Unchecked, the early instructionEnd event just runs
+        assertEquals(null, runWithMisorderedQueue(false));
+    }
+
+    /**
+     * Moves the instructionEnd event of a queued INC ahead of its pending cycles.
+     * @return the invariant failure raised by the next cycle, or null
+     */
+    private String runWithMisorderedQueue(boolean checked) throws Exception {
+        Env env = createEnv();
+        env.cpu.setExecutionQueueChecksEnabled(checked);
+        setVector(env.rom, 0xFFFC, PROG_PC);
+        loadProgram(env, PROG_PC,
+                0xE6, 0x10,       // INC $10
+                0x4C, 0x00, 0x02  // JMP $0200
+        );
+        for (int i = 0; i < 64 && (env.cpu.getPendingExecutionEventCount() < 3 || !env.cpu.hasPendingInFlightMicroEvent()); i++)
+            env.cpu.cycle();
+        assertTrue(env.cpu.getPendingExecutionEventCount() >= 3);
+
+        Field queueField = Cpu65c02.class.getDeclaredField("executionQueue");
+        Field headField = Cpu65c02.class.getDeclaredField("executionQueueHead");
+        queueField.setAccessible(true);
+        headField.setAccessible(true);
+        int[] queue = (int[]) queueField.get(env.cpu);
+        int head = headField.getInt(env.cpu);
+        // Second event becomes a copy of the tail instructionEnd event
+        int size = env.cpu.getPendingExecutionEventCount();
+        queue[(head + 1) % queue.length] = queue[(head + size - 1) % queue.length];
+
+        try {
+            env.cpu.cycle();
+            return null;
+        } catch (IllegalStateException e) {
+            return e.getMessage().substring(e.getMessage().indexOf(": ") + 2);
+        }
+    }
+
+    @Test
+    public void batchedCpuExecutionMatchesPerCycleScheduling() throws Exception {
+        List<String> perCycle = observeCpuFromOtherManager(false);
+        List<String> batched = observeCpuFromOtherManager(true);
+
+        assertEquals(300, perCycle.size());
+        assertEquals(perCycle, batched);
+    }
+
     @Test
     public void resetLeavesStackPointerAtFdByDefault() throws Exception {
         Env env = createEnv();
@@ -373,4 +590,85 @@ public class EmulatorSchedulerContractTest {
         assertEquals(1, env.bus.getByte(0x0030));
         assertEquals(1, env.bus.getByte(0x0020));
     }
+
+    @Test
+    public void realtimePacingFollowsSpeedMultiplier() throws Exception {
+        // 120ms of emulated time is paced in 16ms frame slices, the first one starting the pace
+        int[] parks = new int[1];
+        assertEquals(112L, runPacedMillis(1d, 120, parks));
+        assertEquals(7, parks[0]);
+        assertEquals(56L, runPacedMillis(2d, 120, parks));
+        assertEquals(7, parks[0]);
+        assertEquals(0L, runPacedMillis(Emulator.SPEED_WARP, 120, parks));
+        assertEquals(0, parks[0]);
+
+        PriorityQueue<HardwareManager> queue = new PriorityQueue<HardwareManager>();
+        queue.add(new StopAfterManager(1));
+        Emulator emulator = new Emulator(queue, 0);
+        assertEquals(2d, emulator.cycleSpeed(), 0d);
+        assertEquals(4d, emulator.cycleSpeed(), 0d);
+        assertTrue(!emulator.isIdleFastForwardEnabled());
+        assertEquals(Emulator.SPEED_WARP, emulator.cycleSpeed(), 0d);
+        assertTrue(emulator.isIdleFastForwardEnabled());
+        assertEquals(0.5d, emulator.cycleSpeed(), 0d);
+    }
+
+    @Test
+    public void metricsSnapshotCountsCyclesPerManager() throws Exception {
+        List<String> runLog = new ArrayList<String>();
+        OrderedProbeManager a = new OrderedProbeManager("A", runLog);
+        OrderedProbeManager b = new OrderedProbeManager("B", runLog);
+        PriorityQueue<HardwareManager> queue = new PriorityQueue<HardwareManager>();
+        queue.add(a);
+        queue.add(b);
+
+        Emulator emulator = new Emulator(queue, 0);
+        EmulatorMetrics metrics = emulator.getMetrics();
+        metrics.addGauge("runs", () -> runLog.size());
+        emulator.startWithStepPhases(10, a, (step, manager, preCycle) -> true);
+
+        // Published when the run ends
+        assertEquals(2, metrics.getManagerNames().length);
+        assertEquals(10L, metrics.getManagerCycles()[0]);
+        assertEquals(runLog.size() - 10, metrics.getManagerCycles()[1]);
+        assertEquals(Long.valueOf(runLog.size()), metrics.getDeviceGauges().get("runs"));
+
+        StringWriter text = new StringWriter();
+        metrics.writeText(new PrintWriter(text));
+        assertTrue(text.toString().contains("manager.0.OrderedProbeManager cycles=10"));
+        assertTrue(text.toString().contains("runs=" + runLog.size()));
+
+        // Managers taking turns are each sampled for wall time
+        emulator.startWithStepPhases(1000, a, (step, manager, preCycle) -> true);
+        assertTrue(metrics.getManagerWallNanos()[0] > 0);
+        assertTrue(metrics.getManagerWallNanos()[1] > 0);
+    }
+
+    @Test
+    public void machinesInOneJvmRunIndependently() throws Exception {
+        MachineContext.begin();
+        String alone = runCountingMachine();
+        Callable<String> machine = () -> {
+            MachineContext.begin();
+            return runCountingMachine();
+        };
+        ExecutorService pool = Executors.newFixedThreadPool(2);
+        try {
+            Future<String> first = pool.submit(machine);
+            Future<String> second = pool.submit(machine);
+            assertEquals(alone, first.get());
+            assertEquals(alone, second.get());
+        } finally {
+            pool.shutdownNow();
+        }
+        // Rebuilding on the same thread gets a fresh context and the same timing
+        MachineContext context = MachineContext.begin();
+        assertEquals(alone, runCountingMachine());
+
+        context.setKeyLoggingEnabled(true);
+        StopAfterManager manager = new StopAfterManager(1);
+        assertSame(context, manager.getContext());
+        assertTrue(!MachineContext.begin().isKeyLoggingEnabled());
+        assertTrue(manager.getContext().isKeyLoggingEnabled());
+    }
 }
@@ -7,6 +7,7 @@ import core.emulator.machine.Emulator;
 import core.exception.HardwareException;
 import core.memory.memory8.Memory8;
 import core.memory.memory8.MemoryBusIIe;
+import device.display.HeadlessVideoProbe;
 import device.display.VideoSignalSource;
 import org.junit.Test;
 
@@ -208,4 +209,45 @@ public class EmulatorSchedulerIntegrationTest {
         assertTrue(vblBar == 0x00 || vblBar == 0x80);
         assertTrue(!env.bus.isText());
     }
+
+    @Test
+    public void clockedVideoProbeCatchesUpToCpu() throws Exception {
+        Memory8 mem = new Memory8(MEM_SIZE);
+        byte[] rom = new byte[ROM_SIZE];
+        MemoryBusIIe bus = new MemoryBusIIe(mem, rom);
+        Cpu65c02 cpu = new Cpu65c02(bus, 1);
+        HeadlessVideoProbe probe = new HeadlessVideoProbe(bus, 1);
+        PriorityQueue<HardwareManager> queue = new PriorityQueue<HardwareManager>();
+        queue.add(cpu);
+        queue.add(probe);
+        Env env = new Env(bus, rom, cpu, new Emulator(queue, 0));
+        env.bus.setDisplay(probe);
+        long start = env.cpu.getNextCycleUnits();
+        probe.setClock(env.cpu, 0);
+        env.bus.addCatchUpDevice(probe);
+
+        setVector(env.rom, 0xFFFC, PROG_PC);
+
+        loadProgram(env, PROG_PC,
+                0xAD, 0x19, 0xC0, // LDA $C019
+                0x10, 0xFB,       // BPL $0200 (wait for end of VBL)
+                0xAD, 0x19, 0xC0, // LDA $C019
+                0x30, 0xFB,       // BMI $0205 (wait for VBL)
+                0xE6, 0x10,       // INC $10
+                0x4C, 0x00, 0x02  // JMP $0200
+        );
+        env.bus.setByte(0x0010, 0x00);
+
+        env.emulator.startWithStepPhases(80000, env.cpu, (step, manager, preCycle) -> true);
+
+        // Same beam position as a probe stepped through every elapsed cycle
+        HeadlessVideoProbe stepped = new HeadlessVideoProbe(env.bus, 1);
+        stepped.advanceCycles((int) (env.cpu.getNextCycleUnits()-start));
+        assertEquals(stepped.getVScan(), probe.getVScan());
+        assertEquals(stepped.isVbl(), probe.isVbl());
+        // Each frame of 262 lines of 65 cycles has one VBL start
+        long frames = (env.cpu.getNextCycleUnits()-start)/(65*262);
+        assertTrue(env.bus.getByte(0x0010) >= frames-1 && env.bus.getByte(0x0010) <= frames+1);
+        assertTrue(frames >= 2);
+    }
 }
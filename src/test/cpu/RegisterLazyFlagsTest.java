@@ -0,0 +1,39 @@
+package test.cpu;
+
+import core.cpu.cpu8.Register;
+import org.junit.Test;
+
+import static org.junit.Assert.assertEquals;
+
+public class RegisterLazyFlagsTest {
+
+    @Test
+    public void setPRoundTripsEveryStatusValue() {
+        Register reg = new Register();
+        for (int p = 0; p < 0x100; p++) {
+            reg.setP(p);
+            assertEquals(p, reg.getP());
+        }
+    }
+
+    @Test
+    public void resultsMaterializeIntoStatusOnRead() {
+        Register reg = new Register();
+        reg.setP(0x30);
+
+        reg.testPCZN(0x180);  // carry out, negative, non-zero
+        assertEquals(0xB1, reg.getP());
+
+        reg.testPZN(0x00);    // carry untouched, zero
+        assertEquals(0x33, reg.getP());
+
+        reg.testPC_ZN(-1);    // borrow sets carry, result 0xFF
+        assertEquals(0xB1, reg.getP());
+
+        reg.testPV(0x80);
+        reg.testPZ(0x100);    // only the low byte decides Z
+        assertEquals(0xF3, reg.getP());
+        assertEquals("A:00 X:00 Y:00 PC:0000 S:00 P:NVRB..ZC", reg.toString());
+    }
+
+}
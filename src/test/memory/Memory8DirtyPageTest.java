@@ -0,0 +1,46 @@
+package test.memory;
+
+import core.memory.memory8.Memory8;
+import core.memory.memory8.MemoryBusIIe;
+import org.junit.Test;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+public class Memory8DirtyPageTest {
+
+    @Test
+    public void consumersFetchAndClearIndependently() throws Exception {
+        Memory8 mem = new Memory8(0x20000);
+        mem.coldReset();
+        assertEquals(512, mem.getPageCount());
+        int display = mem.addDirtyPageConsumer();
+        long[] dirty = new long[8];
+        mem.fetchAndClearDirtyPages(display, dirty);
+        assertEquals(-1L, dirty[7]);
+        for (int page = 0; page < mem.getPageCount(); page++)
+            mem.fetchAndClearPageWritten(page);
+
+        mem.setByte(0x0401, 0x41);
+        mem.setByte(MemoryBusIIe.BANKED_RAM | 0xff00, 0x42);
+        assertTrue(mem.isPageWritten(0x04));
+        assertTrue(mem.fetchAndClearPageWritten(0x04));
+        assertFalse(mem.fetchAndClearPageWritten(0x04));
+        assertFalse(mem.isPageWritten(0x04));
+
+        // The display still sees both writes after the default consumer took its copy
+        mem.fetchAndClearDirtyPages(display, dirty);
+        assertEquals(1L << 4, dirty[0]);
+        assertEquals(1L << 63, dirty[7]);
+        mem.fetchAndClearDirtyPages(display, dirty);
+        assertEquals(0L, dirty[0] | dirty[7]);
+
+        assertTrue(mem.fetchAndClearPageWritten(0x1ff));
+        mem.setByte(0x0bff, 0);
+        assertTrue(mem.fetchAndClearPagesWritten(display, 0x04, 0x08));
+        assertFalse(mem.fetchAndClearPagesWritten(display, 0x04, 0x08));
+        assertTrue(mem.fetchAndClearPageWritten(0x0b));
+    }
+
+}
@@ -0,0 +1,68 @@
+package test.memory;
+
+import core.memory.memory8.Memory8;
+import core.memory.memory8.MemoryBusIIe;
+import core.memory.memory8.OffHeapMemory8;
+import org.junit.Test;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+public class MemoryBlockTest {
+
+    private static final int MEM_SIZE = 0x20000;
+
+    @Test
+    public void blockOperationsMatchOnBothBackings() throws Exception {
+        try (OffHeapMemory8 offHeap = new OffHeapMemory8(MEM_SIZE)) {
+            for (Memory8 mem : new Memory8[] { new Memory8(MEM_SIZE), offHeap }) {
+                mem.coldReset();
+                for (int page = 0; page < mem.getPageCount(); page++)
+                    mem.fetchAndClearPageWritten(page);
+
+                mem.writeBlock(0x02fe, new byte[] { 9, 1, 2, 3, 4 }, 1, 4);
+                assertTrue(mem.fetchAndClearPageWritten(0x02));
+                assertTrue(mem.fetchAndClearPageWritten(0x03));
+                assertFalse(mem.isPageWritten(0x04));
+                mem.fill(0x0400, 0x200, 0xa0);
+                assertTrue(mem.isPageWritten(0x05));
+                assertFalse(mem.isPageWritten(0x06));
+
+                // Overlapping copy shifts the block up by one
+                mem.copyRange(0x02fe, 0x02ff, 4);
+                byte[] block = new byte[6];
+                mem.readBlock(0x02fe, block, 1, 5);
+                assertArrayEquals(new byte[] { 0, 1, 1, 2, 3, 4 }, block);
+                assertEquals(0xa0, mem.getByte(0x05ff));
+                assertEquals(0x00, mem.getByte(0x0600));
+            }
+        }
+    }
+
+    @Test
+    public void coldResetPatternAndBlockPeeks() throws Exception {
+        byte[] rom = new byte[0x4000];
+        rom[0x3ffe] = 0x12;
+        rom[0x3fff] = 0x34;
+        MemoryBusIIe bus = new MemoryBusIIe(new Memory8(MEM_SIZE), rom);
+        bus.coldReset();
+        assertEquals(0x00, bus.getMemory().getByte(0x0000));
+        assertEquals(0xff, bus.getMemory().getByte(0x0001));
+        assertEquals(0xff, bus.getMemory().getByte(0xffff));
+        assertEquals(0x00, bus.getMemory().getByte(MemoryBusIIe.BANKED_RAM));
+
+        bus.setByte(0x0300, 0x55);
+        bus.setByte(0xbfff, 0x66);
+        byte[] block = new byte[0x10000];
+        bus.peekBlockNoSideEffects(0x0000, block, 0, block.length);
+        for (int address = 0; address < 0x10000; address++)
+            assertEquals(Integer.toHexString(address), bus.peekByteNoSideEffects(address), block[address] & 0xff);
+        assertEquals(0x55, block[0x0300] & 0xff);
+        assertEquals(0x34, block[0xffff] & 0xff);
+        // Peeking the soft switch page leaves the switches alone
+        assertFalse(bus.isPage2());
+    }
+
+}
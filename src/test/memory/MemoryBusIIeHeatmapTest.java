@@ -0,0 +1,61 @@
+package test.memory;
+
+import core.memory.memory8.Memory8;
+import core.memory.memory8.MemoryBusIIe;
+import core.memory.memory8.MemoryBusIIeHeatmap;
+import org.junit.Test;
+
+import java.io.ByteArrayOutputStream;
+import java.io.PrintWriter;
+import java.io.StringWriter;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+public class MemoryBusIIeHeatmapTest {
+
+    @Test
+    public void countsAccessesByPhysicalLocation() throws Exception {
+        MemoryBusIIeHeatmap bus = new MemoryBusIIeHeatmap(new Memory8(0x20000), new byte[0x4000]);
+        bus.coldReset();
+        bus.clear();
+
+        bus.setByte(0x0300, 1);
+        bus.setRamWrt(true);
+        bus.setByte(0x0300, 2);
+        bus.getByte(0x0300);
+        bus.getByte(0xfffc);
+        bus.getByte(0xc030);
+        bus.getByte(0xc030);
+        bus.opcodeFetched(0xfa62);
+        // Peeks are not accesses
+        bus.peekByteNoSideEffects(0x0300);
+
+        assertEquals(1, bus.getWrites(0x0300));
+        assertEquals(1, bus.getWrites(MemoryBusIIe.BANKED_RAM | 0x0300));
+        assertEquals(1, bus.getReads(0x0300));
+        assertEquals(1, bus.getReads(MemoryBusIIe.FETCH_KEY_ROM + 0x3ffc));
+        assertEquals(2, bus.getReads(MemoryBusIIeHeatmap.IO_BASE + 0x030));
+        assertEquals(1, bus.getExecutes(MemoryBusIIe.FETCH_KEY_ROM + 0x3a62));
+
+        StringWriter summary = new StringWriter();
+        bus.writeSummary(new PrintWriter(summary), 5);
+        assertTrue(summary.toString().contains("io $c030"));
+        assertTrue(summary.toString().contains("aux $0300"));
+        ByteArrayOutputStream binary = new ByteArrayOutputStream();
+        bus.writeBinary(binary);
+        // Header plus one record per index touched
+        assertEquals(16 + 5 * 28, binary.size());
+    }
+
+    @Test
+    public void isMarkedWrittenOnlyOnce() {
+        MemoryBusIIeHeatmap bus = new MemoryBusIIeHeatmap(new Memory8(0x20000), new byte[0x4000]);
+        assertTrue(bus.markWritten());
+        assertFalse(bus.markWritten());
+        // Each machine's heatmap is written independently
+        assertTrue(new MemoryBusIIeHeatmap(new Memory8(0x20000), new byte[0x4000]).markWritten());
+    }
+
+}
@@ -0,0 +1,104 @@
+package test.memory;
+
+import core.memory.memory8.Memory8;
+import core.memory.memory8.MemoryBusIIe;
+import org.junit.Test;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+public class MemoryBusIIePageTableTest {
+
+    private static final int MEM_SIZE = 0x20000;
+    private static final int ROM_SIZE = 0x4000;
+
+    private static MemoryBusIIe createBus(byte[] rom) throws Exception {
+        Memory8 mem = new Memory8(MEM_SIZE);
+        MemoryBusIIe bus = new MemoryBusIIe(mem, rom);
+        bus.coldReset();
+        return bus;
+    }
+
+    @Test
+    public void auxiliaryRamFollowsRamReadAndRamWrite() throws Exception {
+        MemoryBusIIe bus = createBus(new byte[ROM_SIZE]);
+        Memory8 mem = bus.getMemory();
+
+        bus.setByte(0x0300, 0x11);
+        bus.setRamWrt(true);
+        bus.setByte(0x0300, 0x22);
+        assertEquals(0x11, mem.getByte(0x0300));
+        assertEquals(0x22, mem.getByte(MemoryBusIIe.BANKED_RAM | 0x0300));
+        assertEquals(0x11, bus.getByte(0x0300));
+        bus.setRamRead(true);
+        assertEquals(0x22, bus.getByte(0x0300));
+
+        // 80STORE hands $0400-$07FF and, with HIRES, $2000-$3FFF to PAGE2
+        bus.set80Store(true);
+        bus.setByte(0x0400, 0x33);
+        bus.setByte(0x2000, 0x44);
+        assertEquals(0x33, mem.getByte(0x0400));
+        assertEquals(0x44, mem.getByte(MemoryBusIIe.BANKED_RAM | 0x2000));
+        bus.setHiRes(true);
+        bus.setPage2(true);
+        bus.setByte(0x2000, 0x55);
+        assertEquals(0x55, mem.getByte(MemoryBusIIe.BANKED_RAM | 0x2000));
+        bus.setPage2(false);
+        bus.setByte(0x2000, 0x66);
+        assertEquals(0x66, mem.getByte(0x2000));
+        assertEquals(0x66, bus.getByte(0x2000));
+
+        bus.setAltZp(true);
+        bus.setByte(0x0010, 0x77);
+        assertEquals(0x77, mem.getByte(MemoryBusIIe.BANKED_RAM | 0x0010));
+        bus.setAltZp(false);
+        assertEquals(0x00, bus.getByte(0x0010));
+    }
+
+    @Test
+    public void languageCardSelectsRomOrBankedRam() throws Exception {
+        byte[] rom = new byte[ROM_SIZE];
+        rom[0x1000] = 0x5a;
+        rom[0x3fff] = (byte) 0xa5;
+        MemoryBusIIe bus = createBus(rom);
+        Memory8 mem = bus.getMemory();
+
+        assertEquals(0x5a, bus.getByte(0xd000));
+        assertEquals(0xa5, bus.getByte(0xffff));
+        // Writes to ROM are ignored
+        bus.setByte(0xd000, 0x01);
+        assertEquals(0x5a, bus.getByte(0xd000));
+        assertEquals(0x00, mem.getByte(0xd000));
+
+        bus.setHRamWrt(true);
+        bus.setBank1(true);
+        bus.setByte(0xd000, 0x02);
+        bus.setByte(0xe000, 0x03);
+        assertEquals(0x02, mem.getByte(0xc000));
+        assertEquals(0x03, mem.getByte(0xe000));
+        assertEquals(0x5a, bus.getByte(0xd000));
+        bus.setHRamRd(true);
+        assertEquals(0x02, bus.getByte(0xd000));
+        bus.setBank1(false);
+        bus.setByte(0xd000, 0x04);
+        assertEquals(0x04, mem.getByte(0xd000));
+        assertEquals(0x04, bus.getByte(0xd000));
+        bus.setAltZp(true);
+        bus.setByte(0xd000, 0x06);
+        assertEquals(0x06, mem.getByte(MemoryBusIIe.BANKED_RAM | 0xd000));
+    }
+
+    @Test
+    public void ioPagesStillReachTheirHandlers() throws Exception {
+        MemoryBusIIe bus = createBus(new byte[ROM_SIZE]);
+        assertFalse(bus.isPage2());
+        bus.getByte(0xc055);
+        assertTrue(bus.isPage2());
+        bus.setByte(0xc005, 0);
+        assertTrue(bus.isRamWrt());
+        bus.setByte(0x0800, 0x12);
+        assertEquals(0x12, bus.getMemory().getByte(MemoryBusIIe.BANKED_RAM | 0x0800));
+    }
+
+}
@@ -0,0 +1,78 @@
+package test.memory;
+
+import core.memory.memory8.Memory8;
+import core.memory.memory8.MemoryBusIIe;
+import org.junit.Test;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+public class MemoryBusIIeSwitchTest {
+
+    private static MemoryBusIIe createBus() throws Exception {
+        MemoryBusIIe bus = new MemoryBusIIe(new Memory8(0x20000), new byte[0x4000]);
+        bus.coldReset();
+        return bus;
+    }
+
+    @Test
+    public void changeCountersOnlyMoveForTheirOwnSwitches() throws Exception {
+        MemoryBusIIe bus = createBus();
+        int video = bus.getVideoIteration();
+        int map = bus.getMemoryMapIteration();
+        int speaker = bus.getSpeakerIteration();
+
+        // Language card and ALTZP changes leave the video counter alone
+        bus.getByte(0xc08b);
+        bus.getByte(0xc08b);
+        bus.setByte(0xc009, 0);
+        assertEquals(video, bus.getVideoIteration());
+        assertTrue(bus.getMemoryMapIteration() > map);
+        assertEquals(speaker, bus.getSpeakerIteration());
+
+        map = bus.getMemoryMapIteration();
+        bus.getByte(0xc051);
+        bus.setByte(0xc00d, 0);
+        assertEquals(video + 2, bus.getVideoIteration());
+        assertEquals(map, bus.getMemoryMapIteration());
+
+        // Setting a switch that is already set is not a change
+        bus.setByte(0xc00d, 0);
+        assertEquals(video + 2, bus.getVideoIteration());
+
+        bus.getByte(0xc030);
+        assertEquals(speaker + 1, bus.getSpeakerIteration());
+        assertEquals(video + 2, bus.getVideoIteration());
+
+        // PAGE2 matters to both the memory map and the display
+        bus.getByte(0xc055);
+        assertEquals(video + 3, bus.getVideoIteration());
+        assertEquals(map + 1, bus.getMemoryMapIteration());
+    }
+
+    @Test
+    public void switchBitsRestoreTheMemoryMap() throws Exception {
+        MemoryBusIIe bus = createBus();
+        int initial = bus.getSwitchBits();
+        bus.setRamRead(true);
+        bus.setRamWrt(true);
+        bus.setText(true);
+        int snapshot = bus.getSwitchBits();
+        assertEquals(MemoryBusIIe.SWITCH_RAMRD | MemoryBusIIe.SWITCH_RAMWRT | MemoryBusIIe.SWITCH_TEXT,
+                snapshot & ~initial);
+        bus.setByte(0x0300, 0x42);
+
+        bus.setSwitchBits(initial);
+        assertFalse(bus.isRamRead());
+        assertFalse(bus.isText());
+        assertEquals(0x00, bus.getByte(0x0300));
+
+        int video = bus.getVideoIteration();
+        bus.setSwitchBits(snapshot);
+        assertTrue(bus.isRamWrt());
+        assertEquals(0x42, bus.getByte(0x0300));
+        assertEquals(video + 1, bus.getVideoIteration());
+    }
+
+}
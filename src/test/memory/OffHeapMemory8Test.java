@@ -0,0 +1,88 @@
+package test.memory;
+
+import core.memory.memory8.Memory8;
+import core.memory.memory8.MemoryBusIIe;
+import core.memory.memory8.OffHeapMemory8;
+import org.junit.Test;
+
+import java.lang.foreign.MemorySegment;
+import java.lang.foreign.ValueLayout;
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+public class OffHeapMemory8Test {
+
+    private static final int MEM_SIZE = 0x20000;
+
+    @Test
+    public void offHeapMemoryMatchesHeapMemory() throws Exception {
+        Memory8 heap = new Memory8(MEM_SIZE);
+        try (OffHeapMemory8 offHeap = new OffHeapMemory8(MEM_SIZE)) {
+            heap.coldReset();
+            offHeap.coldReset();
+            for (Memory8 mem : new Memory8[] { heap, offHeap }) {
+                mem.fetchAndClearPageWritten(3);
+                mem.setByte(0x0300, 0x1ff);
+                mem.setByte(MemoryBusIIe.BANKED_RAM | 0x0400, 0x80);
+                assertEquals(0xff, mem.getByte(0x0300));
+                assertEquals(0x80, mem.getByte(MemoryBusIIe.BANKED_RAM | 0x0400));
+                assertTrue(mem.fetchAndClearPageWritten(3));
+                assertFalse(mem.isPageWritten(3));
+            }
+            assertArrayEquals(heap.snapshot(), offHeap.snapshot());
+
+            // Slices see later writes and survive a cold reset
+            MemorySegment aux = offHeap.getReadOnlySlice(MemoryBusIIe.BANKED_RAM, 0x10000);
+            assertTrue(aux.isReadOnly());
+            offHeap.setByte(MemoryBusIIe.BANKED_RAM | 0x0400, 0x81);
+            assertEquals((byte) 0x81, aux.get(ValueLayout.JAVA_BYTE, 0x0400));
+            offHeap.coldReset();
+            assertEquals(0, aux.get(ValueLayout.JAVA_BYTE, 0x0400));
+        }
+    }
+
+    @Test
+    public void snapshotRestoresTheWholeMemory() throws Exception {
+        try (OffHeapMemory8 mem = new OffHeapMemory8(MEM_SIZE)) {
+            mem.coldReset();
+            mem.setByte(0x1234, 0x56);
+            byte[] image = mem.snapshot();
+            mem.setByte(0x1234, 0x00);
+            for (int page = 0; page < MEM_SIZE >> 8; page++)
+                mem.fetchAndClearPageWritten(page);
+
+            mem.restore(image);
+            assertEquals(0x56, mem.getByte(0x1234));
+            assertTrue(mem.isPageWritten(0x1ff));
+            try {
+                mem.restore(new byte[0x100]);
+                fail("short image accepted");
+            } catch (IllegalArgumentException expected) {
+            }
+        }
+    }
+
+    @Test
+    public void mappedMemoryIsVisibleInItsFile() throws Exception {
+        Path file = Files.createTempFile("ram", ".bin");
+        try {
+            try (OffHeapMemory8 mem = new OffHeapMemory8(MEM_SIZE, file)) {
+                mem.coldReset();
+                assertTrue(mem.isMapped());
+                mem.setByte(MemoryBusIIe.BANKED_RAM | 0x2000, 0x42);
+            }
+            byte[] contents = Files.readAllBytes(file);
+            assertEquals(MEM_SIZE, contents.length);
+            assertEquals(0x42, contents[MemoryBusIIe.BANKED_RAM | 0x2000]);
+        } finally {
+            Files.deleteIfExists(file);
+        }
+    }
+
+}
@@ -0,0 +1,46 @@
+package test.memory;
+
+import core.memory.memory8.SharedRomStore;
+import org.junit.Test;
+
+import java.io.File;
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+public class SharedRomStoreTest {
+
+    @Test
+    public void filesAndImagesAreSharedByContent() throws Exception {
+        Path first = Files.createTempFile("rom", ".bin");
+        Path second = Files.createTempFile("rom", ".bin");
+        try {
+            byte[] image = new byte[0x100];
+            image[0] = 0x4c;
+            image[0xff] = (byte) 0xea;
+            Files.write(first, image);
+            Files.write(second, image);
+
+            byte[] loaded = SharedRomStore.load(first.toFile());
+            assertArrayEquals(image, loaded);
+            assertSame(loaded, SharedRomStore.load(first.toFile()));
+            assertSame(loaded, SharedRomStore.load(new File(second.toString())));
+            assertSame(loaded, SharedRomStore.intern(image.clone()));
+
+            // A changed file is read again
+            image[1] = 0x01;
+            Files.write(first, image);
+            first.toFile().setLastModified(first.toFile().lastModified() + 2000);
+            byte[] reloaded = SharedRomStore.load(first.toFile());
+            assertTrue(loaded != reloaded);
+            assertArrayEquals(image, reloaded);
+        } finally {
+            Files.deleteIfExists(first);
+            Files.deleteIfExists(second);
+        }
+    }
+
+}